@@ -0,0 +1,212 @@
+import java.util.Random;
+
+/**
+ * The LifeEngine that holds one byte per Cell in a flat array, row after row, and plays any two-state rule. A generation
+ * is split in two: the interior, every Cell with all eight neighbours on the board, is stepped by a loop that reads the
+ * neighbours at fixed offsets from the Cell's index and finds the next state by shifting a mask of the rule, with no
+ * bounds check and no branch; the border, the first and last rows and columns, is stepped one Cell at a time with the
+ * checks. The interior loop is simple enough for the JIT to unroll and to prove every index in range, and the border
+ * is a vanishing share of a large board.
+ */
+public class ArrayEngine implements LifeEngine {
+	
+	private final int width, height;
+	private final int ruleMask;  // bit n: a dead Cell with n living neighbours is born; bit 9 + n: a living one survives
+	private byte[] cells, next;  // 1 for a living Cell and 0 for a dead one, Cell (x, y) at index y * width + x
+	
+	/**
+	 * Constructs an ArrayEngine with all Cells dead. The width and height must be positive; if they are not, the board is
+	 * 20 * 20. If the rule is null or has more than two states, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public ArrayEngine(int width, int height, GenerationsRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		this.width = width;
+		this.height = height;
+		rule = rule != null && rule.getStates() == 2 ? rule : EngineType.CONWAY;
+		ruleMask = rule.getBirths() | rule.getSurvivals() << 9;
+		cells = new byte[width * height];
+		next = new byte[cells.length];
+	}
+	
+	@Override
+	public String getName() {
+		return "array";
+	}
+	
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	
+	@Override
+	public boolean get(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height && cells[y * width + x] != 0;
+	}
+	
+	@Override
+	public void set(int x, int y, boolean alive) {
+		if (x >= 0 && x < width && y >= 0 && y < height) {
+			cells[y * width + x] = (byte) (alive ? 1 : 0);
+		}
+	}
+	
+	@Override
+	public void step() {
+		stepInterior();
+		stepBorder();
+		byte[] swap = cells;
+		cells = next;
+		next = swap;
+	}
+	
+	/*
+	 * Steps every Cell that is not on the first or last row or column
+	 */
+	private void stepInterior() {
+		byte[] cells = this.cells, next = this.next;
+		int width = this.width, ruleMask = this.ruleMask;
+		for (int y = 1; y < height - 1; y++) {
+			int end = (y + 1) * width - 1;
+			for (int i = y * width + 1; i < end; i++) {
+				int livingNeighbors = cells[i - width - 1] + cells[i - width] + cells[i - width + 1] + cells[i - 1] +
+						cells[i + 1] + cells[i + width - 1] + cells[i + width] + cells[i + width + 1];
+				next[i] = (byte) (ruleMask >>> (cells[i] * 9 + livingNeighbors) & 1);
+			}
+		}
+	}
+	
+	/*
+	 * Steps the Cells of the first and last rows and columns, counting their neighbours with bounds checks
+	 */
+	private void stepBorder() {
+		for (int x = 0; x < width; x++) {
+			stepCell(x, 0);
+			stepCell(x, height - 1);  // the same row again if the board is one row high, which is harmless
+		}
+		for (int y = 1; y < height - 1; y++) {
+			stepCell(0, y);
+			stepCell(width - 1, y);
+		}
+	}
+	
+	/*
+	 * Steps one Cell, counting its neighbours with bounds checks
+	 */
+	private void stepCell(int x, int y) {
+		int livingNeighbors = 0;
+		for (int dy = -1; dy <= 1; dy++) {
+			for (int dx = -1; dx <= 1; dx++) {
+				if ((dx != 0 || dy != 0) && get(x + dx, y + dy)) {
+					livingNeighbors++;
+				}
+			}
+		}
+		int i = y * width + x;
+		next[i] = (byte) (ruleMask >>> (cells[i] * 9 + livingNeighbors) & 1);
+	}
+	
+	@Override
+	public int population() {
+		int population = 0;
+		for (byte cell : cells) {
+			population += cell;
+		}
+		return population;
+	}
+	
+	@Override
+	public BitGrid snapshot() {
+		BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (cells[y * width + x] != 0) {
+					grid.set(x, y, true);
+				}
+			}
+		}
+		return grid;
+	}
+	
+	@Override
+	public void load(BitGrid grid) {
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				cells[y * width + x] = (byte) (grid.get(x, y) ? 1 : 0);  // false beyond the grid
+			}
+		}
+	}
+	
+	/*
+	 * Measures the time per Cell of a generation on each engine that plays a rule, and of asking a GameOfLife for the
+	 * future of every Cell one at a time
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 1024, steps = 20;
+		Random random = new Random(1);
+		BitGrid initial = new BitGrid(side, side);
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				initial.set(x, y, random.nextDouble() < 0.3);
+			}
+		}
+		
+		System.out.println("Nanoseconds per Cell per generation on a " + side + " * " + side + " board:");
+		for (String text : new String[] {"B3/S23", "B36/S23"}) {
+			GenerationsRule rule = GenerationsRule.parse(text);
+			StringBuilder line = new StringBuilder(String.format("  %-8s", text));
+			BitGrid result = null;
+			boolean same = true;
+			for (EngineType type : new EngineType[] {EngineType.REFERENCE, EngineType.ARRAY, EngineType.BIT_GRID}) {
+				if (!type.supports(rule)) {
+					continue;
+				}
+				LifeEngine engine = type.create(side, side, rule);
+				long nanos = 0;
+				for (int i = 0; i < 2 * steps; i++) {
+					engine.load(initial);
+					long start = System.nanoTime();
+					engine.step();
+					nanos += i >= steps ? System.nanoTime() - start : 0;  // the first half warms up
+				}
+				result = result == null ? engine.snapshot() : result;
+				same &= result.equals(engine.snapshot());
+				line.append(String.format("  %s %.2f", engine.getName(), (double) nanos / steps / side / side));
+			}
+			System.out.println(line + "  same boards: " + same);
+		}
+		
+		// Through the bit-grid engine the neighbours are counted three bits at a time, through the others one probe at a time
+		System.out.println("GameOfLife.willBeAlive on every Cell of the same board, in nanoseconds per Cell:");
+		for (EngineType type : new EngineType[] {EngineType.BIT_GRID, EngineType.ARRAY}) {
+			GameOfLife game = new GameOfLife(side, side);
+			game.setEngine(type.create(side, side, EngineType.CONWAY));
+			game.paste(initial, 0, 0, PasteMode.REPLACE);
+			int alive = 0;
+			long nanos = 0;
+			for (int i = 0; i < 4; i++) {
+				long start = System.nanoTime();
+				alive = 0;
+				for (int y = 0; y < side; y++) {
+					for (int x = 0; x < side; x++) {
+						alive += game.willBeAlive(x, y) ? 1 : 0;
+					}
+				}
+				nanos = System.nanoTime() - start;  // the last sweep is kept, the others warm up
+			}
+			System.out.printf("  %s %.2f, %d to live%n", game.getEngineName(), (double) nanos / side / side, alive);
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Saves a running GameOfLife to a file now and then without pausing it. Registered as a GenerationObserver, it freezes
+ * the generation with GameOfLife.freeze(), which copies nothing on the bit-grid engine, and writes the snapshot on a
+ * background thread while the game goes on. A save is started at most once per interval; if the previous save is still
+ * being written, the generation is skipped rather than queued, so a slow disk never holds up the game or piles up
+ * snapshots in memory.
+ *
+ * Each save is written to a temporary file next to the target and then moved over it, so the file always holds one whole
+ * generation. It is a ReplayJournal holding only the board, which ReplayJournal.replay() reads back into a game.
+ */
+public class Autosave implements GenerationObserver, Closeable {
+	
+	private final Path file, temporary;
+	private final long intervalNanos;
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "Autosave");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean writing = new AtomicBoolean();
+	private final AtomicInteger saves = new AtomicInteger(), skipped = new AtomicInteger();
+	private volatile int lastSavedGen = -1;
+	private volatile IOException failure;
+	private long lastStarted;
+	private boolean started;
+	
+	/**
+	 * Constructs an Autosave. Register it with GameOfLife.addObserver(), with an interval no longer than the one given
+	 * here so that it is asked often enough while the game advances.
+	 *
+	 * @param file the file to save to, which is replaced by each save
+	 * @param intervalMillis the minimum time between the starts of two saves, in milliseconds
+	 */
+	public Autosave(Path file, long intervalMillis) {
+		this.file = file;
+		temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(intervalMillis, 0));
+	}
+	
+	/**
+	 * Freezes the generation and starts saving it, if the interval has passed since the last save began and no save is
+	 * being written.
+	 *
+	 * @param game the game whose generation has advanced
+	 */
+	@Override
+	public void generationAdvanced(GameOfLife game) {
+		long now = System.nanoTime();
+		if (started && now - lastStarted < intervalNanos) {
+			return;
+		}
+		if (!writing.compareAndSet(false, true)) {
+			skipped.incrementAndGet();
+			return;
+		}
+		started = true;
+		lastStarted = now;
+		BoardSnapshot snapshot = game.freeze();
+		try {
+			writer.execute(() -> write(snapshot));
+		} catch (RuntimeException e) {  // the writer has been shut down by close()
+			writing.set(false);
+		}
+	}
+	
+	/*
+	 * Writes a snapshot to the temporary file, forces it to disk and moves it over the target, on the writer thread
+	 */
+	private void write(BoardSnapshot snapshot) {
+		try {
+			if (failure == null) {
+				try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					ReplayJournal journal = new ReplayJournal(channel);
+					journal.start(snapshot.getWidth(), snapshot.getHeight(), snapshot.getGen(), snapshot.cells());
+					journal.flush();
+					channel.force(true);  // on disk before the move, so a crash cannot leave the target holding a partial save
+				}
+				try {
+					Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+				lastSavedGen = snapshot.getGen();
+				saves.incrementAndGet();
+			}
+		} catch (IOException e) {
+			failure = e;
+		} finally {
+			writing.set(false);
+		}
+	}
+	
+	/**
+	 * @return the number of saves written
+	 */
+	public int getSaves() {
+		return saves.get();
+	}
+	
+	/**
+	 * @return the number of times a save was due but skipped because the previous one was still being written
+	 */
+	public int getSkipped() {
+		return skipped.get();
+	}
+	
+	/**
+	 * @return the generation number of the last save written, or -1 if none has been
+	 */
+	public int getLastSavedGen() {
+		return lastSavedGen;
+	}
+	
+	/**
+	 * Waits for the save being written, if any, and stops saving. Unregister the Autosave from the game first.
+	 *
+	 * @throws IOException if any save failed
+	 */
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/*
+	 * Compares the cost of a frozen snapshot with that of a copy, and advances a large board with and without autosaving
+	 * every 50 ms, then checks the last save; the first argument, if given, is the file to save to
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean temporary = args.length == 0;
+		Path file = temporary ? Files.createTempFile("life-autosave", ".journal") : Path.of(args[0]);
+		try {
+			int side = 2048, generations = 300;
+			GameOfLife game = new GameOfLife(side, side);
+			game.setEngine(EngineType.BIT_GRID.create(side, side, EngineType.CONWAY));
+			game.randomSetup(1);
+			
+			// A snapshot does not see edits made after it, which copy the shared grid first
+			BoardSnapshot frozen = game.freeze();
+			BitGrid before = game.snapshot();
+			game.changeState(5, 5);
+			game.fillRegion(100, 100, 300, 300, Cell.ALIVE);
+			game.paste(BitGrid.fromText("OOO"), 0, 0, PasteMode.XOR);
+			System.out.println("A snapshot is unchanged by later edits: " + frozen.copyCells().equals(before) +
+					", and the game has them: " + !game.snapshot().equals(before));
+			game.randomSetup(1);
+			
+			long copyNanos = 0, freezeNanos = 0;
+			for (int i = 0; i < 40; i++) {
+				long start = System.nanoTime();
+				game.snapshot();
+				long middle = System.nanoTime();
+				game.freeze();
+				long end = System.nanoTime();
+				if (i >= 20) {  // the first half warms up
+					copyNanos += middle - start;
+					freezeNanos += end - middle;
+				}
+			}
+			System.out.printf("On a %d * %d board, snapshot() copies in %.1f us and freeze() takes %.2f us%n", side,
+					side, copyNanos / 20 / 1e3, freezeNanos / 20 / 1e3);
+			
+			long start = System.nanoTime();
+			game.advance(generations);
+			long plainNanos = System.nanoTime() - start;
+			
+			Autosave autosave = new Autosave(file, 50);
+			game.addObserver(autosave, 50);
+			start = System.nanoTime();
+			game.advance(generations);
+			long savingNanos = System.nanoTime() - start;
+			game.removeObserver(autosave);
+			autosave.close();
+			System.out.printf("Advancing by %d generations takes %d ms, and %d ms while saving every 50 ms: " +
+					"%d save(s), %d skipped%n", generations, plainNanos / 1000000, savingNanos / 1000000,
+					autosave.getSaves(), autosave.getSkipped());
+			
+			// The save is checked against the same game played again up to the generation saved
+			try (FileChannel channel = FileChannel.open(file)) {
+				GameOfLife saved = ReplayJournal.replay(channel);
+				GameOfLife again = new GameOfLife(side, side);
+				again.randomSetup(1);
+				again.advance(saved.getGen());
+				System.out.println("The last save holds generation " + saved.getGen() + " in " +
+						Files.size(file) / 1024 + " KB, same board as the game played again: " +
+						saved.snapshot().equals(again.snapshot()));
+			}
+		} finally {
+			if (temporary) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,430 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A rectangular grid of two-state cells packed one bit per cell. Rows are stored one after another in an array of longs,
+ * each row starting on a new word, with the cell at x held in bit (x % 64) of word (x / 64) of its row. Bits past the
+ * width of the grid in the last word of a row are always zero. Locations are specified by pairs of int coordinates x
+ * and y as on a GameBoard, with the upper left corner at (0,0).
+ *
+ * Region operations such as fill and paste work on whole words at a time, shifting the rows of a pattern into place, so
+ * their cost is proportional to the number of words touched rather than the number of cells.
+ */
+public class BitGrid {
+	
+	private final int width, height;
+	private final int wordsPerRow;
+	private final long[] words;
+	
+	/**
+	 * Constructs a BitGrid of the dimension specified with all cells dead. Negative dimensions are treated as 0.
+	 *
+	 * @param width the width of the new grid
+	 * @param height the height of the new grid
+	 */
+	public BitGrid(int width, int height) {
+		this.width = Math.max(width, 0);
+		this.height = Math.max(height, 0);
+		this.wordsPerRow = (this.width + 63) >>> 6;
+		this.words = new long[wordsPerRow * this.height];
+	}
+	
+	/**
+	 * Constructs a BitGrid with the same dimension and cells as another BitGrid.
+	 *
+	 * @param other the BitGrid to copy
+	 */
+	public BitGrid(BitGrid other) {
+		this.width = other.width;
+		this.height = other.height;
+		this.wordsPerRow = other.wordsPerRow;
+		this.words = other.words.clone();
+	}
+	
+	/**
+	 * Reads a pattern in plain text form, one line per row, where 'O' or '*' is a living cell and any other character is a
+	 * dead cell. Lines starting with '!' are comments and are skipped. The grid is as wide as the longest row.
+	 *
+	 * @param text the pattern as text
+	 * @return a new BitGrid holding the pattern
+	 */
+	public static BitGrid fromText(CharSequence text) {
+		String[] lines = text.toString().split("\r?\n");
+		int rows = 0, columns = 0;
+		for (String line : lines) {
+			if (!line.startsWith("!")) {
+				rows++;
+				columns = Math.max(columns, line.length());
+			}
+		}
+		
+		BitGrid grid = new BitGrid(columns, rows);
+		int y = 0;
+		for (String line : lines) {
+			if (!line.startsWith("!")) {
+				for (int x = 0; x < line.length(); x++) {
+					if (line.charAt(x) == 'O' || line.charAt(x) == '*') {
+						grid.set(x, y, true);
+					}
+				}
+				y++;
+			}
+		}
+		return grid;
+	}
+	
+	/**
+	 * @return the width of this BitGrid
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return the height of this BitGrid
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * @return the number of longs used for each row
+	 */
+	int wordsPerRow() {
+		return wordsPerRow;
+	}
+	
+	/**
+	 * @return the backing array of this BitGrid, for stepping kernels that work on whole words
+	 */
+	long[] words() {
+		return words;
+	}
+	
+	/**
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @return whether the location specified is on this grid
+	 */
+	public boolean onGrid(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+	
+	/**
+	 * @param x the x-coordinate of the cell of interest
+	 * @param y the y-coordinate of the cell of interest
+	 * @return whether the cell is alive; false if the location is not on this grid
+	 */
+	public boolean get(int x, int y) {
+		if (!onGrid(x, y)) {
+			return false;
+		}
+		return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;  // shifts of a long only use the low 6 bits of x
+	}
+	
+	/**
+	 * Counts the living cells among the eight neighbours of a cell. A cell away from the edges of the grid whose
+	 * neighbours lie in the same word as itself has them read with three shifts and three bit counts; any other cell has
+	 * them read with the bounds checks, neighbours off the grid counting as dead.
+	 *
+	 * @param x the x-coordinate of the cell of interest
+	 * @param y the y-coordinate of the cell of interest
+	 * @return the number of living neighbours of the cell; 0 if the location is not on this grid
+	 */
+	public int countNeighbors(int x, int y) {
+		if (!onGrid(x, y)) {
+			return 0;
+		}
+		int i = y * wordsPerRow + (x >>> 6), shift = (x & 63) - 1;
+		if (0 < y && y < height - 1 && 0 <= shift && shift <= 61) {
+			return Long.bitCount(words[i - wordsPerRow] >>> shift & 7) + Long.bitCount(words[i] >>> shift & 5) +
+					Long.bitCount(words[i + wordsPerRow] >>> shift & 7);
+		}
+		int livingNeighbors = 0;
+		for (int row = Math.max(y - 1, 0); row <= Math.min(y + 1, height - 1); row++) {
+			livingNeighbors += Long.bitCount(rowBits(row * wordsPerRow, x - 1) & (row == y ? 5 : 7));
+		}
+		return livingNeighbors;
+	}
+	
+	/**
+	 * Sets the cell at the location specified alive or dead. If the location is not on this grid, this method performs
+	 * no action.
+	 *
+	 * @param x the x-coordinate of the cell to set
+	 * @param y the y-coordinate of the cell to set
+	 * @param alive whether the cell should be alive
+	 */
+	public void set(int x, int y, boolean alive) {
+		if (!onGrid(x, y)) {
+			return;
+		}
+		int i = y * wordsPerRow + (x >>> 6);
+		if (alive) {
+			words[i] |= 1L << x;
+		}
+		else {
+			words[i] &= ~(1L << x);
+		}
+	}
+	
+	/**
+	 * @return the number of living cells on this grid
+	 */
+	public int population() {
+		int population = 0;
+		for (long word : words) {
+			population += Long.bitCount(word);
+		}
+		return population;
+	}
+	
+	/**
+	 * Sets every cell on this grid dead.
+	 */
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+	
+	/**
+	 * Sets every cell in a rectangular region alive or dead. The parts of the region that are not on this grid are ignored.
+	 *
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @param alive whether the cells should be alive
+	 */
+	public void fill(int x, int y, int width, int height, boolean alive) {
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + width, this.width);
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + height, this.height);
+		if (x0 >= x1 || y0 >= y1) {
+			return;
+		}
+		
+		int firstWord = x0 >>> 6, lastWord = (x1 - 1) >>> 6;
+		for (int row = y0; row < y1; row++) {
+			int base = row * wordsPerRow;
+			for (int w = firstWord; w <= lastWord; w++) {
+				long mask = rangeMask(w, x0, x1);
+				if (alive) {
+					words[base + w] |= mask;
+				}
+				else {
+					words[base + w] &= ~mask;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Copies a rectangular region of this grid into a new BitGrid of the same dimension as the region. Parts of the region
+	 * that are not on this grid are copied as dead cells.
+	 *
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @return a new BitGrid holding the cells of the region
+	 */
+	public BitGrid copy(int x, int y, int width, int height) {
+		BitGrid region = new BitGrid(width, height);
+		region.paste(this, -x, -y, PasteMode.REPLACE);
+		return region;
+	}
+	
+	/**
+	 * Combines a pattern with the cells of this grid, placing the upper left corner of the pattern at the location
+	 * specified. The parts of the pattern that fall outside this grid are ignored.
+	 *
+	 * @param pattern the pattern to paste
+	 * @param x the x-coordinate on this grid of the upper left corner of the pattern
+	 * @param y the y-coordinate on this grid of the upper left corner of the pattern
+	 * @param mode how the cells of the pattern are combined with the cells they cover
+	 */
+	public void paste(BitGrid pattern, int x, int y, PasteMode mode) {
+		if (pattern == this) {
+			pattern = new BitGrid(this);  // the rows being read must not change while they are pasted
+		}
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + pattern.width, this.width);
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + pattern.height, this.height);
+		if (x0 >= x1 || y0 >= y1) {
+			return;
+		}
+		
+		int firstWord = x0 >>> 6, lastWord = (x1 - 1) >>> 6;
+		for (int row = y0; row < y1; row++) {
+			int base = row * wordsPerRow;
+			int patternBase = (row - y) * pattern.wordsPerRow;
+			for (int w = firstWord; w <= lastWord; w++) {
+				long mask = rangeMask(w, x0, x1);
+				long bits = pattern.rowBits(patternBase, (w << 6) - x) & mask;
+				switch (mode) {
+				case REPLACE:
+					words[base + w] = (words[base + w] & ~mask) | bits;
+					break;
+				case OR:
+					words[base + w] |= bits;
+					break;
+				case XOR:
+					words[base + w] ^= bits;
+					break;
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Returns the 64 cells of a row starting at a bit offset into that row, which may be negative or past its end; cells
+	 * outside the row read as dead.
+	 *
+	 * @param base the index of the first word of the row
+	 * @param offset the bit offset of the first cell to return
+	 */
+	private long rowBits(int base, int offset) {
+		int w = offset >> 6;  // rounds towards negative infinity
+		int shift = offset & 63;
+		long bits = rowWord(base, w) >>> shift;
+		if (shift != 0) {
+			bits |= rowWord(base, w + 1) << (64 - shift);
+		}
+		return bits;
+	}
+	
+	/*
+	 * Returns a word of a row, or 0 if the word index is outside the row
+	 */
+	private long rowWord(int base, int w) {
+		if (0 <= w && w < wordsPerRow) {
+			return words[base + w];
+		}
+		else {
+			return 0L;
+		}
+	}
+	
+	/*
+	 * Returns the bits of word w of a row that lie in the column range [x0, x1)
+	 */
+	private static long rangeMask(int w, int x0, int x1) {
+		int lo = Math.max(x0 - (w << 6), 0);
+		int hi = Math.min(x1 - (w << 6), 64);
+		return (-1L >>> (64 - (hi - lo))) << lo;
+	}
+	
+	/**
+	 * Writes this grid as text, one line per row with 'O' for a living cell and '.' for a dead one, each row ending with
+	 * '\n'. Rows are written one at a time through a single reusable row buffer.
+	 *
+	 * @param out the Writer, StringBuilder, PrintStream or other Appendable to write to
+	 * @throws IOException if out throws IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		CharBuffer row = rowBuffer(width);
+		for (int y = 0; y < height; y++) {
+			writeRow(words, y * wordsPerRow, row, out);
+		}
+	}
+	
+	/**
+	 * @param width the number of cells in a row
+	 * @return a buffer for writeRow() to reuse for every row of that width, ending with '\n'
+	 */
+	static CharBuffer rowBuffer(int width) {
+		char[] row = new char[width + 1];
+		row[width] = '\n';
+		return CharBuffer.wrap(row);
+	}
+	
+	/**
+	 * Writes one row of cells as text, in the form written by writeTo(), through a buffer made by rowBuffer().
+	 *
+	 * @param words the words holding the row
+	 * @param base the index of the first word of the row
+	 * @param row the buffer to write the row through, which gives its width
+	 * @param out the Appendable to write to
+	 * @throws IOException if out throws IOException
+	 */
+	static void writeRow(long[] words, int base, CharBuffer row, Appendable out) throws IOException {
+		char[] chars = row.array();
+		int width = chars.length - 1;
+		for (int x = 0; x < width; x++) {
+			chars[x] = (words[base + (x >>> 6)] & (1L << x)) != 0 ? 'O' : '.';
+		}
+		if (out instanceof Writer) {
+			((Writer) out).write(chars);
+		}
+		else {
+			out.append(row, 0, chars.length);
+		}
+	}
+	
+	/**
+	 * @return this grid as text in the form written by writeTo
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder((width + 1) * height);
+		try {
+			writeTo(out);
+		} catch (IOException e) {
+			throw new AssertionError(e);  // a StringBuilder never throws IOException
+		}
+		return out.toString();
+	}
+	
+	/**
+	 * @return whether another object is a BitGrid of the same dimension with the same cells alive
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof BitGrid)) {
+			return false;
+		}
+		BitGrid grid = (BitGrid) other;
+		return width == grid.width && height == grid.height && Arrays.equals(words, grid.words);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * (31 * width + height) + Arrays.hashCode(words);
+	}
+	
+	/*
+	 * Tests the methods in the BitGrid class
+	 */
+	public static void main(String[] args) {
+		BitGrid glider = BitGrid.fromText(".O.\n..O\nOOO");
+		System.out.println("A glider read from text is " + glider.getWidth() + " * " + glider.getHeight() +
+				" with " + glider.population() + " living cells: \n" + glider);
+		
+		BitGrid grid = new BitGrid(130, 4);
+		grid.fill(60, 1, 10, 2, true);
+		System.out.println("A 130 * 4 grid with a 10 * 2 block filled across a word boundary has " + grid.population() +
+				" living cells; (59,1) is " + grid.get(59, 1) + ", (60,1) is " + grid.get(60, 1) + ", (69,2) is " +
+				grid.get(69, 2) + ", (70,2) is " + grid.get(70, 2));
+		
+		grid.paste(glider, 126, 0, PasteMode.OR);
+		System.out.println("After pasting the glider at (126,0) with OR, clipped at the right edge, the population is " +
+				grid.population() + "; (127,0) is " + grid.get(127, 0));
+		
+		grid.paste(glider, 62, 0, PasteMode.XOR);
+		System.out.println("After pasting the glider at (62,0) with XOR, the population is " + grid.population());
+		
+		BitGrid copy = grid.copy(126, 0, 3, 3);
+		System.out.println("Copying the 3 * 3 region at (126,0) gives: \n" + copy);
+		
+		grid.paste(new BitGrid(3, 3), 126, 0, PasteMode.REPLACE);
+		System.out.println("Pasting an empty 3 * 3 pattern at (126,0) with REPLACE leaves " + grid.population() +
+				" living cells");
+		
+		grid.fill(-5, -5, 1000, 1000, false);
+		System.out.println("Filling a region larger than the grid with dead cells leaves " + grid.population() +
+				" living cells");
+		
+		System.out.println("A copy of the glider equals the glider? " + new BitGrid(glider).equals(glider));
+	}
+
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+/**
+ * The LifeEngine that holds the board in a BitGrid and steps it 64 Cells at a time: Conway's Game of Life with
+ * BitKernel, and other two-state rules with the RuleKernel made for them. It is the fastest engine for boards that are
+ * not nearly empty. GameOfLife reaches into its grid directly to fill, paste and copy regions a word at a time, and for
+ * Conway's rule to feed statistics collectors during stepping and to step in tiles.
+ *
+ * The grid can be shared with a BoardSnapshot, after which it is copied before it is next changed in place. Each
+ * generation is written to a new grid, so the copy is only made when the board is edited between a snapshot and the
+ * next generation.
+ */
+public class BitGridEngine implements LifeEngine {
+	
+	private BitGrid cells;
+	private final RuleKernel kernel;  // null for Conway's Game of Life, which BitKernel steps
+	private boolean shared;  // whether the grid has been handed out by share(), and must be copied before it is changed
+	
+	/**
+	 * Constructs a BitGridEngine with all Cells dead. The width and height must be positive; if they are not, the board
+	 * is 20 * 20.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 */
+	public BitGridEngine(int width, int height) {
+		this(width, height, EngineType.CONWAY);
+	}
+	
+	/**
+	 * Constructs a BitGridEngine playing a two-state rule, with all Cells dead. The width and height must be positive; 
+	 * if they are not, the board is 20 * 20. If no RuleKernel can be made for the rule, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public BitGridEngine(int width, int height, GenerationsRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		cells = new BitGrid(width, height);
+		kernel = EngineType.CONWAY.equals(rule) ? null : RuleKernel.forRule(rule);
+	}
+	
+	@Override
+	public String getName() {
+		return "bit-grid";
+	}
+	
+	@Override
+	public int getWidth() {
+		return cells.getWidth();
+	}
+	
+	@Override
+	public int getHeight() {
+		return cells.getHeight();
+	}
+	
+	@Override
+	public boolean get(int x, int y) {
+		return cells.get(x, y);
+	}
+	
+	@Override
+	public void set(int x, int y, boolean alive) {
+		if (cells.onGrid(x, y) && cells.get(x, y) != alive) {
+			unshare();
+			cells.set(x, y, alive);
+		}
+	}
+	
+	@Override
+	public void step() {
+		cells = kernel == null ? BitKernel.step(cells) : kernel.step(cells);
+		shared = false;
+	}
+	
+	@Override
+	public int population() {
+		return cells.population();
+	}
+	
+	@Override
+	public void readRow(int y, long[] words) {
+		int wordsPerRow = cells.wordsPerRow();
+		if (y < 0 || y >= getHeight()) {
+			Arrays.fill(words, 0, wordsPerRow, 0L);
+			return;
+		}
+		System.arraycopy(cells.words(), y * wordsPerRow, words, 0, wordsPerRow);
+	}
+	
+	@Override
+	public BitGrid snapshot() {
+		return new BitGrid(cells);
+	}
+	
+	@Override
+	public void load(BitGrid cells) {
+		shared = false;
+		if (cells.getWidth() == getWidth() && cells.getHeight() == getHeight()) {
+			this.cells = new BitGrid(cells);
+			return;
+		}
+		BitGrid copy = new BitGrid(getWidth(), getHeight());
+		copy.paste(cells, 0, 0, PasteMode.REPLACE);
+		this.cells = copy;
+	}
+	
+	/**
+	 * @return whether the engine plays Conway's Game of Life, whose generations BitKernel computes
+	 */
+	public boolean isConway() {
+		return kernel == null;
+	}
+	
+	/**
+	 * @return the grid holding the Cells itself, not a copy, for reading; call unshare() before changing it
+	 */
+	BitGrid grid() {
+		return cells;
+	}
+	
+	/**
+	 * Hands out the grid holding the Cells for a BoardSnapshot, which may keep it as long as it likes. The grid is not 
+	 * changed in place from now on.
+	 *
+	 * @return the grid
+	 */
+	BitGrid share() {
+		shared = true;
+		return cells;
+	}
+	
+	/**
+	 * Makes the grid holding the Cells safe to change in place, by copying it if it has been shared.
+	 */
+	void unshare() {
+		if (shared) {
+			cells = new BitGrid(cells);
+			shared = false;
+		}
+	}
+	
+	/**
+	 * Replaces the grid holding the Cells, for stepping done outside the engine. The grid is kept, not copied, and must
+	 * have the dimension of the board.
+	 *
+	 * @param cells the new grid
+	 */
+	void setGrid(BitGrid cells) {
+		this.cells = cells;
+		shared = false;
+	}
+
+}
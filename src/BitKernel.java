@@ -0,0 +1,171 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes generations of Conway's Game of Life on rows of cells packed one bit per cell in longs, in the layout used by
+ * BitGrid. The eight neighbours of the 64 cells of a word are counted at once with bitwise adders, so a generation costs a
+ * few dozen operations per 64 cells. Cells outside the rows and words given are dead, as off-board cells are in GameOfLife.
+ */
+public class BitKernel {
+	
+	/**
+	 * Boards of at least this many words are split into bands of rows stepped in parallel
+	 */
+	private static final int PARALLEL_WORDS_MIN = 1 << 15;
+	
+	private static final StatisticsCollector[] NO_COLLECTORS = new StatisticsCollector[0];
+	
+	/**
+	 * Computes the next generation of a block of rows into another array of the same layout.
+	 *
+	 * @param src the current generation, rows * wordsPerRow words
+	 * @param dst receives the next generation; must not be the same array as src
+	 * @param rows the number of rows in the block
+	 * @param wordsPerRow the number of words in each row of the block
+	 * @param lastWordMask the bits of the last word of each row that hold cells; the other bits are left dead
+	 */
+	public static void step(long[] src, long[] dst, int rows, int wordsPerRow, long lastWordMask) {
+		stepRows(src, dst, rows, wordsPerRow, lastWordMask, 0, rows, NO_COLLECTORS);
+	}
+	
+	/**
+	 * Computes the next generation of a whole BitGrid.
+	 *
+	 * @param grid the current generation
+	 * @return a new BitGrid holding the next generation
+	 */
+	public static BitGrid step(BitGrid grid) {
+		return step(grid, Collections.emptyList());
+	}
+	
+	/**
+	 * Computes the next generation of a whole BitGrid, handing each row of it to statistics collectors as soon as it is 
+	 * computed. Large boards are split into bands of rows that are stepped in parallel; each band feeds its own partial 
+	 * collectors, which are merged into the collectors given once every band is done. The collectors must already have 
+	 * been told that the generation has begun.
+	 *
+	 * @param grid the current generation
+	 * @param collectors the collectors to feed
+	 * @return a new BitGrid holding the next generation
+	 */
+	public static BitGrid step(BitGrid grid, List<StatisticsCollector> collectors) {
+		int rows = grid.getHeight(), wordsPerRow = grid.wordsPerRow();
+		long lastWordMask = lastWordMask(grid.getWidth());
+		BitGrid next = new BitGrid(grid.getWidth(), rows);
+		long[] src = grid.words(), dst = next.words();
+		int bands = Math.min(Runtime.getRuntime().availableProcessors(), rows);
+		
+		if (bands <= 1 || src.length < PARALLEL_WORDS_MIN) {
+			stepRows(src, dst, rows, wordsPerRow, lastWordMask, 0, rows, collectors.toArray(NO_COLLECTORS));
+			return next;
+		}
+		
+		List<StatisticsCollector[]> partials = IntStream.range(0, bands).parallel().mapToObj(band -> {
+			StatisticsCollector[] bandCollectors = new StatisticsCollector[collectors.size()];
+			for (int i = 0; i < bandCollectors.length; i++) {
+				bandCollectors[i] = collectors.get(i).newPartial();
+			}
+			stepRows(src, dst, rows, wordsPerRow, lastWordMask, (int) ((long) rows * band / bands), 
+					(int) ((long) rows * (band + 1) / bands), bandCollectors);
+			return bandCollectors;
+		}).collect(Collectors.toList());
+		
+		for (StatisticsCollector[] bandCollectors : partials) {
+			for (int i = 0; i < bandCollectors.length; i++) {
+				collectors.get(i).merge(bandCollectors[i]);
+			}
+		}
+		return next;
+	}
+	
+	/**
+	 * Computes the next generation of a range of rows of a block into another array of the same layout, handing each 
+	 * row to statistics collectors right after it is computed, while it is still in cache.
+	 *
+	 * @param src the current generation, rows * wordsPerRow words
+	 * @param dst receives the next generation; must not be the same array as src
+	 * @param rows the number of rows in the block
+	 * @param wordsPerRow the number of words in each row of the block
+	 * @param lastWordMask the bits of the last word of each row that hold cells; the other bits are left dead
+	 * @param fromRow the first row to compute
+	 * @param toRow the row after the last one to compute
+	 * @param collectors the collectors to hand the rows computed to
+	 */
+	static void stepRows(long[] src, long[] dst, int rows, int wordsPerRow, long lastWordMask, int fromRow, int toRow, 
+			StatisticsCollector[] collectors) {
+		if (wordsPerRow == 0) {
+			return;
+		}
+		long[] deadRow = new long[wordsPerRow];  // stands in for the rows above the first and below the last
+		for (int r = fromRow; r < toRow; r++) {
+			int row = r * wordsPerRow;
+			long[] aboveRows = r > 0 ? src : deadRow, belowRows = r < rows - 1 ? src : deadRow;
+			int above = r > 0 ? row - wordsPerRow : 0, below = r < rows - 1 ? row + wordsPerRow : 0;
+			
+			// Slide a window of three words along the three rows, so that each word is loaded once per row
+			long aPrev = 0, a = aboveRows[above];
+			long cPrev = 0, c = src[row];
+			long bPrev = 0, b = belowRows[below];
+			for (int w = 0; w < wordsPerRow; w++) {
+				long aNext = 0, cNext = 0, bNext = 0;
+				if (w + 1 < wordsPerRow) {
+					aNext = aboveRows[above + w + 1];
+					cNext = src[row + w + 1];
+					bNext = belowRows[below + w + 1];
+				}
+				long next = nextWord(aPrev, a, aNext, cPrev, c, cNext, bPrev, b, bNext);
+				dst[row + w] = w == wordsPerRow - 1 ? next & lastWordMask : next;
+				aPrev = a;
+				a = aNext;
+				cPrev = c;
+				c = cNext;
+				bPrev = b;
+				b = bNext;
+			}
+			
+			for (StatisticsCollector collector : collectors) {
+				collector.acceptWords(r, 0, src, dst, row, wordsPerRow);
+			}
+		}
+	}
+	
+	/**
+	 * @param width the number of cells in a row
+	 * @return the bits of the last word of a row of that width that hold cells
+	 */
+	public static long lastWordMask(int width) {
+		return -1L >>> ((64 - (width & 63)) & 63);
+	}
+	
+	/*
+	 * Computes the next state of the 64 cells of a word c, given the words before and after it in its row and the three 
+	 * corresponding words of the rows above (a) and below (b).
+	 */
+	private static long nextWord(long aPrev, long a, long aNext, long cPrev, long c, long cNext, long bPrev, long b,
+			long bNext) {
+		// Bit x of a west neighbour word is the cell at x - 1, and of an east neighbour word the cell at x + 1
+		long aWest = (a << 1) | (aPrev >>> 63), aEast = (a >>> 1) | (aNext << 63);
+		long cWest = (c << 1) | (cPrev >>> 63), cEast = (c >>> 1) | (cNext << 63);
+		long bWest = (b << 1) | (bPrev >>> 63), bEast = (b >>> 1) | (bNext << 63);
+		
+		// Sums of the three cells above, the two beside and the three below, as ones and twos bits
+		long aOnes = aWest ^ a ^ aEast, aTwos = (aWest & a) | (aEast & (aWest ^ a));
+		long cOnes = cWest ^ cEast, cTwos = cWest & cEast;
+		long bOnes = bWest ^ b ^ bEast, bTwos = (bWest & b) | (bEast & (bWest ^ b));
+		
+		// The neighbour count as ones, twos, fours and eights bits
+		long ones = aOnes ^ cOnes ^ bOnes;
+		long onesCarry = (aOnes & cOnes) | (bOnes & (aOnes ^ cOnes));
+		long twosA = aTwos ^ cTwos, twosACarry = aTwos & cTwos;
+		long twosB = bTwos ^ onesCarry, twosBCarry = bTwos & onesCarry;
+		long twos = twosA ^ twosB, twosCarry = twosA & twosB;
+		long fours = twosACarry ^ twosBCarry ^ twosCarry;
+		long eights = (twosACarry & twosBCarry) | (twosCarry & (twosACarry ^ twosBCarry));
+		
+		// Alive next if the count is 3, or if the count is 2 and the cell is alive
+		return twos & ~fours & ~eights & (ones | c);
+	}
+
+}
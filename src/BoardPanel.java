@@ -1,38 +1,392 @@
+import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 /**
  * A class that extends the JPanel class, adding the functionality of painting the current generation of a Game of Life.
  */
-public class BoardPanel extends JPanel{
+public class BoardPanel extends JPanel implements CellChangeListener {
+	
+	/**
+	 * The property fired with the population of the game whenever it changes, as the game is stepped or edited
+	 */
+	public static final String POPULATION_PROPERTY = "population";
+	
+	/**
+	 * The number of Cells from which a GameOfLife is drawn by a BoardRasterizer off the event dispatch thread, rather than
+	 * Cell by Cell with Graphics. Drawn that way, grid lines are left out on Cells narrower or shorter than
+	 * BoardRasterizer.GRID_LINE_MIN pixels.
+	 */
+	public static final int RASTER_MIN_CELLS = 1 << 18;
+	
+	private static BoardRasterizer rasterizer;  // shared by every panel, made when first needed
+	
 	private GameOfLife game;
+	private BitGrid snapshot;  // painted instead of the game while the game is being advanced on another thread
+	private GenerationsGame generations;  // painted instead of a GameOfLife when a multi-state game is shown
+	private Color[] palette;
 	private int gridWidth, gridHeight;
+	private boolean editable = true;
+	private EditTransaction stroke;  // open while a mouse button is held down over the board
+	private boolean strokeAlive;  // whether the stroke sets Cells alive or dead
+	private int strokeX, strokeY;  // the last Cell painted
+	private int population;  // kept from the changes the game reports, so that the board is never rescanned for it
+	private BufferedImage frame, spare;  // the last frame drawn by the rasterizer, and an image to draw the next one in
+	private Rectangle frameView;  // the part of the panel the frame covers
+	private int frameGridWidth, frameGridHeight;
+	private boolean rendering, framePending;  // whether a frame is being drawn, and whether another is wanted after it
 	
+	/**
+	 * Constructs a BoardPanel painting a GameOfLife. Pressing the mouse on a Cell toggles it, and dragging paints the Cells 
+	 * passed over in the state the first Cell was toggled to. Each stroke is one EditTransaction, flushed as the mouse 
+	 * moves, so only the Cells painted are repainted. The population is counted on from the changes each flush reports, 
+	 * as it is for the generations stepped, so it stays right if the game is stepped during a stroke without the board 
+	 * being rescanned, and is fired as POPULATION_PROPERTY. The panel must be one of the game's change listeners.
+	 * 
+	 * @param game the game to paint
+	 * @param gridWidth the width of one rectangular grid
+	 * @param gridHeight the height of one rectangular grid
+	 */
 	public BoardPanel(GameOfLife game, int gridWidth, int gridHeight){
 		this.game = game;
 		this.gridWidth = gridWidth; 
 		this.gridHeight = gridHeight;
+		population = game.countLivingCells();
+		
+		MouseAdapter painter = new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				int gridWidth = getGridWidth(), gridHeight = getGridHeight();  // changed as the panel is resized
+				if (!editable || stroke != null || gridWidth <= 0 || gridHeight <= 0) {
+					return;
+				}
+				strokeX = e.getX() / gridWidth;
+				strokeY = e.getY() / gridHeight;
+				strokeAlive = !game.isAlive(strokeX, strokeY);
+				stroke = game.beginEdit();
+				stroke.set(strokeX, strokeY, strokeAlive);
+				flushStroke();
+			}
+			
+			@Override
+			public void mouseDragged(MouseEvent e) {
+				int gridWidth = getGridWidth(), gridHeight = getGridHeight();
+				if (stroke == null || gridWidth <= 0 || gridHeight <= 0) {
+					return;
+				}
+				int x = Math.floorDiv(e.getX(), gridWidth), y = Math.floorDiv(e.getY(), gridHeight);
+				
+				// Fill in the Cells between the last one painted and this one, which a fast drag skips over
+				int steps = Math.max(Math.abs(x - strokeX), Math.abs(y - strokeY));
+				for (int i = 1; i <= steps; i++) {
+					stroke.set(strokeX + Math.round((float) (x - strokeX) * i / steps), 
+							strokeY + Math.round((float) (y - strokeY) * i / steps), strokeAlive);
+				}
+				strokeX = x;
+				strokeY = y;
+				flushStroke();
+			}
+			
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				if (stroke != null) {
+					stroke.commit();
+					stroke = null;
+				}
+			}
+		};
+		addMouseListener(painter);
+		addMouseMotionListener(painter);
+	}
+	
+	/**
+	 * Constructs a BoardPanel painting a game of a multi-state Generations rule, with each state in the colour the 
+	 * default palette gives it.
+	 * 
+	 * @param generations the game to paint
+	 * @param gridWidth the width of one rectangular grid
+	 * @param gridHeight the height of one rectangular grid
+	 */
+	public BoardPanel(GenerationsGame generations, int gridWidth, int gridHeight) {
+		this.generations = generations;
+		this.palette = defaultPalette(generations.getRule().getStates());
+		this.gridWidth = gridWidth; 
+		this.gridHeight = gridHeight;
+		requestFrame();
+	}
+	
+	/**
+	 * Makes a palette for a number of states: no colour for dead Cells, which show the background, black for living 
+	 * Cells, and for dying Cells shades fading from red to light grey as they near death.
+	 * 
+	 * @param states the number of states
+	 * @return the colour of each state, null for state 0
+	 */
+	public static Color[] defaultPalette(int states) {
+		Color[] palette = new Color[Math.max(states, 2)];
+		palette[1] = Color.BLACK;
+		for (int state = 2; state < palette.length; state++) {
+			float fade = palette.length == 3 ? 0 : (float) (state - 2) / (palette.length - 3);
+			palette[state] = new Color(200 + (int) (20 * fade), (int) (220 * fade), (int) (220 * fade));
+		}
+		return palette;
 	}
 	
 	/**
 	 * Paints the current state of the Game of Life board onto this panel. This method is invoked for you each time you
-	 * call repaint() on either this object or on the JFrame upon which this panel is placed.
+	 * call repaint() on either this object or on the JFrame upon which this panel is placed. The area being painted is
+	 * first cleared to the background, so that Cells which died are not left drawn when only this panel is repainted.
 	 */
 	@Override
 	public void paintComponent(Graphics g){
+		super.paintComponent(g);
 		Graphics2D g2 = (Graphics2D)g;
+		g2.setColor(getForeground());  // the background fill leaves its colour set
+		if (generations != null) {
+			paintStates(g2);
+			return;
+		}
+		if (isRastered()) {
+			paintFrame(g2);
+			return;
+		}
+		BitGrid cells = snapshot;
 		
 		for (int i = 0; i < game.getWidth(); i++) {
 			for (int j = 0; j < game.getHeight(); j++) {
 				g2.drawRect(i * gridWidth, j * gridHeight, gridWidth, gridHeight);  // Draws the grids
-				if (game.isAlive(i, j)) {
+				if (cells != null ? cells.get(i, j) : game.isAlive(i, j)) {
 					g2.fillRect(i * gridWidth, j * gridHeight, gridWidth, gridHeight); // Paints in alive cells
 				}
 			}
 		}
 	}
 
+	/*
+	 * Returns whether the board is large enough to be drawn by the rasterizer
+	 */
+	private boolean isRastered() {
+		return generations == null && gridWidth > 0 && gridHeight > 0 &&
+				(long) game.getWidth() * game.getHeight() >= RASTER_MIN_CELLS;
+	}
+	
+	/*
+	 * Shows the last frame drawn, and asks for a new one if it was drawn for another view or grid size
+	 */
+	private void paintFrame(Graphics2D g2) {
+		Rectangle view = getVisibleRect();
+		if (frame == null) {
+			g2.setColor(getBackground());
+			g2.fillRect(view.x, view.y, view.width, view.height);
+		}
+		else {
+			g2.drawImage(frame, frameView.x, frameView.y, null);
+		}
+		if (frame == null || !view.equals(frameView) || frameGridWidth != gridWidth || frameGridHeight != gridHeight) {
+			requestFrame();
+		}
+	}
+	
+	/**
+	 * Asks for the board to be drawn again by the rasterizer, if it is large enough to be drawn that way. The Cells are
+	 * frozen on the event dispatch thread, drawn in tiles on the rasterizer's threads, and the finished frame is shown by
+	 * the next paint. While one frame is being drawn, any number of requests are folded into one more frame, drawn from
+	 * the board as it is when the first is done. Like repaint(), this may be called from any thread.
+	 */
+	public void requestFrame() {
+		if (!SwingUtilities.isEventDispatchThread()) {
+			SwingUtilities.invokeLater(this::requestFrame);
+			return;
+		}
+		Rectangle view = getVisibleRect();
+		if (!isRastered() || view.isEmpty()) {
+			return;
+		}
+		if (rendering) {
+			framePending = true;
+			return;
+		}
+		rendering = true;
+		BitGrid cells = snapshot != null ? snapshot : game.freeze().cells();  // no copy on the bit-grid engine
+		BufferedImage image = spare != null && spare.getWidth() == view.width && spare.getHeight() == view.height ? spare :
+				new BufferedImage(view.width, view.height, BufferedImage.TYPE_INT_RGB);
+		spare = null;
+		int cellWidth = gridWidth, cellHeight = gridHeight;
+		Color foreground = getForeground(), background = getBackground();
+		new SwingWorker<BufferedImage, Void>() {
+			@Override
+			protected BufferedImage doInBackground() {
+				rasterizer().render(cells, cellWidth, cellHeight, view.x, view.y, image, foreground, background);
+				return image;
+			}
+			
+			@Override
+			protected void done() {
+				rendering = false;
+				try {
+					spare = frame;
+					frame = get();
+					frameView = view;
+					frameGridWidth = cellWidth;
+					frameGridHeight = cellHeight;
+					repaint(view);
+				} catch (InterruptedException | ExecutionException e) {
+					frame = null;  // painted as background until a frame is drawn
+				}
+				if (framePending) {
+					framePending = false;
+					requestFrame();
+				}
+			}
+		}.execute();
+	}
+	
+	/*
+	 * Returns the rasterizer shared by every panel, making it the first time
+	 */
+	private static synchronized BoardRasterizer rasterizer() {
+		if (rasterizer == null) {
+			rasterizer = new BoardRasterizer();
+		}
+		return rasterizer;
+	}
+	
+	/*
+	 * Paints each Cell of a multi-state game in the colour of its state, leaving dead Cells unpainted
+	 */
+	private void paintStates(Graphics2D g2) {
+		Color lines = g2.getColor();
+		for (int i = 0; i < generations.getWidth(); i++) {
+			for (int j = 0; j < generations.getHeight(); j++) {
+				int state = generations.getState(i, j);
+				if (state != 0 && state < palette.length && palette[state] != null) {
+					g2.setColor(palette[state]);
+					g2.fillRect(i * gridWidth, j * gridHeight, gridWidth, gridHeight);
+				}
+				g2.setColor(lines);
+				g2.drawRect(i * gridWidth, j * gridHeight, gridWidth, gridHeight);
+			}
+		}
+	}
+	
+	/**
+	 * Repaints only the part of this panel that covers the Cells which changed, rather than the whole board, and fires 
+	 * the population, counted on from the births and deaths, as POPULATION_PROPERTY on the event dispatch thread. 
+	 * Like repaint(), this may be called from any thread.
+	 * 
+	 * @param changes the Cells born and died
+	 */
+	@Override
+	public void cellsChanged(CellChanges changes) {
+		population += changes.getBirthCount() - changes.getDeathCount();
+		firePopulation();
+		if (isRastered()) {
+			requestFrame();
+			return;
+		}
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+		long[][] changed = {changes.getBirths(), changes.getDeaths()};
+		int[] counts = {changes.getBirthCount(), changes.getDeathCount()};
+		for (int k = 0; k < changed.length; k++) {
+			for (int i = 0; i < counts[k]; i++) {
+				int x = CellChanges.x(changed[k][i]), y = CellChanges.y(changed[k][i]);
+				minX = Math.min(minX, x);
+				maxX = Math.max(maxX, x);
+				minY = Math.min(minY, y);
+				maxY = Math.max(maxY, y);
+			}
+		}
+		if (maxX >= 0) {
+			repaint(minX * gridWidth, minY * gridHeight, (maxX - minX + 1) * gridWidth + 1, (maxY - minY + 1) * gridHeight + 1);
+		}
+	}
+	
+	/*
+	 * Fires the population as POPULATION_PROPERTY on the event dispatch thread
+	 */
+	private void firePopulation() {
+		int value = population;
+		if (SwingUtilities.isEventDispatchThread()) {
+			firePropertyChange(POPULATION_PROPERTY, -1, value);
+		}
+		else {
+			SwingUtilities.invokeLater(() -> firePropertyChange(POPULATION_PROPERTY, -1, value));
+		}
+	}
+	
+	/*
+	 * Tells the listeners of the stroke's Cells painted so far, which repaints them and, through cellsChanged(), counts 
+	 * and fires the new population
+	 */
+	private void flushStroke() {
+		stroke.flush();
+	}
+	
+	/**
+	 * @return whether Cells can be painted with the mouse
+	 */
+	public boolean isEditable() {
+		return editable;
+	}
+	
+	/**
+	 * Allows or stops painting Cells with the mouse, for example while the game is being advanced on another thread. A 
+	 * stroke in progress is committed.
+	 * 
+	 * @param editable whether Cells can be painted with the mouse
+	 */
+	public void setEditable(boolean editable) {
+		this.editable = editable;
+		if (!editable && stroke != null) {
+			stroke.commit();
+			stroke = null;
+		}
+	}
+	
+	/**
+	 * Sets a copy of the game's Cells to paint instead of the game itself, for use while the game is being advanced on 
+	 * another thread and must not be read from the event dispatch thread. While a snapshot is painted the panel need not 
+	 * be told of the changes to the game; when the game is painted again, its population is counted once more and fired, 
+	 * and from then on the panel must be one of the game's change listeners for the population to stay right.
+	 * 
+	 * @param snapshot the Cells to paint, or null to paint the game again
+	 */
+	public void setSnapshot(BitGrid snapshot) {
+		this.snapshot = snapshot;
+		if (snapshot == null && game != null) {
+			population = game.countLivingCells();
+			firePopulation();
+		}
+		requestFrame();
+	}
+	
+	/**
+	 * @return the colour of each state of the multi-state game painted, or null if a GameOfLife is painted
+	 */
+	public Color[] getPalette() {
+		return palette;
+	}
+	
+	/**
+	 * Sets the colours the states of a multi-state game are painted in; states without a colour, and state 0, are left 
+	 * unpainted. If the palette is null, this method performs no action.
+	 * 
+	 * @param palette the colour of each state
+	 */
+	public void setPalette(Color[] palette) {
+		if (palette != null) {
+			this.palette = palette.clone();
+		}
+	}
+	
 	/**
 	 * @return the width of one rectangular grid
 	 */
@@ -45,6 +399,7 @@ public class BoardPanel extends JPanel{
 	 */
 	public void setGridWidth(int gridWidth) {
 		this.gridWidth = gridWidth;
+		requestFrame();
 	}
 
 	/**
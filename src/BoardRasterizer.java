@@ -0,0 +1,322 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Draws a view of a board of Cells into the int pixels of a BufferedImage, splitting the view into square tiles drawn in
+ * parallel on a pool of threads. Each tile writes its own part of the one pixel array, so the tiles need no locking, and
+ * the image can be shown with a single drawImage() once they are done. The picture is the one BoardPanel paints with
+ * Graphics: a living Cell filled in the foreground colour, and if the Cells are at least GRID_LINE_MIN pixels wide and
+ * high, the outline of every Cell in the foreground colour too.
+ *
+ * Within a tile, each row of pixels is worked out Cell by Cell from the words of the BitGrid, and the rows below it that
+ * cross the same row of Cells, short of the next grid line, are copied from it, so the cost is about one pass over the
+ * Cells in view and one copy of the pixels.
+ */
+public class BoardRasterizer implements Closeable {
+	
+	/**
+	 * The side of a tile, in pixels
+	 */
+	public static final int TILE_SIDE = 256;
+	
+	/**
+	 * The smallest width and height of a Cell, in pixels, at which grid lines are drawn; below it they would hide the Cells
+	 */
+	public static final int GRID_LINE_MIN = 3;
+	
+	private final ExecutorService pool;
+	private final int threads;
+	
+	/**
+	 * Constructs a BoardRasterizer drawing with one thread per processor.
+	 */
+	public BoardRasterizer() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructs a BoardRasterizer drawing with a number of threads. If the number is not positive, one thread is used.
+	 *
+	 * @param threads the number of threads to draw tiles on
+	 */
+	public BoardRasterizer(int threads) {
+		this.threads = Math.max(threads, 1);
+		pool = Executors.newFixedThreadPool(this.threads, task -> {
+			Thread thread = new Thread(task, "BoardRasterizer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * @return the number of threads tiles are drawn on
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Draws the part of a board that falls in an image placed at a location on the panel the board is painted on, and
+	 * returns once every tile is drawn. Pixels off the board are drawn in the background colour.
+	 *
+	 * @param cells the Cells to draw, which must not change while they are drawn
+	 * @param cellWidth the width of a Cell in pixels
+	 * @param cellHeight the height of a Cell in pixels
+	 * @param viewX the x-coordinate on the panel of the left column of the image
+	 * @param viewY the y-coordinate on the panel of the top row of the image
+	 * @param image the image to draw into, of type BufferedImage.TYPE_INT_RGB or TYPE_INT_ARGB
+	 * @param foreground the colour of living Cells and grid lines
+	 * @param background the colour of dead Cells
+	 */
+	public void render(BitGrid cells, int cellWidth, int cellHeight, int viewX, int viewY, BufferedImage image,
+			Color foreground, Color background) {
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int width = image.getWidth(), height = image.getHeight();
+		Frame frame = new Frame(cells, Math.max(cellWidth, 1), Math.max(cellHeight, 1), viewX, viewY, pixels, width,
+				foreground.getRGB(), background.getRGB());
+		List<Callable<Void>> tiles = new ArrayList<>();
+		for (int y = 0; y < height; y += TILE_SIDE) {
+			for (int x = 0; x < width; x += TILE_SIDE) {
+				int x0 = x, y0 = y, x1 = Math.min(x + TILE_SIDE, width), y1 = Math.min(y + TILE_SIDE, height);
+				tiles.add(() -> {
+					frame.drawTile(x0, y0, x1, y1);
+					return null;
+				});
+			}
+		}
+		try {
+			if (threads == 1) {
+				for (Callable<Void> tile : tiles) {
+					tile.call();  // no hand-off to the pool when it could not draw two tiles at once anyway
+				}
+				return;
+			}
+			for (Future<Void> done : pool.invokeAll(tiles)) {
+				done.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Stops the threads. Drawing after this is not allowed.
+	 */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+	
+	/*
+	 * One drawing of a board into a pixel array, shared by the tasks that draw its tiles
+	 */
+	private static class Frame {
+		private final long[] words;
+		private final int wordsPerRow, columns, rows;
+		private final int cellWidth, cellHeight, viewX, viewY;
+		private final int[] pixels;
+		private final int stride, alive, dead;
+		private final boolean lines;
+		private final int right, bottom;  // the last column and row of pixels covered by the board, its last grid line
+		
+		private Frame(BitGrid cells, int cellWidth, int cellHeight, int viewX, int viewY, int[] pixels, int stride,
+				int alive, int dead) {
+			words = cells.words();
+			wordsPerRow = cells.wordsPerRow();
+			columns = cells.getWidth();
+			rows = cells.getHeight();
+			this.cellWidth = cellWidth;
+			this.cellHeight = cellHeight;
+			this.viewX = viewX;
+			this.viewY = viewY;
+			this.pixels = pixels;
+			this.stride = stride;
+			this.alive = alive;
+			this.dead = dead;
+			lines = cellWidth >= GRID_LINE_MIN && cellHeight >= GRID_LINE_MIN;
+			right = columns * cellWidth - (lines ? 0 : 1);
+			bottom = rows * cellHeight - (lines ? 0 : 1);
+		}
+		
+		/*
+		 * Draws the pixels of the image from (x0, y0) up to but not including (x1, y1)
+		 */
+		private void drawTile(int x0, int y0, int x1, int y1) {
+			int copyFrom = -1;  // the row of pixels the next one can be copied from, or -1
+			for (int y = y0; y < y1; y++) {
+				int panelY = viewY + y, row = y * stride, inCell = Math.floorMod(panelY, cellHeight);
+				boolean lineRow = lines && inCell == 0;
+				if (copyFrom >= 0 && !lineRow) {
+					System.arraycopy(pixels, copyFrom + x0, pixels, row + x0, x1 - x0);
+				}
+				else {
+					drawRow(panelY, lineRow, row, x0, x1);
+					copyFrom = lineRow ? -1 : row;
+				}
+				if (inCell == cellHeight - 1) {
+					copyFrom = -1;  // the next row crosses the next row of Cells
+				}
+			}
+		}
+		
+		/*
+		 * Draws one row of pixels, Cell by Cell
+		 */
+		private void drawRow(int panelY, boolean lineRow, int row, int x0, int x1) {
+			if (panelY < 0 || panelY > bottom) {
+				Arrays.fill(pixels, row + x0, row + x1, dead);
+				return;
+			}
+			int cellY = panelY / cellHeight, base = cellY * wordsPerRow;
+			if (cellWidth == 1) {
+				drawPixelRow(base, row, x0, x1);
+				return;
+			}
+			int x = x0;
+			while (x < x1) {
+				int panelX = viewX + x;
+				if (panelX < 0 || panelX > right) {
+					pixels[row + x++] = dead;
+					continue;
+				}
+				int cellX = panelX / cellWidth, cellStart = cellX * cellWidth;
+				int end = Math.min(x1, x + Math.min(cellStart + cellWidth, right + 1) - panelX);
+				boolean living = cellX < columns && cellY < rows && (words[base + (cellX >>> 6)] >>> cellX & 1) != 0;
+				int colour = living || lineRow ? alive : dead;
+				Arrays.fill(pixels, row + x, row + end, colour);
+				if (lines && !living && panelX == cellStart) {
+					pixels[row + x] = alive;  // the left edge of the Cell's outline
+				}
+				x = end;
+			}
+		}
+		
+		/*
+		 * Draws one row of pixels of Cells one pixel wide, a pixel per bit with no lines
+		 */
+		private void drawPixelRow(int base, int row, int x0, int x1) {
+			int start = Math.max(x0, Math.min(-viewX, x1)), end = Math.max(start, Math.min(x1, right + 1 - viewX));
+			Arrays.fill(pixels, row + x0, row + start, dead);
+			for (int x = start, cellX = viewX + start; x < end; x++, cellX++) {
+				pixels[row + x] = (words[base + (cellX >>> 6)] >>> cellX & 1) != 0 ? alive : dead;
+			}
+			Arrays.fill(pixels, row + end, row + x1, dead);
+		}
+	}
+	
+	/*
+	 * Checks the drawing against Graphics on small boards, then times a view of a 4K display onto a busy board with one
+	 * thread and with several, against drawing every Cell with Graphics as BoardPanel does
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		Random random = new Random(1);
+		BoardRasterizer single = new BoardRasterizer(1), parallel = new BoardRasterizer(4);
+		
+		int checks = 0, mismatches = 0;
+		int[][] views = {{5, 5, 0, 0}, {4, 7, 3, 11}, {15, 15, 0, 0}, {2, 2, 0, 0}, {1, 1, 5, 5}, {1, 1, -9, -3},
+				{3, 4, -7, -5}};  // cell width and height, and where the view starts
+		for (int[] view : views) {
+			BitGrid cells = randomGrid(random, 70, 45, 0.3);
+			BufferedImage drawn = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+			BufferedImage expected = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+			parallel.render(cells, view[0], view[1], view[2], view[3], drawn, Color.BLACK, Color.WHITE);
+			paintWithGraphics(cells, view[0], view[1], view[2], view[3], expected);
+			checks++;
+			mismatches += samePixels(drawn, expected) ? 0 : 1;
+		}
+		System.out.println(checks + " view(s) drawn by tiles and by Graphics, " + mismatches + " differing");
+		
+		int width = 3840, height = 2160;
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		System.out.println("Milliseconds to draw a " + width + " * " + height + " view of a board at density 0.3 (" +
+				Runtime.getRuntime().availableProcessors() + " processor(s)):");
+		for (int cell : new int[] {1, 2, 4, 8}) {
+			BitGrid cells = randomGrid(random, width / cell, height / cell, 0.3);
+			StringBuilder line = new StringBuilder(String.format("  %d-pixel Cells:", cell));
+			for (BoardRasterizer rasterizer : new BoardRasterizer[] {single, parallel}) {
+				long best = Long.MAX_VALUE;
+				for (int i = 0; i < 15; i++) {
+					long start = System.nanoTime();
+					rasterizer.render(cells, cell, cell, 0, 0, image, Color.BLACK, Color.WHITE);
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				line.append(String.format("  %d thread(s) %.1f", rasterizer.getThreads(), best / 1e6));
+			}
+			long start = System.nanoTime();
+			paintWithGraphics(cells, cell, cell, 0, 0, image);
+			line.append(String.format("  Graphics %.1f", (System.nanoTime() - start) / 1e6));
+			System.out.println(line);
+		}
+		single.close();
+		parallel.close();
+	}
+	
+	/*
+	 * Fills a grid at random with a given fraction of living Cells
+	 */
+	private static BitGrid randomGrid(Random random, int width, int height, double density) {
+		BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				grid.set(x, y, random.nextDouble() < density);
+			}
+		}
+		return grid;
+	}
+	
+	/*
+	 * Paints Cells into an image the way BoardPanel does with Graphics, leaving out the grid lines on small Cells
+	 */
+	private static void paintWithGraphics(BitGrid cells, int cellWidth, int cellHeight, int viewX, int viewY,
+			BufferedImage image) {
+		Graphics2D g2 = image.createGraphics();
+		g2.setColor(Color.WHITE);
+		g2.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g2.translate(-viewX, -viewY);
+		g2.setColor(Color.BLACK);
+		boolean lines = cellWidth >= GRID_LINE_MIN && cellHeight >= GRID_LINE_MIN;
+		for (int i = 0; i < cells.getWidth(); i++) {
+			for (int j = 0; j < cells.getHeight(); j++) {
+				if (lines) {
+					g2.drawRect(i * cellWidth, j * cellHeight, cellWidth, cellHeight);
+				}
+				if (cells.get(i, j)) {
+					g2.fillRect(i * cellWidth, j * cellHeight, cellWidth, cellHeight);
+				}
+			}
+		}
+		g2.dispose();
+	}
+	
+	/*
+	 * Returns whether two images of the same size have the same pixels
+	 */
+	private static boolean samePixels(BufferedImage a, BufferedImage b) {
+		for (int y = 0; y < a.getHeight(); y++) {
+			for (int x = 0; x < a.getWidth(); x++) {
+				if (a.getRGB(x, y) != b.getRGB(x, y)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
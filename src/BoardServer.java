@@ -0,0 +1,444 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves a GameOfLife over HTTP, so that any number of browsers and dashboards can watch it without a window of their
+ * own. Registered as a CellChangeListener, the server keeps its own copy of the board up to date from the changes of
+ * each generation and edit, and encodes each change once into a frame, a Server-Sent Event whose bytes are shared by
+ * every viewer; serving a viewer costs nothing but writing those bytes to its socket.
+ *
+ * The server answers three paths:
+ * - /events streams Server-Sent Events: first a "board" event holding the whole board, then a "diff" event for every
+ *   change, each with the sequence number of the change as its id.
+ * - /board answers with the "board" event data of the latest change alone.
+ * - / answers with a small page that draws the stream on a canvas.
+ *
+ * A "board" event's data is {"seq":s,"gen":g,"width":w,"height":h,"cells":"..."}, where cells holds each row of the
+ * board as (w + 63) / 64 little-endian 64-bit words, Cell x of a row being bit x % 64 of word x / 64, all in Base64. A
+ * "diff" event's data is {"seq":s,"gen":g,"born":[x0,y0,x1,y1,...],"died":[...]}.
+ *
+ * The last RECENT_FRAMES frames are kept. A viewer that falls further behind than that, because its connection is
+ * slower than the game, is not buffered for: it skips to the latest change and is sent the whole board again, also
+ * encoded once for all viewers that skip to the same change. Each viewer is served on a thread of its own.
+ */
+public class BoardServer implements CellChangeListener, Closeable {
+	
+	/**
+	 * The number of recent frames kept for viewers that fall behind
+	 */
+	public static final int RECENT_FRAMES = 64;
+	
+	/**
+	 * The time after which an idle stream is sent a comment, which also finds viewers that have gone away
+	 */
+	public static final long HEARTBEAT_MILLIS = 15000;
+	
+	private static final String PAGE = "<!DOCTYPE html>\n<html><head><title>Game of Life</title></head>\n" +
+			"<body style=\"margin:0;background:#fff\"><canvas id=\"board\"></canvas><pre id=\"status\"></pre>\n<script>\n" +
+			"const canvas = document.getElementById('board'), context = canvas.getContext('2d'), size = 4;\n" +
+			"function draw(x, y, alive) { context.fillStyle = alive ? '#000' : '#fff'; " +
+			"context.fillRect(x * size, y * size, size, size); }\n" +
+			"function show(frame) { document.getElementById('status').textContent = 'Generation ' + frame.gen; }\n" +
+			"const events = new EventSource('/events');\n" +
+			"events.addEventListener('board', event => {\n" +
+			"  const frame = JSON.parse(event.data), bytes = atob(frame.cells), stride = Math.ceil(frame.width / 64) * 8;\n" +
+			"  canvas.width = frame.width * size; canvas.height = frame.height * size;\n" +
+			"  for (let y = 0; y < frame.height; y++) for (let x = 0; x < frame.width; x++)\n" +
+			"    if (bytes.charCodeAt(y * stride + (x >> 3)) >> (x & 7) & 1) draw(x, y, true);\n" +
+			"  show(frame);\n});\n" +
+			"events.addEventListener('diff', event => {\n" +
+			"  const frame = JSON.parse(event.data);\n" +
+			"  for (let i = 0; i < frame.born.length; i += 2) draw(frame.born[i], frame.born[i + 1], true);\n" +
+			"  for (let i = 0; i < frame.died.length; i += 2) draw(frame.died[i], frame.died[i + 1], false);\n" +
+			"  show(frame);\n});\n</script></body></html>\n";
+	
+	private final GameOfLife game;
+	private final HttpServer server;
+	private final ExecutorService threads;
+	private final BitGrid board;  // the board as of the latest frame, changed only under the lock of this server
+	private final Frame[] recent = new Frame[RECENT_FRAMES];
+	private long seq;  // the sequence number of the latest frame
+	private volatile boolean closed;
+	private final AtomicInteger viewers = new AtomicInteger();
+	private final AtomicLong framesEncoded = new AtomicLong(), boardsEncoded = new AtomicLong(),
+			framesSkipped = new AtomicLong();
+	
+	/**
+	 * Constructs a BoardServer on the loopback address and starts serving a game. The game must not be advancing or
+	 * being edited while the server is constructed.
+	 *
+	 * @param game the game to serve
+	 * @param port the port to listen on, or 0 for any free port
+	 * @throws IOException if the port cannot be listened on
+	 */
+	public BoardServer(GameOfLife game, int port) throws IOException {
+		this(game, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+	}
+	
+	/**
+	 * Constructs a BoardServer and starts serving a game. The game must not be advancing or being edited while the server
+	 * is constructed.
+	 *
+	 * @param game the game to serve
+	 * @param address the address and port to listen on
+	 * @throws IOException if the address cannot be listened on
+	 */
+	public BoardServer(GameOfLife game, InetSocketAddress address) throws IOException {
+		this.game = game;
+		board = game.snapshot();
+		recent[0] = new Frame(0, game.getGen(), null);
+		
+		server = HttpServer.create(address, 0);
+		threads = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "BoardServer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(threads);
+		server.createContext("/events", this::stream);
+		server.createContext("/board", exchange -> respond(exchange, "application/json", latestBoard().boardData));
+		server.createContext("/", exchange -> respond(exchange, "text/html; charset=utf-8",
+				PAGE.getBytes(StandardCharsets.UTF_8)));
+		game.addChangeListener(this);
+		server.start();
+	}
+	
+	/**
+	 * @return the port the server listens on
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Encodes a change of the game into the next frame and wakes the viewers waiting for it. Called on the thread that
+	 * changed the game.
+	 *
+	 * @param changes the Cells born and died
+	 */
+	@Override
+	public void cellsChanged(CellChanges changes) {
+		StringBuilder data = new StringBuilder(32 + 16 * (changes.getBirthCount() + changes.getDeathCount()));
+		synchronized (this) {
+			data.append("{\"seq\":").append(seq + 1).append(",\"gen\":").append(changes.getGen()).append(",\"born\":[");
+			appendCells(data, changes.getBirths(), changes.getBirthCount(), true);
+			data.append("],\"died\":[");
+			appendCells(data, changes.getDeaths(), changes.getDeathCount(), false);
+			data.append("]}");
+			seq++;
+			recent[(int) (seq % RECENT_FRAMES)] = new Frame(seq, changes.getGen(), event("diff", seq, data));
+			framesEncoded.incrementAndGet();
+			notifyAll();
+		}
+	}
+	
+	/*
+	 * Appends packed Cell coordinates as x,y pairs, and sets the Cells on the copy of the board
+	 */
+	private void appendCells(StringBuilder data, long[] cells, int count, boolean alive) {
+		for (int i = 0; i < count; i++) {
+			int x = CellChanges.x(cells[i]), y = CellChanges.y(cells[i]);
+			board.set(x, y, alive);
+			if (i > 0) {
+				data.append(',');
+			}
+			data.append(x).append(',').append(y);
+		}
+	}
+	
+	/*
+	 * Returns the latest frame with the whole board encoded, encoding it if no viewer has needed it yet
+	 */
+	private synchronized Frame latestBoard() {
+		Frame frame = recent[(int) (seq % RECENT_FRAMES)];
+		if (frame.board == null) {
+			ByteBuffer bytes = ByteBuffer.allocate(board.words().length * 8).order(ByteOrder.LITTLE_ENDIAN);
+			bytes.asLongBuffer().put(board.words());
+			StringBuilder data = new StringBuilder("{\"seq\":").append(frame.seq).append(",\"gen\":").append(frame.gen)
+					.append(",\"width\":").append(board.getWidth()).append(",\"height\":").append(board.getHeight())
+					.append(",\"cells\":\"").append(Base64.getEncoder().encodeToString(bytes.array())).append("\"}");
+			frame.boardData = data.toString().getBytes(StandardCharsets.UTF_8);
+			frame.board = event("board", frame.seq, data);
+			boardsEncoded.incrementAndGet();
+		}
+		return frame;
+	}
+	
+	/*
+	 * Encodes a Server-Sent Event
+	 */
+	private static byte[] event(String name, long id, CharSequence data) {
+		return ("event: " + name + "\nid: " + id + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/*
+	 * Streams the board and then its changes to one viewer until the viewer goes away or the server is closed
+	 */
+	private void stream(HttpExchange exchange) throws IOException {
+		viewers.incrementAndGet();
+		try (OutputStream out = exchange.getResponseBody()) {
+			exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+			exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+			exchange.sendResponseHeaders(200, 0);
+			Frame frame = latestBoard();
+			out.write(frame.board);
+			out.flush();
+			long sent = frame.seq;
+			
+			while (!closed) {
+				byte[] bytes;
+				synchronized (this) {
+					if (seq == sent && !closed) {
+						wait(HEARTBEAT_MILLIS);
+					}
+					if (seq == sent) {
+						bytes = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+					}
+					else if (seq - sent > RECENT_FRAMES) {
+						framesSkipped.addAndGet(seq - sent - 1);
+						frame = latestBoard();
+						bytes = frame.board;
+						sent = frame.seq;
+					}
+					else {
+						frame = recent[(int) ((sent + 1) % RECENT_FRAMES)];
+						bytes = frame.diff;
+						sent = frame.seq;
+					}
+				}
+				out.write(bytes);  // outside the lock, so that a slow viewer holds up no one else
+				out.flush();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// The viewer went away
+		} finally {
+			viewers.decrementAndGet();
+			exchange.close();
+		}
+	}
+	
+	/*
+	 * Answers a request with a whole body
+	 */
+	private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	/**
+	 * @return the number of viewers currently streaming
+	 */
+	public int getViewers() {
+		return viewers.get();
+	}
+	
+	/**
+	 * @return the sequence number of the latest change
+	 */
+	public synchronized long getSeq() {
+		return seq;
+	}
+	
+	/**
+	 * @return the number of "diff" frames encoded, one per change however many viewers there are
+	 */
+	public long getFramesEncoded() {
+		return framesEncoded.get();
+	}
+	
+	/**
+	 * @return the number of "board" frames encoded, for new viewers and for viewers that skipped ahead
+	 */
+	public long getBoardsEncoded() {
+		return boardsEncoded.get();
+	}
+	
+	/**
+	 * @return the number of frames skipped, over all viewers, because the viewer fell too far behind
+	 */
+	public long getFramesSkipped() {
+		return framesSkipped.get();
+	}
+	
+	/**
+	 * Stops listening to the game, ends every stream and stops the server. Calling this method again performs no action.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		game.removeChangeListener(this);
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		server.stop(0);
+		threads.shutdownNow();
+	}
+	
+	/*
+	 * One change of the game, encoded as a "diff" event and, once a viewer needs it, as a "board" event
+	 */
+	private static class Frame {
+		private final long seq;
+		private final int gen;
+		private final byte[] diff;
+		private byte[] board, boardData;
+		
+		private Frame(long seq, int gen, byte[] diff) {
+			this.seq = seq;
+			this.gen = gen;
+			this.diff = diff;
+		}
+	}
+	
+	/*
+	 * A viewer for testing that rebuilds the board from the stream, optionally reading slowly
+	 */
+	private static class TestViewer extends Thread {
+		private final URL url;
+		private final long delayMillis;
+		private volatile BitGrid cells;
+		private volatile long seq = -1;
+		private int boards;
+		
+		private TestViewer(URL url, long delayMillis) {
+			this.url = url;
+			this.delayMillis = delayMillis;
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			try {
+				HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+				BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+						StandardCharsets.UTF_8));
+				String event = null;
+				for (String line = in.readLine(); line != null; line = in.readLine()) {
+					if (line.startsWith("event: ")) {
+						event = line.substring(7);
+					}
+					else if (line.startsWith("data: ")) {
+						apply(event, line.substring(6));
+						Thread.sleep(delayMillis);
+					}
+				}
+			} catch (IOException | InterruptedException e) {
+				// The stream ended
+			}
+		}
+		
+		private void apply(String event, String data) {
+			long frameSeq = Long.parseLong(field(data, "seq"));
+			if (event.equals("board")) {
+				BitGrid grid = new BitGrid(Integer.parseInt(field(data, "width")), Integer.parseInt(field(data, "height")));
+				ByteBuffer.wrap(Base64.getDecoder().decode(field(data, "cells"))).order(ByteOrder.LITTLE_ENDIAN)
+						.asLongBuffer().get(grid.words());
+				cells = grid;
+				boards++;
+			}
+			else {
+				BitGrid grid = cells;
+				for (String list : new String[] {"born", "died"}) {
+					String text = field(data, list);
+					if (!text.isEmpty()) {
+						String[] numbers = text.split(",");
+						for (int i = 0; i < numbers.length; i += 2) {
+							grid.set(Integer.parseInt(numbers[i]), Integer.parseInt(numbers[i + 1]), list.equals("born"));
+						}
+					}
+				}
+			}
+			seq = frameSeq;
+		}
+		
+		private static String field(String data, String name) {
+			int start = data.indexOf("\"" + name + "\":") + name.length() + 3;
+			char open = data.charAt(start);
+			if (open == '"' || open == '[') {
+				return data.substring(start + 1, data.indexOf(open == '"' ? '"' : ']', start + 1));
+			}
+			int end = start;
+			while (end < data.length() && Character.isDigit(data.charAt(end))) {
+				end++;
+			}
+			return data.substring(start, end);
+		}
+	}
+	
+	/*
+	 * Serves a game on the loopback address to fast and slow viewers, and checks that each rebuilds the final board
+	 */
+	public static void main(String[] args) throws Exception {
+		GameOfLife game = new GameOfLife(200, 150);
+		game.randomSetup();
+		try (BoardServer server = new BoardServer(game, 0)) {
+			URL events = new URL("http://127.0.0.1:" + server.getPort() + "/events");
+			List<TestViewer> viewers = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				viewers.add(new TestViewer(events, i < 6 ? 0 : 20));  // the last two read one frame per 20 ms
+			}
+			viewers.forEach(Thread::start);
+			while (server.getViewers() < viewers.size()) {
+				Thread.sleep(10);
+			}
+			
+			int generations = 2000;
+			long start = System.nanoTime();
+			for (int i = 0; i < generations; i++) {
+				game.nextGen();
+			}
+			long nanos = System.nanoTime() - start;
+			game.setAlive(0, 0);
+			
+			long deadline = System.currentTimeMillis() + 30000;
+			boolean caughtUp = false;
+			while (!caughtUp && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+				caughtUp = viewers.stream().allMatch(viewer -> viewer.seq == server.getSeq());
+			}
+			BitGrid expected = game.snapshot();
+			for (int i = 0; i < viewers.size(); i++) {
+				TestViewer viewer = viewers.get(i);
+				System.out.println("Viewer " + i + (viewer.delayMillis > 0 ? " (slow)" : "") + " rebuilt the board: " +
+						expected.equals(viewer.cells) + ", after " + viewer.boards + " whole board(s)");
+			}
+			System.out.println(generations + " generations of a 200 * 150 board served to " + viewers.size() +
+					" viewers in " + nanos / 1000000 + " ms: " + server.getFramesEncoded() + " diff frame(s) and " +
+					server.getBoardsEncoded() + " board frame(s) encoded, " + server.getFramesSkipped() +
+					" frame(s) skipped by slow viewers");
+			
+			HttpURLConnection board = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/board")
+					.openConnection();
+			System.out.println("/board answers " + board.getResponseCode() + " " + board.getContentType() + " with " +
+					board.getInputStream().readAllBytes().length + " bytes");
+		}
+	}
+
+}
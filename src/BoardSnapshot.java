@@ -0,0 +1,101 @@
+import java.io.IOException;
+
+/**
+ * A frozen generation of a GameOfLife, taken with GameOfLife.freeze(). The snapshot never changes, so any thread may read,
+ * save, render or analyse it while the game moves on. When the board is held by the bit-grid engine, taking a snapshot
+ * copies nothing: the snapshot shares the engine's grid, and the engine copies the grid only if the board is edited
+ * before the next generation replaces it. Stepping writes each generation to a new grid, so a game that is only being
+ * advanced never copies at all.
+ */
+public class BoardSnapshot {
+	
+	private final BitGrid cells;  // never changed once the snapshot is taken
+	private final int gen;
+	private int population = -1;  // counted on first request
+	
+	/*
+	 * Constructs a BoardSnapshot of Cells that no one will change
+	 */
+	BoardSnapshot(BitGrid cells, int gen) {
+		this.cells = cells;
+		this.gen = gen;
+	}
+	
+	/**
+	 * @return the generation number of the snapshot
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the width of the board
+	 */
+	public int getWidth() {
+		return cells.getWidth();
+	}
+	
+	/**
+	 * @return the height of the board
+	 */
+	public int getHeight() {
+		return cells.getHeight();
+	}
+	
+	/**
+	 * @param x the x-coordinate of the Cell of interest
+	 * @param y the y-coordinate of the Cell of interest
+	 * @return whether the Cell was alive; false if the location is not on the board
+	 */
+	public boolean isAlive(int x, int y) {
+		return cells.get(x, y);
+	}
+	
+	/**
+	 * @return the number of living Cells in the snapshot
+	 */
+	public int getPopulation() {
+		if (population < 0) {
+			population = cells.population();  // the same count whichever thread races to it first
+		}
+		return population;
+	}
+	
+	/**
+	 * @return a copy of the Cells, which may be changed
+	 */
+	public BitGrid copyCells() {
+		return new BitGrid(cells);
+	}
+	
+	/**
+	 * Copies a rectangular region of the snapshot. Parts of the region that are not on the board are copied as dead Cells.
+	 *
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @return the Cells of the region; null if the width or height is not positive
+	 */
+	public BitGrid copyRegion(int x, int y, int width, int height) {
+		return width > 0 && height > 0 ? cells.copy(x, y, width, height) : null;
+	}
+	
+	/**
+	 * Writes the snapshot in compact text form, as GameOfLife.writeTo() does.
+	 *
+	 * @param out the Appendable to write to
+	 * @throws IOException if out throws IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		cells.writeTo(out);
+	}
+	
+	/**
+	 * @return the Cells themselves, for readers in this package that promise not to change them
+	 */
+	BitGrid cells() {
+		return cells;
+	}
+
+}
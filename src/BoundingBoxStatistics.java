@@ -0,0 +1,91 @@
+/**
+ * Finds the smallest rectangle containing every living Cell of each generation.
+ */
+public class BoundingBoxStatistics implements StatisticsCollector {
+	
+	private int gen;
+	private int minX, minY, maxX, maxY;
+	
+	@Override
+	public void begin(int gen, int width, int height) {
+		this.gen = gen;
+		minX = Integer.MAX_VALUE;
+		minY = Integer.MAX_VALUE;
+		maxX = -1;
+		maxY = -1;
+	}
+	
+	@Override
+	public void acceptWords(int y, int firstWord, long[] before, long[] after, int offset, int count) {
+		for (int i = 0; i < count; i++) {
+			long word = after[offset + i];
+			if (word != 0) {
+				int x0 = (firstWord + i) << 6;
+				minX = Math.min(minX, x0 + Long.numberOfTrailingZeros(word));
+				maxX = Math.max(maxX, x0 + 63 - Long.numberOfLeadingZeros(word));
+				minY = Math.min(minY, y);
+				maxY = Math.max(maxY, y);
+			}
+		}
+	}
+	
+	@Override
+	public StatisticsCollector newPartial() {
+		BoundingBoxStatistics partial = new BoundingBoxStatistics();
+		partial.begin(gen, 0, 0);
+		return partial;
+	}
+	
+	@Override
+	public void merge(StatisticsCollector partial) {
+		BoundingBoxStatistics other = (BoundingBoxStatistics) partial;
+		minX = Math.min(minX, other.minX);
+		minY = Math.min(minY, other.minY);
+		maxX = Math.max(maxX, other.maxX);
+		maxY = Math.max(maxY, other.maxY);
+	}
+	
+	/**
+	 * @return whether there are no living Cells, in which case the coordinates of the bounding box are meaningless
+	 */
+	public boolean isEmpty() {
+		return maxX < 0;
+	}
+	
+	/**
+	 * @return the x-coordinate of the leftmost living Cell
+	 */
+	public int getMinX() {
+		return minX;
+	}
+	
+	/**
+	 * @return the y-coordinate of the topmost living Cell
+	 */
+	public int getMinY() {
+		return minY;
+	}
+	
+	/**
+	 * @return the x-coordinate of the rightmost living Cell
+	 */
+	public int getMaxX() {
+		return maxX;
+	}
+	
+	/**
+	 * @return the y-coordinate of the bottommost living Cell
+	 */
+	public int getMaxY() {
+		return maxY;
+	}
+	
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "Generation " + gen + ": no living cells";
+		}
+		return "Generation " + gen + ": living cells within (" + minX + "," + minY + ") to (" + maxX + "," + maxY + ")";
+	}
+
+}
@@ -38,6 +38,19 @@ public class Cell extends GamePiece {
 		}
 	}
 	
+	/**
+	 * @return 'O' if the Cell is alive, and '.' if the Cell is dead
+	 */
+	@Override
+	public char toChar() {
+		if (super.getValue() == Cell.ALIVE) {
+			return 'O';
+		}
+		else {
+			return '.';
+		}
+	}
+	
 	/**
 	 * @return a clone of this Cell with the same state
 	 */
@@ -119,6 +132,7 @@ public class Cell extends GamePiece {
 		System.out.println();
 		
 		System.out.println("\tA clone of this cell is a " + cell.clone() + " cell");
+		System.out.println("\tIn compact text form this cell is '" + cell.toChar() + "'");
 	}
 
 }
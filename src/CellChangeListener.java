@@ -0,0 +1,15 @@
+/**
+ * A listener for the Cells born and died in a GameOfLife, so that a display, counter or exporter can update itself
+ * incrementally instead of rescanning the whole board. Listeners are registered with GameOfLife.addChangeListener.
+ */
+public interface CellChangeListener {
+	
+	/**
+	 * Called on the thread that changed the game, once for each generation computed and once for each edit of the board
+	 * that changed any Cell. The changes may be read during this call only, unless they are retained; see CellChanges.
+	 *
+	 * @param changes the Cells born and died
+	 */
+	void cellsChanged(CellChanges changes);
+
+}
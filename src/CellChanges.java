@@ -0,0 +1,229 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * The Cells of a GameOfLife that were born and that died in one change to the board, usually one generation. Each Cell is
+ * given by its coordinates packed into a long, with y in the upper 32 bits and x in the lower 32 bits; use x() and y()
+ * to unpack them. Only the first getBirthCount() elements of getBirths(), and likewise for deaths, are meaningful.
+ *
+ * CellChanges objects are pooled and reused for later changes once every holder has released them. A listener that
+ * only reads the changes during cellsChanged needs to do nothing; one that keeps them past that call, for example to
+ * hand them to another thread, must call retain() before returning and release() once it is done with them.
+ */
+public class CellChanges {
+	
+	private static final int POOL_SIZE = 8;
+	
+	private final ArrayDeque<CellChanges> pool;
+	private int gen;
+	private long[] births = new long[64], deaths = new long[64];
+	private int birthCount, deathCount;
+	private int references;
+	
+	private CellChanges(ArrayDeque<CellChanges> pool) {
+		this.pool = pool;
+	}
+	
+	/**
+	 * @return a new, empty pool for CellChanges objects
+	 */
+	static ArrayDeque<CellChanges> newPool() {
+		return new ArrayDeque<>(POOL_SIZE);
+	}
+	
+	/**
+	 * Takes an object from a pool, or makes a new one if the pool is empty, and fills it with the differences between two
+	 * generations of the same dimension. Changed cells are found a word at a time, so cost grows with the number of
+	 * words plus the number of changes. The object returned holds one reference, which the caller must release.
+	 *
+	 * @param pool the pool to take the object from and to return it to once released
+	 * @param gen the generation number of after
+	 * @param before the Cells before the change
+	 * @param after the Cells after the change
+	 * @return the births and deaths between the two
+	 */
+	static CellChanges diff(ArrayDeque<CellChanges> pool, int gen, BitGrid before, BitGrid after) {
+		CellChanges changes = obtain(pool, gen);
+		long[] old = before.words(), now = after.words();
+		int wordsPerRow = after.wordsPerRow();
+		for (int i = 0; i < now.length; i++) {
+			long changed = old[i] ^ now[i];
+			if (changed == 0) {
+				continue;
+			}
+			long y = i / wordsPerRow;
+			int x0 = (i % wordsPerRow) << 6;
+			for (long born = changed & now[i]; born != 0; born &= born - 1) {
+				changes.addBirth((y << 32) | (x0 + Long.numberOfTrailingZeros(born)));
+			}
+			for (long died = changed & old[i]; died != 0; died &= died - 1) {
+				changes.addDeath((y << 32) | (x0 + Long.numberOfTrailingZeros(died)));
+			}
+		}
+		return changes;
+	}
+	
+	/**
+	 * Takes an object from a pool, or makes a new one if the pool is empty, holding the change of a single Cell.
+	 * The object returned holds one reference, which the caller must release.
+	 *
+	 * @param pool the pool to take the object from and to return it to once released
+	 * @param gen the current generation number
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param alive whether the Cell was born, rather than died
+	 * @return the change
+	 */
+	static CellChanges single(ArrayDeque<CellChanges> pool, int gen, int x, int y, boolean alive) {
+		CellChanges changes = obtain(pool, gen);
+		changes.add(x, y, alive);
+		return changes;
+	}
+	
+	/*
+	 * Takes an empty object holding one reference from a pool, or makes a new one if the pool is empty
+	 */
+	static CellChanges obtain(ArrayDeque<CellChanges> pool, int gen) {
+		CellChanges changes;
+		synchronized (pool) {
+			changes = pool.poll();
+		}
+		if (changes == null) {
+			changes = new CellChanges(pool);
+		}
+		changes.gen = gen;
+		changes.birthCount = 0;
+		changes.deathCount = 0;
+		changes.references = 1;
+		return changes;
+	}
+	
+	/*
+	 * Records the birth or the death of one Cell
+	 */
+	void add(int x, int y, boolean alive) {
+		if (alive) {
+			addBirth(pack(x, y));
+		}
+		else {
+			addDeath(pack(x, y));
+		}
+	}
+	
+	private void addBirth(long packed) {
+		if (birthCount == births.length) {
+			births = Arrays.copyOf(births, births.length * 2);
+		}
+		births[birthCount++] = packed;
+	}
+	
+	private void addDeath(long packed) {
+		if (deathCount == deaths.length) {
+			deaths = Arrays.copyOf(deaths, deaths.length * 2);
+		}
+		deaths[deathCount++] = packed;
+	}
+	
+	/**
+	 * @param x an x-coordinate
+	 * @param y a y-coordinate
+	 * @return the coordinates packed into a long as in getBirths() and getDeaths()
+	 */
+	public static long pack(int x, int y) {
+		return ((long) y << 32) | (x & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * @param packed a pair of packed coordinates
+	 * @return the x-coordinate
+	 */
+	public static int x(long packed) {
+		return (int) packed;
+	}
+	
+	/**
+	 * @param packed a pair of packed coordinates
+	 * @return the y-coordinate
+	 */
+	public static int y(long packed) {
+		return (int) (packed >>> 32);
+	}
+	
+	/**
+	 * @return the generation number of the game after the change
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the packed coordinates of the Cells that were born, in row-major order; only the first getBirthCount()
+	 * elements are meaningful
+	 */
+	public long[] getBirths() {
+		return births;
+	}
+	
+	/**
+	 * @return the number of Cells that were born
+	 */
+	public int getBirthCount() {
+		return birthCount;
+	}
+	
+	/**
+	 * @return the packed coordinates of the Cells that died, in row-major order; only the first getDeathCount()
+	 * elements are meaningful
+	 */
+	public long[] getDeaths() {
+		return deaths;
+	}
+	
+	/**
+	 * @return the number of Cells that died
+	 */
+	public int getDeathCount() {
+		return deathCount;
+	}
+	
+	/**
+	 * Keeps these changes from being reused until a matching call to release().
+	 */
+	public synchronized void retain() {
+		references++;
+	}
+	
+	/**
+	 * Gives up one hold on these changes. Once every hold is given up the object goes back to its pool and must not be
+	 * read any more.
+	 */
+	public void release() {
+		synchronized (this) {
+			if (--references > 0) {
+				return;
+			}
+		}
+		synchronized (pool) {
+			if (pool.size() < POOL_SIZE) {
+				pool.push(this);
+			}
+		}
+	}
+	
+	/**
+	 * @return the changes as text, listing the coordinates of the births and deaths
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder("Generation " + gen + ": born");
+		for (int i = 0; i < birthCount; i++) {
+			out.append(" (").append(x(births[i])).append(',').append(y(births[i])).append(')');
+		}
+		out.append(", died");
+		for (int i = 0; i < deathCount; i++) {
+			out.append(" (").append(x(deaths[i])).append(',').append(y(deaths[i])).append(')');
+		}
+		return out.toString();
+	}
+
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Divides the board into square regions and records how many Cells are alive in each, giving a histogram of how many
+ * regions fall into each band of density. Regions are a whole number of 64-cell words across, so that each word of a
+ * row falls into exactly one region; regions at the right and bottom edges are clipped to the board.
+ */
+public class DensityHistogram implements StatisticsCollector {
+	
+	private final int regionWords, bins;
+	private int gen, width, height;
+	private int regionsAcross, regionsDown;
+	private int[] regionPopulations = new int[0];
+	
+	/**
+	 * Constructs a DensityHistogram with regions of 64 * 64 Cells and ten bins of density.
+	 */
+	public DensityHistogram() {
+		this(1, 10);
+	}
+	
+	/**
+	 * Constructs a DensityHistogram given the size of its regions and the number of bins. Values that are not positive
+	 * are replaced by 1 for the region size and 10 for the number of bins.
+	 *
+	 * @param regionWords the side of a region in 64-cell words, so that regions are 64 * regionWords Cells across
+	 * @param bins the number of equal bands of density from 0 to 1 to count regions in
+	 */
+	public DensityHistogram(int regionWords, int bins) {
+		this.regionWords = regionWords > 0 ? regionWords : 1;
+		this.bins = bins > 0 ? bins : 10;
+	}
+	
+	@Override
+	public void begin(int gen, int width, int height) {
+		this.gen = gen;
+		this.width = width;
+		this.height = height;
+		int side = regionWords * 64;
+		regionsAcross = (width + side - 1) / side;
+		regionsDown = (height + side - 1) / side;
+		if (regionPopulations.length == regionsAcross * regionsDown) {
+			Arrays.fill(regionPopulations, 0);
+		}
+		else {
+			regionPopulations = new int[regionsAcross * regionsDown];
+		}
+	}
+	
+	@Override
+	public void acceptWords(int y, int firstWord, long[] before, long[] after, int offset, int count) {
+		int regionRow = y / (regionWords * 64) * regionsAcross;
+		for (int i = 0; i < count; i++) {
+			regionPopulations[regionRow + (firstWord + i) / regionWords] += Long.bitCount(after[offset + i]);
+		}
+	}
+	
+	@Override
+	public StatisticsCollector newPartial() {
+		DensityHistogram partial = new DensityHistogram(regionWords, bins);
+		partial.begin(gen, width, height);
+		return partial;
+	}
+	
+	@Override
+	public void merge(StatisticsCollector partial) {
+		int[] other = ((DensityHistogram) partial).regionPopulations;
+		for (int i = 0; i < regionPopulations.length; i++) {
+			regionPopulations[i] += other[i];
+		}
+	}
+	
+	/**
+	 * @param regionX the horizontal index of a region, counting from 0 at the left
+	 * @param regionY the vertical index of a region, counting from 0 at the top
+	 * @return the number of living Cells in the region, or 0 if there is no such region
+	 */
+	public int getRegionPopulation(int regionX, int regionY) {
+		if (0 <= regionX && regionX < regionsAcross && 0 <= regionY && regionY < regionsDown) {
+			return regionPopulations[regionY * regionsAcross + regionX];
+		}
+		return 0;
+	}
+	
+	/**
+	 * @return the number of regions whose density, the fraction of their Cells that are alive, falls in each bin; bin i
+	 * covers densities from i / bins up to (i + 1) / bins, the last bin including a density of 1
+	 */
+	public int[] getHistogram() {
+		int side = regionWords * 64;
+		int[] histogram = new int[bins];
+		for (int ry = 0; ry < regionsDown; ry++) {
+			for (int rx = 0; rx < regionsAcross; rx++) {
+				long area = (long) Math.min(side, width - rx * side) * Math.min(side, height - ry * side);
+				int bin = (int) (regionPopulations[ry * regionsAcross + rx] * (long) bins / area);
+				histogram[Math.min(bin, bins - 1)]++;
+			}
+		}
+		return histogram;
+	}
+	
+	@Override
+	public String toString() {
+		return "Generation " + gen + ": regions per density bin " + Arrays.toString(getHistogram());
+	}
+
+}
@@ -0,0 +1,131 @@
+/**
+ * A batch of edits to the Cells of a GameOfLife, begun with GameOfLife.beginEdit(). Each edit changes the board at once, 
+ * but the change listeners are told of the edits only when the batch is flushed or committed, in one set of changes, so 
+ * that painting thousands of Cells costs one notification and one repaint of the region edited rather than one per 
+ * Cell. The transaction keeps the change in population and the rectangle of the Cells edited, so neither needs a scan 
+ * of the board.
+ *
+ * A transaction is meant to be used by one thread, the one that edits the game. A Cell changed more than once between 
+ * flushes is reported once per change.
+ */
+public class EditTransaction {
+	
+	private final GameOfLife game;
+	private CellChanges pending;  // the changes since the last flush, if any listener wants them
+	private int populationChange;
+	private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+	private boolean open = true;
+	
+	EditTransaction(GameOfLife game) {
+		this.game = game;
+	}
+	
+	/**
+	 * Sets a Cell alive or dead. If the Cell is off the board, already in that state, or the transaction is committed, 
+	 * this method performs no action.
+	 * 
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param alive whether the Cell is to be alive
+	 * @return whether the Cell changed
+	 */
+	public boolean set(int x, int y, boolean alive) {
+		if (!open || !game.editCell(x, y, alive)) {
+			return false;
+		}
+		if (game.hasChangeListeners()) {
+			if (pending == null) {
+				pending = game.newChanges();
+			}
+			pending.add(x, y, alive);
+		}
+		populationChange += alive ? 1 : -1;
+		minX = Math.min(minX, x);
+		minY = Math.min(minY, y);
+		maxX = Math.max(maxX, x);
+		maxY = Math.max(maxY, y);
+		return true;
+	}
+	
+	/**
+	 * Changes the state of a Cell from alive to dead or from dead to alive. If the Cell is off the board or the 
+	 * transaction is committed, this method performs no action.
+	 * 
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @return whether the Cell changed
+	 */
+	public boolean toggle(int x, int y) {
+		return set(x, y, !game.isAlive(x, y));
+	}
+	
+	/**
+	 * Tells the change listeners of the edits since the last flush, and keeps the transaction open for more.
+	 */
+	public void flush() {
+		if (pending != null) {
+			CellChanges changes = pending;
+			pending = null;
+			game.fireChanges(changes);
+		}
+	}
+	
+	/**
+	 * Tells the change listeners of the edits not yet flushed and ends the transaction; later edits through it are 
+	 * ignored. Committing again performs no action.
+	 */
+	public void commit() {
+		flush();
+		open = false;
+	}
+	
+	/**
+	 * @return whether the transaction is still open for edits
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+	
+	/**
+	 * @return the number of Cells the edits so far have set alive minus the number they have set dead
+	 */
+	public int getPopulationChange() {
+		return populationChange;
+	}
+	
+	/**
+	 * @return whether no Cell has changed yet, in which case the coordinates of the dirty rectangle are meaningless
+	 */
+	public boolean isClean() {
+		return maxX < 0;
+	}
+	
+	/**
+	 * @return the x-coordinate of the left column of the smallest rectangle holding every Cell changed so far
+	 */
+	public int getDirtyMinX() {
+		return minX;
+	}
+	
+	/**
+	 * @return the y-coordinate of the top row of the smallest rectangle holding every Cell changed so far
+	 */
+	public int getDirtyMinY() {
+		return minY;
+	}
+	
+	/**
+	 * @return the x-coordinate of the right column of the smallest rectangle holding every Cell changed so far
+	 */
+	public int getDirtyMaxX() {
+		return maxX;
+	}
+	
+	/**
+	 * @return the y-coordinate of the bottom row of the smallest rectangle holding every Cell changed so far
+	 */
+	public int getDirtyMaxY() {
+		return maxY;
+	}
+
+}
@@ -0,0 +1,72 @@
+/**
+ * A record of GameOfLife moving its Cells from one engine to another on its own, because the density of the board
+ * crossed one of the thresholds in EngineType. Switches are listed by GameOfLife.getEngineSwitches.
+ */
+public class EngineSwitch {
+	
+	private final int gen;
+	private final String from, to;
+	private final long population, nanos;
+	
+	/**
+	 * Constructs an EngineSwitch.
+	 *
+	 * @param gen the generation at which the engine was switched
+	 * @param from the name of the engine switched from
+	 * @param to the name of the engine switched to
+	 * @param population the number of living Cells at the switch
+	 * @param nanos the time taken to move the Cells to the new engine, in nanoseconds
+	 */
+	public EngineSwitch(int gen, String from, String to, long population, long nanos) {
+		this.gen = gen;
+		this.from = from;
+		this.to = to;
+		this.population = population;
+		this.nanos = nanos;
+	}
+	
+	/**
+	 * @return the generation at which the engine was switched
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the name of the engine switched from
+	 */
+	public String getFrom() {
+		return from;
+	}
+	
+	/**
+	 * @return the name of the engine switched to
+	 */
+	public String getTo() {
+		return to;
+	}
+	
+	/**
+	 * @return the number of living Cells at the switch
+	 */
+	public long getPopulation() {
+		return population;
+	}
+	
+	/**
+	 * @return the time taken to move the Cells to the new engine, in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+	
+	/**
+	 * @return the switch in the form "generation 1200: bit-grid to sparse at population 840 in 1.25 ms"
+	 */
+	@Override
+	public String toString() {
+		return String.format("generation %d: %s to %s at population %d in %.2f ms", gen, from, to, population,
+				nanos / 1e6);
+	}
+
+}
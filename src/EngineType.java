@@ -0,0 +1,388 @@
+import java.util.Random;
+
+/**
+ * The LifeEngines built in, each with the rules it can play, and the choice among them by board size, density and rule
+ * that GameOfLife makes when no engine has been set for it.
+ */
+public enum EngineType {
+	
+	/**
+	 * ReferenceEngine, which plays every two-state rule one Cell at a time
+	 */
+	REFERENCE {
+		@Override
+		public boolean supports(GenerationsRule rule) {
+			return rule != null && rule.getStates() == 2;
+		}
+		
+		@Override
+		public LifeEngine create(int width, int height, GenerationsRule rule) {
+			return new ReferenceEngine(width, height, rule);
+		}
+	},
+	
+	/**
+	 * BitGridEngine, which plays Conway's Game of Life 64 Cells at a time, and other two-state rules as fast with the 
+	 * RuleKernel made for them when a JDK compiler is at hand
+	 */
+	BIT_GRID {
+		@Override
+		public boolean supports(GenerationsRule rule) {
+			return CONWAY.equals(rule) || RuleKernel.forRule(rule) != null;
+		}
+		
+		@Override
+		public LifeEngine create(int width, int height, GenerationsRule rule) {
+			return new BitGridEngine(width, height, rule);
+		}
+	},
+	
+	/**
+	 * SparseEngine, which plays two-state rules without B0 at a cost that grows with the population
+	 */
+	SPARSE {
+		@Override
+		public boolean supports(GenerationsRule rule) {
+			return rule != null && rule.getStates() == 2 && (rule.getBirths() & 1) == 0;
+		}
+		
+		@Override
+		public LifeEngine create(int width, int height, GenerationsRule rule) {
+			return new SparseEngine(width, height, rule);
+		}
+	},
+	
+	/**
+	 * ArrayEngine, which plays every two-state rule a byte per Cell, with an interior loop free of bounds checks
+	 */
+	ARRAY {
+		@Override
+		public boolean supports(GenerationsRule rule) {
+			return rule != null && rule.getStates() == 2;
+		}
+		
+		@Override
+		public LifeEngine create(int width, int height, GenerationsRule rule) {
+			return new ArrayEngine(width, height, rule);
+		}
+	},
+	
+	/**
+	 * RunLengthEngine, which plays every two-state rule on the runs of living Cells in each row
+	 */
+	RUN_LENGTH {
+		@Override
+		public boolean supports(GenerationsRule rule) {
+			return rule != null && rule.getStates() == 2;
+		}
+		
+		@Override
+		public LifeEngine create(int width, int height, GenerationsRule rule) {
+			return new RunLengthEngine(width, height, rule);
+		}
+	};
+	
+	/**
+	 * Conway's Game of Life, B3/S23, the rule GameOfLife plays
+	 */
+	public static final GenerationsRule CONWAY = GenerationsRule.parse("B3/S23");
+	
+	/**
+	 * Boards of at least this many Cells whose density is at most SPARSE_DENSITY_MAX are given to SparseEngine
+	 */
+	public static final long SPARSE_AREA_MIN = 1 << 16;
+	
+	/**
+	 * The highest fraction of living Cells at which SparseEngine is chosen
+	 */
+	public static final double SPARSE_DENSITY_MAX = 0.001;
+	
+	/**
+	 * The fractions of living Cells below which a running game moves from BitGridEngine to SparseEngine, and above which
+	 * it moves back. They lie well apart around SPARSE_DENSITY_MAX, so that a population that hovers around it does not
+	 * make the game switch back and forth.
+	 */
+	public static final double SPARSE_ENTER_DENSITY = SPARSE_DENSITY_MAX / 2,
+			SPARSE_LEAVE_DENSITY = SPARSE_DENSITY_MAX * 2;
+	
+	/**
+	 * For rules BitGridEngine cannot play, the highest fraction of the Cells in the minority, living or dead, at which 
+	 * ArrayEngine is passed over. A generation of RunLengthEngine costs about 300 ns per run and one of ArrayEngine about 
+	 * 5 ns per Cell, so they break even at about one run in 60 Cells. A row has no more runs than it has living Cells, 
+	 * nor more than one plus its dead Cells, so below this fraction the run-length engine is the faster; SparseEngine is 
+	 * faster still where the minority is the living Cells and it plays the rule.
+	 */
+	public static final double RUN_LENGTH_DENSITY_MAX = 0.01;
+	
+	/**
+	 * The fractions of the Cells in the minority below which a running game leaves ArrayEngine, and above which it goes 
+	 * back, for rules BitGridEngine cannot play
+	 */
+	public static final double RUN_LENGTH_ENTER_DENSITY = RUN_LENGTH_DENSITY_MAX / 2,
+			RUN_LENGTH_LEAVE_DENSITY = RUN_LENGTH_DENSITY_MAX * 2;
+	
+	/**
+	 * @param rule a rule
+	 * @return whether engines of this type can play the rule
+	 */
+	public abstract boolean supports(GenerationsRule rule);
+	
+	/**
+	 * Makes an engine of this type with all Cells dead. The width and height must be positive; if they are not, the
+	 * board is 20 * 20. If the type does not support the rule, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 * @return the engine
+	 */
+	public abstract LifeEngine create(int width, int height, GenerationsRule rule);
+	
+	/**
+	 * Chooses the fastest engine for a board: SparseEngine for large boards that are nearly empty, BitGridEngine
+	 * otherwise. Rules BitGridEngine does not play, which are those no RuleKernel can be made for, go to ArrayEngine, but
+	 * on large boards where few Cells are alive, or few dead, to SparseEngine or RunLengthEngine, as described for
+	 * RUN_LENGTH_DENSITY_MAX. ReferenceEngine is never chosen; it is kept as the plain implementation the others are
+	 * checked against.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param population the number of living Cells on the board
+	 * @param rule the rule to play
+	 * @return the type of engine to use, or null if the rule has more than two states, which GenerationsGame plays
+	 */
+	public static EngineType select(int width, int height, long population, GenerationsRule rule) {
+		return select(width, height, population, rule, BIT_GRID.supports(rule));
+	}
+	
+	/*
+	 * Chooses the engine for a board as select() does, given whether BitGridEngine plays the rule
+	 */
+	private static EngineType select(int width, int height, long population, GenerationsRule rule, boolean bitGrid) {
+		long area = (long) width * height;
+		boolean sparse = area >= SPARSE_AREA_MIN && population <= area * SPARSE_DENSITY_MAX;
+		if (sparse && SPARSE.supports(rule)) {
+			return SPARSE;
+		}
+		if (bitGrid) {
+			return BIT_GRID;
+		}
+		if (area >= SPARSE_AREA_MIN && minority(area, population) <= area * RUN_LENGTH_DENSITY_MAX) {
+			if (population <= area / 2 && SPARSE.supports(rule)) {
+				return SPARSE;
+			}
+			if (RUN_LENGTH.supports(rule)) {
+				return RUN_LENGTH;
+			}
+		}
+		return ARRAY.supports(rule) ? ARRAY : null;
+	}
+	
+	/*
+	 * Returns the number of living Cells or of dead ones, whichever is fewer, which bounds the runs on the board
+	 */
+	private static long minority(long area, long population) {
+		return Math.min(population, area - population);
+	}
+	
+	/**
+	 * Chooses the engine for a board that is already held by an engine, with hysteresis: SparseEngine is only entered 
+	 * below SPARSE_ENTER_DENSITY and only left above SPARSE_LEAVE_DENSITY. For rules BitGridEngine does not play, 
+	 * ArrayEngine is left for the engine select() would choose once the Cells in the minority fall below 
+	 * RUN_LENGTH_ENTER_DENSITY, and gone back to once they rise above RUN_LENGTH_LEAVE_DENSITY; RunLengthEngine gives way 
+	 * to SparseEngine once the board is that sparse in living Cells. Boards smaller than SPARSE_AREA_MIN, and boards held 
+	 * by an engine not named here, are left where they are.
+	 *
+	 * @param current the type of the engine holding the board
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param population the number of living Cells on the board
+	 * @param rule the rule being played
+	 * @return the type of engine to use, which is current unless a threshold has been crossed
+	 */
+	public static EngineType adapt(EngineType current, int width, int height, long population, GenerationsRule rule) {
+		return adapt(current, width, height, population, rule, BIT_GRID.supports(rule));
+	}
+	
+	/*
+	 * Chooses the engine for a board already held by an engine as adapt() does, given whether BitGridEngine plays the rule
+	 */
+	private static EngineType adapt(EngineType current, int width, int height, long population, GenerationsRule rule,
+			boolean bitGrid) {
+		long area = (long) width * height;
+		if (area < SPARSE_AREA_MIN) {
+			return current;
+		}
+		boolean sparse = SPARSE.supports(rule);
+		if (bitGrid) {
+			if (sparse && current == BIT_GRID && population < area * SPARSE_ENTER_DENSITY) {
+				return SPARSE;
+			}
+			return sparse && current == SPARSE && population > area * SPARSE_LEAVE_DENSITY ? BIT_GRID : current;
+		}
+		long minority = minority(area, population);
+		boolean scatteredLiving = sparse && population < area * RUN_LENGTH_ENTER_DENSITY;
+		if (current == ARRAY && minority < area * RUN_LENGTH_ENTER_DENSITY) {
+			return scatteredLiving ? SPARSE : RUN_LENGTH;
+		}
+		if (current == RUN_LENGTH) {
+			return minority > area * RUN_LENGTH_LEAVE_DENSITY ? ARRAY : scatteredLiving ? SPARSE : current;
+		}
+		return current == SPARSE && population > area * RUN_LENGTH_LEAVE_DENSITY ? ARRAY : current;
+	}
+	
+	/*
+	 * Fills a grid at random with a given fraction of living Cells
+	 */
+	private static BitGrid randomGrid(Random random, int width, int height, double density) {
+		BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (random.nextDouble() < density) {
+					grid.set(x, y, true);
+				}
+			}
+		}
+		return grid;
+	}
+	
+	/*
+	 * Checks every engine against the reference on random boards, then measures the built-in engines on a board of
+	 * falling density to show where the choice between them lies
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+		String[] rules = {"B3/S23", "B36/S23", "B2/S", "B3678/S34678", "B1357/S1357", "B0/S8"};
+		int[][] sizes = {{1, 1}, {3, 2}, {63, 5}, {64, 64}, {65, 33}, {130, 70}, {200, 3}};
+		double[] densities = {0.02, 0.3, 0.5};
+		int generations = 40;
+		
+		for (EngineType type : values()) {
+			if (type == REFERENCE) {
+				continue;
+			}
+			int boards = 0, mismatches = 0;
+			for (String text : rules) {
+				GenerationsRule rule = GenerationsRule.parse(text);
+				if (!type.supports(rule)) {
+					continue;
+				}
+				for (int[] size : sizes) {
+					for (double density : densities) {
+						BitGrid initial = randomGrid(random, size[0], size[1], density);
+						LifeEngine reference = REFERENCE.create(size[0], size[1], rule);
+						LifeEngine engine = type.create(size[0], size[1], rule);
+						reference.load(initial);
+						engine.load(initial);
+						boards++;
+						boolean same = true;
+						for (int gen = 0; gen < generations && same; gen++) {
+							int x = random.nextInt(size[0] + 2) - 1, y = random.nextInt(size[1] + 2) - 1;
+							boolean alive = random.nextBoolean();
+							reference.set(x, y, alive);
+							engine.set(x, y, alive);
+							reference.step();
+							engine.step();
+							same = reference.snapshot().equals(engine.snapshot()) &&
+									reference.population() == engine.population() &&
+									reference.get(x, y) == engine.get(x, y) && !engine.get(-1, 0) &&
+									!engine.get(size[0], size[1] - 1);
+						}
+						if (!same) {
+							mismatches++;
+							System.out.println("  " + type + " differs from the reference on " + text + ", " + size[0] +
+									" * " + size[1] + ", density " + density);
+						}
+					}
+				}
+			}
+			System.out.println(type + " against the reference: " + boards + " random board(s) of " + generations +
+					" generations with edits, " + mismatches + " mismatch(es)");
+		}
+		
+		GameOfLife game = new GameOfLife(1024, 1024);
+		String empty = game.getEngineName();
+		game.nextGen();
+		String stepped = game.getEngineName();
+		game.randomSetup();
+		System.out.println("\nA GameOfLife of 1024 * 1024 Cells is held by the " + empty + " engine while empty and " +
+				"unstepped, by the " + stepped + " engine once an empty generation is stepped, and by the " + 
+				game.getEngineName() + " engine after a random setup");
+		
+		// A dense random start is cleared down to a few gliders, and a soup is later dropped in, on a board that adapts
+		// its engine and on boards held by one engine throughout
+		int large = 1024;
+		System.out.println("\nA " + large + " * " + large + " board filled at random for 100 generations, cleared to 40 " +
+				"gliders for 2000, then given a 256 * 256 soup for 300:");
+		BitGrid adapted = null;
+		for (EngineType fixed : new EngineType[] {null, BIT_GRID, SPARSE}) {
+			GameOfLife run = new GameOfLife(large, large);
+			if (fixed != null) {
+				run.setEngine(fixed.create(large, large, CONWAY));
+			}
+			Random seeded = new Random(7);
+			long start = System.nanoTime();
+			run.paste(randomGrid(seeded, large, large, 0.5), 0, 0, PasteMode.REPLACE);
+			run.advance(100);
+			run.fillRegion(0, 0, large, large, Cell.DEAD);
+			for (int i = 0; i < 40; i++) {
+				run.stamp(BitGrid.fromText(".O.\n..O\nOOO"), seeded.nextInt(large), seeded.nextInt(large));
+			}
+			run.advance(2000);
+			run.paste(randomGrid(seeded, 256, 256, 0.5), large / 2, large / 2, PasteMode.OR);
+			run.advance(300);
+			long millis = (System.nanoTime() - start) / 1000000;
+			BitGrid cells = run.snapshot();
+			adapted = adapted == null ? cells : adapted;
+			System.out.println("  " + (fixed == null ? "adaptive" : fixed.create(1, 1, CONWAY).getName() + " only") + ": " +
+					millis + " ms, same board as adaptive: " + adapted.equals(cells));
+			for (EngineSwitch change : run.getEngineSwitches()) {
+				System.out.println("    " + change);
+			}
+		}
+		
+		// Each generation is timed straight after loading the board, so that it is measured at the density given
+		int side = 1024, steps = 50;
+		System.out.println("\nMilliseconds per generation on a " + side + " * " + side + " board:");
+		for (double density : new double[] {0.5, 0.05, 0.01, 0.004, 0.002, 0.001, 0.0002}) {
+			BitGrid initial = randomGrid(random, side, side, density);
+			StringBuilder line = new StringBuilder(String.format("  density %-7s", density));
+			for (EngineType type : new EngineType[] {BIT_GRID, SPARSE}) {
+				LifeEngine engine = type.create(side, side, CONWAY);
+				long nanos = 0;
+				for (int i = 0; i < 2 * steps; i++) {
+					engine.load(initial);
+					long start = System.nanoTime();
+					engine.step();
+					nanos += i >= steps ? System.nanoTime() - start : 0;  // the first half warms up
+				}
+				line.append(String.format("  %s %.3f", engine.getName(), nanos / 1e6 / steps));
+			}
+			System.out.println(line + "  chosen: " + select(side, side, initial.population(), CONWAY));
+		}
+		
+		// Rules that no RuleKernel can be made for, as when no compiler is at hand, are left to the other engines
+		side = 4096;
+		steps = 5;
+		GenerationsRule highLife = GenerationsRule.parse("B36/S23");
+		System.out.println("\nMilliseconds per generation of " + highLife + " on a " + side + " * " + side +
+				" board filled at random, were there no RuleKernel for it:");
+		for (double density : new double[] {0.05, 0.01, 0.002, 0.9, 0.995, 0.999}) {
+			BitGrid initial = randomGrid(random, side, side, density);
+			StringBuilder line = new StringBuilder(String.format("  density %-7s", density));
+			for (EngineType type : new EngineType[] {ARRAY, RUN_LENGTH, SPARSE}) {
+				LifeEngine engine = type.create(side, side, highLife);
+				long nanos = 0;
+				for (int i = 0; i < 2 * steps; i++) {
+					engine.load(initial);
+					long start = System.nanoTime();
+					engine.step();
+					nanos += i >= steps ? System.nanoTime() - start : 0;
+				}
+				line.append(String.format("  %s %.1f", engine.getName(), nanos / 1e6 / steps));
+			}
+			System.out.println(line + "  chosen: " + select(side, side, initial.population(), highLife, false));
+		}
+	}
+
+}
@@ -0,0 +1,16 @@
+/**
+ * The file formats a FrameExporter can write the generations of a game to.
+ */
+public enum ExportFormat {
+	
+	/**
+	 * One PNG image per frame, named after the generation it shows, in a directory
+	 */
+	PNG_SEQUENCE,
+	
+	/**
+	 * A single looping animated GIF holding every frame in order
+	 */
+	GIF
+
+}
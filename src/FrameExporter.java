@@ -0,0 +1,378 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes the generations of a GameOfLife to image files on background threads, as a sequence of PNG images or as an
+ * animated GIF. Registered as a GenerationObserver, it takes a snapshot of the board on the thread that advanced the game
+ * and puts it on a bounded queue; encoder threads take frames off the queue, draw them and write them out. When the
+ * queue is full the frame is either dropped or waited for, according to the OverflowPolicy, so the simulation never
+ * stalls on encoding unless asked to. Only java.awt.image and javax.imageio are used, so exporting works headless.
+ *
+ * Close the exporter once the game is done to write the frames still queued and finish the files. Remove it as an
+ * observer first: close() must not race with the thread advancing the game. A frame submitted while close() runs is
+ * either queued before the encoders are told to stop, and so written, or refused; it is never queued and then lost.
+ */
+public class FrameExporter implements GenerationObserver, Closeable {
+	
+	/**
+	 * Defaults for the number of frames that may wait to be encoded, the side of a Cell in pixels, and the time each frame
+	 * of a GIF is shown
+	 */
+	public static final int QUEUE_CAPACITY_DEFAULT = 16, CELL_SIZE_DEFAULT = 2, FRAME_DELAY_MILLIS_DEFAULT = 50;
+	
+	// Pixel value 0 is a dead Cell, drawn white, and 1 a living Cell, drawn black
+	private static final IndexColorModel PALETTE = new IndexColorModel(1, 2, new byte[] {-1, 0}, new byte[] {-1, 0},
+			new byte[] {-1, 0});
+	private static final Frame END = new Frame(null, -1);  // tells an encoder thread to stop
+	
+	private final Path target;
+	private final ExportFormat format;
+	private final OverflowPolicy overflow;
+	private final int cellSize, frameDelayMillis;
+	private final BlockingQueue<Frame> queue;
+	private final List<Thread> encoders = new ArrayList<>();
+	private final AtomicLong written = new AtomicLong(), dropped = new AtomicLong();
+	private final Object submitting = new Object();  // held while a frame is queued and while the exporter is closed
+	private ImageWriter gifWriter;
+	private ImageOutputStream gifOut;
+	private IIOMetadata gifFrameMetadata;
+	private volatile IOException failure;
+	private volatile boolean closed;
+	
+	/**
+	 * Constructs a FrameExporter with the default queue capacity, Cell size and frame delay, which drops frames when its
+	 * queue is full and encodes PNG images on one thread per processor.
+	 *
+	 * @param target the directory to write PNG images to, or the file to write a GIF to
+	 * @param format the format to write
+	 * @throws IOException if the directory or file cannot be created
+	 */
+	public FrameExporter(Path target, ExportFormat format) throws IOException {
+		this(target, format, OverflowPolicy.DROP, QUEUE_CAPACITY_DEFAULT, CELL_SIZE_DEFAULT, FRAME_DELAY_MILLIS_DEFAULT,
+				Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructs a FrameExporter and starts its encoder threads. Values that are not positive are replaced by the defaults,
+	 * and by one thread. A GIF is always encoded by a single thread, since its frames must be written in order; PNG
+	 * images are independent files and are encoded by as many threads as given.
+	 *
+	 * @param target the directory to write PNG images to, or the file to write a GIF to
+	 * @param format the format to write
+	 * @param overflow what to do with a new frame when the queue is full
+	 * @param queueCapacity the number of frames that may wait to be encoded
+	 * @param cellSize the side of a Cell in pixels
+	 * @param frameDelayMillis the time each frame of a GIF is shown, in milliseconds
+	 * @param threads the number of threads encoding PNG images
+	 * @throws IOException if the directory or file cannot be created
+	 */
+	public FrameExporter(Path target, ExportFormat format, OverflowPolicy overflow, int queueCapacity, int cellSize,
+			int frameDelayMillis, int threads) throws IOException {
+		this.target = target;
+		this.format = format;
+		this.overflow = overflow;
+		this.cellSize = cellSize > 0 ? cellSize : CELL_SIZE_DEFAULT;
+		this.frameDelayMillis = frameDelayMillis > 0 ? frameDelayMillis : FRAME_DELAY_MILLIS_DEFAULT;
+		queue = new ArrayBlockingQueue<>(queueCapacity > 0 ? queueCapacity : QUEUE_CAPACITY_DEFAULT);
+		
+		if (format == ExportFormat.GIF) {
+			gifWriter = ImageIO.getImageWritersByFormatName("gif").next();
+			Files.deleteIfExists(target);
+			gifOut = ImageIO.createImageOutputStream(target.toFile());
+			gifWriter.setOutput(gifOut);
+			gifWriter.prepareWriteSequence(null);
+			threads = 1;
+		}
+		else {
+			Files.createDirectories(target);
+		}
+		
+		for (int i = 0; i < Math.max(threads, 1); i++) {
+			Thread encoder = new Thread(this::encode, "FrameExporter-" + i);
+			encoder.setDaemon(true);
+			encoders.add(encoder);
+			encoder.start();
+		}
+	}
+	
+	/**
+	 * Queues the current generation of a game to be written, frozen with GameOfLife.freeze() so that the board is not
+	 * copied on the bit-grid engine. When the queue is full and frames are being dropped, the frame is dropped before the
+	 * board is even frozen.
+	 *
+	 * @param game the game whose generation has advanced
+	 */
+	@Override
+	public void generationAdvanced(GameOfLife game) {
+		if (overflow == OverflowPolicy.DROP && queue.remainingCapacity() == 0) {
+			dropped.incrementAndGet();
+			return;
+		}
+		submit(game.freeze().cells(), game.getGen());
+	}
+	
+	/**
+	 * Queues a frame to be written. The Cells given must not be changed afterwards.
+	 *
+	 * @param cells the Cells to draw
+	 * @param gen the generation number of the frame, which names its file in a PNG sequence
+	 * @return whether the frame was queued, rather than dropped or refused because the exporter is closed
+	 */
+	public boolean submit(BitGrid cells, int gen) {
+		Frame frame = new Frame(cells, gen);
+		synchronized (submitting) {  // so that close() cannot queue the encoders' END between the check and the put
+			if (closed) {
+				return false;
+			}
+			if (overflow == OverflowPolicy.BLOCK) {
+				try {
+					queue.put(frame);  // the encoders take frames without the lock, so close() waits only for room
+					return true;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			else if (queue.offer(frame)) {
+				return true;
+			}
+		}
+		dropped.incrementAndGet();
+		return false;
+	}
+	
+	/*
+	 * Takes frames off the queue and writes them until told to stop. After a failure the remaining frames are still taken,
+	 * so that a game blocked on a full queue is not left waiting.
+	 */
+	private void encode() {
+		try {
+			for (Frame frame = queue.take(); frame != END; frame = queue.take()) {
+				if (failure == null) {
+					try {
+						write(frame);
+						written.incrementAndGet();
+					} catch (IOException e) {
+						failure = e;
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/*
+	 * Draws a frame and writes it to its own PNG file or appends it to the GIF
+	 */
+	private void write(Frame frame) throws IOException {
+		BufferedImage image = render(frame.cells, cellSize);
+		if (format == ExportFormat.GIF) {
+			if (gifFrameMetadata == null) {
+				gifFrameMetadata = gifFrameMetadata(image);
+			}
+			gifWriter.writeToSequence(new IIOImage(image, null, gifFrameMetadata), null);
+		}
+		else if (!ImageIO.write(image, "png", target.resolve(String.format("gen-%08d.png", frame.gen)).toFile())) {
+			throw new IOException("No PNG writer is available");
+		}
+	}
+	
+	/*
+	 * Builds the metadata of a GIF frame that is shown for the frame delay and makes the animation loop forever
+	 */
+	private IIOMetadata gifFrameMetadata(BufferedImage image) throws IOException {
+		IIOMetadata metadata = gifWriter.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+		String formatName = metadata.getNativeMetadataFormatName();
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(formatName);
+		
+		IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+		control.setAttribute("disposalMethod", "none");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(Math.max(frameDelayMillis / 10, 1)));  // in hundredths of a second
+		control.setAttribute("transparentColorIndex", "0");
+		root.appendChild(control);
+		
+		IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+		IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+		loop.setAttribute("applicationID", "NETSCAPE");
+		loop.setAttribute("authenticationCode", "2.0");
+		loop.setUserObject(new byte[] {1, 0, 0});  // loop forever
+		extensions.appendChild(loop);
+		root.appendChild(extensions);
+		
+		metadata.setFromTree(formatName, root);
+		return metadata;
+	}
+	
+	/**
+	 * Draws Cells into a black and white image, one bit per pixel, with each Cell a square of pixels. Only the living
+	 * Cells are visited, a word of 64 Cells at a time, and each row of Cells is drawn once and copied for the remaining
+	 * pixel rows of the square.
+	 *
+	 * @param cells the Cells to draw
+	 * @param cellSize the side of a Cell in pixels
+	 * @return the image
+	 */
+	public static BufferedImage render(BitGrid cells, int cellSize) {
+		int width = Math.max(cells.getWidth() * cellSize, 1), height = Math.max(cells.getHeight() * cellSize, 1);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, PALETTE);
+		byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		int stride = (width + 7) >>> 3;
+		long[] words = cells.words();
+		int wordsPerRow = cells.wordsPerRow();
+		
+		for (int y = 0; y < cells.getHeight(); y++) {
+			int rowStart = y * cellSize * stride;
+			for (int w = 0; w < wordsPerRow; w++) {
+				for (long alive = words[y * wordsPerRow + w]; alive != 0; alive &= alive - 1) {
+					int first = ((w << 6) + Long.numberOfTrailingZeros(alive)) * cellSize;
+					for (int p = first; p < first + cellSize; p++) {
+						pixels[rowStart + (p >>> 3)] |= 0x80 >>> (p & 7);
+					}
+				}
+			}
+			for (int r = 1; r < cellSize; r++) {
+				System.arraycopy(pixels, rowStart, pixels, rowStart + r * stride, stride);
+			}
+		}
+		return image;
+	}
+	
+	/**
+	 * @return the number of frames written so far
+	 */
+	public long getFramesWritten() {
+		return written.get();
+	}
+	
+	/**
+	 * @return the number of frames dropped so far because the queue was full
+	 */
+	public long getFramesDropped() {
+		return dropped.get();
+	}
+	
+	/**
+	 * Stops taking frames, waits for the frames still queued to be written, and finishes the GIF. A submit() in progress
+	 * is let finish first, so its frame is written too. Calling this method again performs no action.
+	 *
+	 * @throws IOException if writing any frame or finishing the GIF failed
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (submitting) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		boolean interrupted = false;
+		for (int i = 0; i < encoders.size(); i++) {
+			while (true) {
+				try {
+					queue.put(END);
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		for (Thread encoder : encoders) {
+			while (encoder.isAlive()) {
+				try {
+					encoder.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		
+		if (gifWriter != null) {
+			try {
+				gifWriter.endWriteSequence();
+				gifOut.close();
+			} finally {
+				gifWriter.dispose();
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/*
+	 * A snapshot of the Cells of one generation waiting to be encoded
+	 */
+	private static class Frame {
+		private final BitGrid cells;
+		private final int gen;
+		
+		private Frame(BitGrid cells, int gen) {
+			this.cells = cells;
+			this.gen = gen;
+		}
+	}
+	
+	/*
+	 * Exports a run headless, first as PNG images dropping frames the encoders cannot keep up with, then as a GIF with
+	 * every frame; the first argument, if given, is the directory to write to
+	 */
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		Path directory = args.length > 0 ? Paths.get(args[0]) : Files.createTempDirectory("life-frames");
+		int generations = 2000;
+		
+		GameOfLife game = new GameOfLife(256, 256);
+		game.randomSetup();
+		long start = System.nanoTime();
+		game.advance(generations);
+		long plainNanos = System.nanoTime() - start;
+		
+		game.randomSetup();
+		FrameExporter png = new FrameExporter(directory.resolve("png"), ExportFormat.PNG_SEQUENCE);
+		game.addObserver(png, 0);
+		start = System.nanoTime();
+		game.advance(generations);
+		long exportingNanos = System.nanoTime() - start;
+		game.removeObserver(png);
+		png.close();
+		System.out.println("Advancing a 256 * 256 board by " + generations + " generations takes " + plainNanos / 1000000 +
+				" ms, and " + exportingNanos / 1000000 + " ms while exporting PNG images, dropping frames");
+		System.out.println("  " + png.getFramesWritten() + " frame(s) written to " + directory.resolve("png") + ", " +
+				png.getFramesDropped() + " dropped");
+		
+		game.randomSetup();
+		Path gif = directory.resolve("life.gif");
+		FrameExporter animation = new FrameExporter(gif, ExportFormat.GIF, OverflowPolicy.BLOCK, QUEUE_CAPACITY_DEFAULT,
+				CELL_SIZE_DEFAULT, FRAME_DELAY_MILLIS_DEFAULT, 1);
+		game.addObserver(animation, 0);
+		game.advance(100);
+		game.removeObserver(animation);
+		animation.close();
+		System.out.println("An animated GIF of " + animation.getFramesWritten() + " frame(s), with " +
+				animation.getFramesDropped() + " dropped, is written to " + gif + " (" + Files.size(gif) / 1024 + " KB)");
+	}
+
+}
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -12,6 +18,11 @@ import java.util.Arrays;
  */
 public class GameBoard {
 	
+	/**
+	 * The character representing an empty square in the compact text form of a GameBoard
+	 */
+	public static final char EMPTY_CHAR = '-';
+	
 	private GamePiece[][] board;
 	private int width, height;
 
@@ -24,17 +35,31 @@ public class GameBoard {
 	 * @param height the height of the new game board
 	 */
 	public GameBoard(int width, int height) {
+		this(width, height, true);
+	}
+	
+	/**
+	 * Constructs a rectangular GameBoard given a specified width and a specified height, optionally without allocating the 
+	 * 2D array of GamePieces. The latter is for subclasses that store their pieces in a representation of their own; such a 
+	 * subclass must override every method that reads or writes squares. Non-positive dimensions give an 8 * 8 board.
+	 * 
+	 * @param width the width of the new game board
+	 * @param height the height of the new game board
+	 * @param allocatePieces whether to allocate the 2D array of GamePieces backing this GameBoard
+	 */
+	protected GameBoard(int width, int height, boolean allocatePieces) {
 		if (width > 0 && height > 0) {
-			this.board = new GamePiece[height][width];  
-			// In the newly constructed board, all GamePiece objects in the 2D array are initialized to null 
 			this.width = width;
 			this.height = height;
 		}
 		else {
-			this.board = new GamePiece[8][8];
 			this.width = 8;
 			this.height = 8;
 		}
+		if (allocatePieces) {
+			this.board = new GamePiece[this.height][this.width];  
+			// In the newly constructed board, all GamePiece objects in the 2D array are initialized to null 
+		}
 	}
 	
 	/**
@@ -83,16 +108,68 @@ public class GameBoard {
 	 */
 	public String toString() {
 //		return Arrays.deepToString(board);  // this puts all rows on the same line 
-		String out = "";
+		StringBuilder out = new StringBuilder();
 		for (int i = 0; i < board.length; i++) {
-			if (i != board.length - 1) {
-				out += Arrays.toString(board[i]) + "\n";  // places each row on a new line
+			if (i != 0) {
+				out.append('\n');  // places each row on a new line, with no new line after the last row
+			}
+			out.append(Arrays.toString(board[i]));
+		}
+		return out.toString();
+	}
+	
+	/**
+	 * Writes the compact text form of this GameBoard to a character sink. Each row is written as one line of width 
+	 * characters, one character per square as given by GamePiece.toChar(), with EMPTY_CHAR for empty squares. Every row, 
+	 * the last one included, ends with '\n'. Rows are written one at a time through a single reusable row buffer, 
+	 * so memory use does not grow with the height of the board.
+	 * 
+	 * @param out the Writer, StringBuilder, PrintStream or other Appendable to write to
+	 * @throws IOException if out throws IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		char[] row = new char[width + 1];
+		row[width] = '\n';
+		CharBuffer rowView = CharBuffer.wrap(row);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				row[x] = pieceChar(x, y);
+			}
+			if (out instanceof Writer) {
+				((Writer) out).write(row);  // avoids the CharSequence indirection for the common case
 			}
 			else {
-				out += Arrays.toString(board[i]);   // no new line after the last row 
+				out.append(rowView, 0, row.length);
 			}
 		}
-		return out;
+	}
+	
+	/**
+	 * Writes the compact text form of this GameBoard, as described in writeTo(Appendable), to a channel in UTF-8. 
+	 * The channel is left open.
+	 * 
+	 * @param channel the channel to write to
+	 * @throws IOException if writing to the channel fails
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);  // buffers a bounded amount before each write
+		writeTo(out);
+		out.flush();
+	}
+	
+	/**
+	 * @param x the x-coordinate of a location on this board
+	 * @param y the y-coordinate of a location on this board
+	 * @return the character representing the square at the location in the compact text form of this GameBoard
+	 */
+	protected char pieceChar(int x, int y) {
+		GamePiece piece = getPiece(x, y);
+		if (piece == null) {
+			return EMPTY_CHAR;
+		}
+		else {
+			return piece.toChar();
+		}
 	}
 	
 	/**
@@ -178,6 +255,68 @@ public class GameBoard {
 		return setPiece(x, y, null);
 	}
 	
+	/**
+	 * Places a clone of a specified GamePiece on every square of a rectangular region of this GameBoard, or empties the 
+	 * region if the GamePiece is null. The parts of the region that are not on the board are ignored.
+	 * 
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @param piece the GamePiece to fill the region with, or null
+	 */
+	public void fill(int x, int y, int width, int height, GamePiece piece) {
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + width, this.width);
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + height, this.height);
+		for (int j = y0; j < y1; j++) {
+			for (int i = x0; i < x1; i++) {
+				setPiece(i, j, piece == null ? null : piece.clone());
+			}
+		}
+	}
+	
+	/**
+	 * Copies a rectangular region of this GameBoard into a new GameBoard of the same dimension as the region, cloning each 
+	 * GamePiece. Parts of the region that are not on this board are left empty in the copy.
+	 * 
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @return a new GameBoard holding the region; null if the width or height is not positive
+	 */
+	public GameBoard copyRegion(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		GameBoard region = new GameBoard(width, height);
+		region.paste(this, -x, -y);
+		return region;
+	}
+	
+	/**
+	 * Pastes another GameBoard onto this one with its upper left corner at the location specified. Every square covered 
+	 * takes a clone of the corresponding GamePiece of the source, or is emptied if the source square is empty. The parts 
+	 * of the source that fall outside this board are ignored.
+	 * 
+	 * @param source the GameBoard to paste
+	 * @param x the x-coordinate on this board of the upper left corner of the source
+	 * @param y the y-coordinate on this board of the upper left corner of the source
+	 */
+	public void paste(GameBoard source, int x, int y) {
+		if (source == this) {
+			source = copyRegion(0, 0, width, height);  // the squares being read must not change while they are pasted
+		}
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + source.getWidth(), this.width);
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + source.getHeight(), this.height);
+		for (int j = y0; j < y1; j++) {
+			for (int i = x0; i < x1; i++) {
+				GamePiece piece = source.getPiece(i - x, j - y);
+				setPiece(i, j, piece == null ? null : piece.clone());
+			}
+		}
+	}
+	
 	/**
 	 * Tests the methods in the GameBoard class
 	 */
@@ -291,6 +430,20 @@ public class GameBoard {
 		
 		System.out.println("The board now looks like: ");
 		System.out.println(board);
+		System.out.println("In compact text form it is: ");
+		try {
+			board.writeTo(System.out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		GameBoard copy = board.copyRegion(0, 0, 2, 3);
+		board.fill(0, 0, 2, 2, new Cell(Cell.DEAD));
+		System.out.println("The 2 * 3 region at (0,0) is copied and the 2 * 2 region at (0,0) is filled with dead cells: ");
+		System.out.println(board);
+		board.paste(copy, 0, 0);
+		System.out.println("The copied region is pasted back at (0,0): ");
+		System.out.println(board);
 		
 		board.clear();
 		System.out.println("The board is cleared. \nIt now looks like: ");
@@ -1,5 +1,17 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class represents Conway's Game of Life. Cells on the game board are specified by pairs of int coordinates x and y, 
@@ -11,8 +23,21 @@ import java.util.Random;
  */
 public class GameOfLife {
 
-	private GameBoard board;
+	private LifeEngine engine;  // holds and steps the Cells
+	private EngineType engineType;  // the type of the engine, or null if it was set from outside
+	private boolean automaticEngine = true;  // whether the engine is chosen by the size and density of the board
+	private int generationsSinceEngineCheck;
+	private boolean engineCheckDue;  // whether the engine is to be reconsidered after the next generation
+	private final ArrayDeque<EngineSwitch> engineSwitches = new ArrayDeque<>();
+	private int engineSwitchCount;
+	private long engineSwitchNanos;
 	private int gen;
+	private final List<ObserverRegistration> observers = new CopyOnWriteArrayList<>();
+	private TiledStepper tiledStepper;  // null unless tiled stepping is on
+	private final List<CellChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+	private final List<StatisticsCollector> statistics = new CopyOnWriteArrayList<>();
+	private final ArrayDeque<CellChanges> changesPool = CellChanges.newPool();
+	private ReplayJournal journal;  // null unless the game is being recorded
 	
 	private static final int LONELINESS_MIN = 0;
 	private static final int LONELINESS_MAX = 1;
@@ -21,6 +46,9 @@ public class GameOfLife {
 	private static final int OVERCROWDING_MIN = 4;
 	private static final int OVERCROWDING_MAX = 8;
 	
+	private static final int ENGINE_CHECK_INTERVAL = 16;  // generations between checks of the density of the board
+	private static final int ENGINE_SWITCHES_KEPT = 32;
+	
 	/**
 	 * Constructs a new GameOfLife given an initial setup. Each null references in the 2D array of Cells received
 	 * will be assigned to a dead Cell. The given 2D array of Cells must be a matrix with a size greater than 0.
@@ -32,20 +60,20 @@ public class GameOfLife {
 	public GameOfLife(Cell[][] initialSetup) {
 		// If the input array is valid, do it.
 		if (initialSetup.length > 0 && initialSetup[0].length > 0) {
-			this.board = new GameBoard(initialSetup);
-			// Set all null to dead Cells
+			BitGrid cells = new BitGrid(initialSetup[0].length, initialSetup.length);
+			// Null references are left as dead Cells
 			for (int i = 0; i < initialSetup[0].length; i++) {
 				for (int j = 0; j < initialSetup.length; j++) {
-					if (board.getPiece(i, j) == null) {
-						board.setPiece(i, j, new Cell(Cell.DEAD));
+					if (initialSetup[j][i] != null && initialSetup[j][i].isAlive()) {
+						cells.set(i, j, true);
 					}
 				}
 			}
+			installCells(cells);
 		}
 		// Otherwise, construct the default game.
 		else {
-			this.board = new GameBoard(20, 20);
-			clear();  // places a dead Cell on every spot
+			installCells(new BitGrid(20, 20));  // every Cell starts dead
 		}
 		
 		this.gen = 0;
@@ -62,13 +90,11 @@ public class GameOfLife {
 	public GameOfLife(int width, int height) {
 		// If the width and height are both legal (positive integers), do it.
 		if (width > 0 && height > 0) {
-			this.board = new GameBoard(width, height);
-			clear();
+			installCells(new BitGrid(width, height));
 		}
 		// If the dimension given is illegal, the game is on a default 20 * 20 board.
 		else {
-			this.board = new GameBoard(20, 20);
-			clear();
+			installCells(new BitGrid(20, 20));
 		}
 		
 		// Generation starts at 0 for a new game
@@ -98,21 +124,69 @@ public class GameOfLife {
 	 * @return a String representation of the game at this moment
 	 */
 	public String toString() {
-		return board.toString();
+		StringBuilder out = new StringBuilder();
+		for (int j = 0; j < getHeight(); j++) {
+			if (j != 0) {
+				out.append('\n');  // places each row on a new line
+			}
+			out.append('[');
+			for (int i = 0; i < getWidth(); i++) {
+				if (i != 0) {
+					out.append(", ");
+				}
+				out.append(isAlive(i, j) ? "alive" : "dead");
+			}
+			out.append(']');
+		}
+		return out.toString();
+	}
+	
+	/**
+	 * Writes the game board in compact text form, one line per row with 'O' for a living Cell and '.' for a dead one.
+	 * Suited to logging and diffing large boards, since nothing proportional to the board size is built in memory: the
+	 * bit-grid engine's grid is written as it is, and any other engine is read one row at a time with readRow().
+	 * 
+	 * @param out the Writer, StringBuilder, PrintStream or other Appendable to write to
+	 * @throws IOException if out throws IOException
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		if (engine instanceof BitGridEngine) {
+			((BitGridEngine) engine).grid().writeTo(out);
+			return;
+		}
+		long[] words = new long[(getWidth() + 63) >>> 6];
+		CharBuffer row = BitGrid.rowBuffer(getWidth());
+		for (int y = 0; y < getHeight(); y++) {
+			engine.readRow(y, words);
+			BitGrid.writeRow(words, 0, row, out);
+		}
+	}
+	
+	/**
+	 * Writes the game board in compact text form, as described in writeTo(Appendable), to a channel in UTF-8.
+	 * The channel is left open.
+	 * 
+	 * @param channel the channel to write to
+	 * @throws IOException if writing to the channel fails
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8);  // buffers a bounded amount before each write
+		writeTo(out);
+		out.flush();
 	}
 	
 	/**
 	 * @return the width of the game board
 	 */
 	public int getWidth() {
-		return board.getWidth();
+		return engine.getWidth();
 	}
 	
 	/**
 	 * @return the height of the game board
 	 */
 	public int getHeight() {
-		return board.getHeight();
+		return engine.getHeight();
 	}
 	
 	/**
@@ -131,12 +205,7 @@ public class GameOfLife {
 	 * @return boolean true if the Cell is alive, and false if not. 
 	 */
 	public boolean isAlive(int x, int y) {
-		if (board.onBoard(x, y)) {
-			return ((Cell) board.getPiece(x, y)).isAlive();
-		}
-		else {
-			return false;
-		}
+		return engine.get(x, y);  // false if the location is not on the board
 	}
 	
 	/**
@@ -149,12 +218,14 @@ public class GameOfLife {
 	 * @param state the state to set the Cell to; the only valid values are Cell.ALIVE and Cell.DEAD
 	 */
 	public void setCell(int x, int y, int state) {
-		if (board.onBoard(x, y)) {
-			if (state == Cell.ALIVE) {
-				board.setPiece(x, y, new Cell(Cell.ALIVE));
-				}
-			else if (state == Cell.DEAD) {
-				board.setPiece(x, y, new Cell(Cell.DEAD));
+		if ((state == Cell.ALIVE || state == Cell.DEAD) && onBoard(x, y) && engine.get(x, y) != (state == Cell.ALIVE)) {
+			engine.set(x, y, state == Cell.ALIVE);
+			cellEdited(state == Cell.ALIVE);
+			if (journal != null) {
+				journal.cell(x, y, state == Cell.ALIVE);
+			}
+			if (!changeListeners.isEmpty()) {
+				fireChanges(CellChanges.single(changesPool, gen, x, y, state == Cell.ALIVE));
 			}
 		}
 	}
@@ -189,7 +260,7 @@ public class GameOfLife {
 	 * @param y the y-coordinate of the Cell to be changed
 	 */
 	public void changeState(int x, int y) {
-		if (board.onBoard(x, y)) {
+		if (onBoard(x, y)) {
 			if (isAlive(x, y)) {
 				setDead(x, y);
 			}
@@ -200,16 +271,90 @@ public class GameOfLife {
 	}
 	
 	/**
-	 * Clears the game board by setting all cells dead, and sets the generation number to 0.
+	 * Sets every Cell in a rectangular region alive or dead. The parts of the region that are not on the game board are
+	 * ignored. If an invalid value is received for state, this method performs no action.
+	 * 
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @param state the state to set the Cells to; the only valid values are Cell.ALIVE and Cell.DEAD
 	 */
-	public void clear() {
-		for (int i = 0; i < getWidth(); i++) {
-			for (int j = 0; j < getHeight(); j++) {
-				setDead(i, j);
+	public void fillRegion(int x, int y, int width, int height, int state) {
+		if (state == Cell.ALIVE || state == Cell.DEAD) {
+			BitGrid before = copyForListeners();
+			BitGrid cells = cellsForEdit();
+			cells.fill(x, y, width, height, state == Cell.ALIVE);
+			storeCells(cells);
+			if (journal != null) {
+				journal.fill(x, y, width, height, state == Cell.ALIVE);
 			}
+			fireChanges(before);
 		}
-		
+	}
+	
+	/**
+	 * Copies the Cells of a rectangular region of the game board into a pattern that can be pasted back with paste().
+	 * Parts of the region that are not on the game board are copied as dead Cells.
+	 * 
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @return the Cells of the region as a BitGrid; null if the width or height is not positive
+	 */
+	public BitGrid copyRegion(int x, int y, int width, int height) {
+		if (width > 0 && height > 0) {
+			return cells().copy(x, y, width, height);
+		}
+		else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Pastes a pattern onto the game board with its upper left corner at the location specified, combining it with the
+	 * Cells already there as specified by the mode. The parts of the pattern that fall outside the board are ignored.
+	 * 
+	 * @param pattern the pattern to paste, such as one from copyRegion() or BitGrid.fromText()
+	 * @param x the x-coordinate of the upper left corner of the pattern on the game board
+	 * @param y the y-coordinate of the upper left corner of the pattern on the game board
+	 * @param mode whether the pattern replaces the Cells it covers, or is ORed or XORed with them
+	 */
+	public void paste(BitGrid pattern, int x, int y, PasteMode mode) {
+		BitGrid before = copyForListeners();
+		BitGrid cells = cellsForEdit();
+		cells.paste(pattern, x, y, mode);
+		storeCells(cells);
+		if (journal != null) {
+			journal.paste(pattern, x, y, mode);
+		}
+		fireChanges(before);
+	}
+	
+	/**
+	 * Stamps the living Cells of a pattern onto the game board with its upper left corner at the location specified,
+	 * leaving the Cells under the dead Cells of the pattern unchanged. This is paste() with PasteMode.OR.
+	 * 
+	 * @param pattern the pattern to stamp
+	 * @param x the x-coordinate of the upper left corner of the pattern on the game board
+	 * @param y the y-coordinate of the upper left corner of the pattern on the game board
+	 */
+	public void stamp(BitGrid pattern, int x, int y) {
+		paste(pattern, x, y, PasteMode.OR);
+	}
+	
+	/**
+	 * Clears the game board by setting all cells dead, and sets the generation number to 0.
+	 */
+	public void clear() {
+		BitGrid before = copyForListeners();
+		installCells(new BitGrid(getWidth(), getHeight()));
 		gen = 0;
+		if (journal != null) {
+			journal.clear();
+		}
+		fireChanges(before);
 	}
 	
 	/**
@@ -223,9 +368,12 @@ public class GameOfLife {
 	 * @return the number of living neighbors this Cell has
 	 */
 	public int countLivingNeighbors(int x, int y) {
-		if (!board.onBoard(x, y)) {
+		if (!onBoard(x, y)) {
 			return -1;
 		}
+		if (engine instanceof BitGridEngine) {
+			return ((BitGridEngine) engine).grid().countNeighbors(x, y);  // three rows of three bits at once
+		}
 		
 		int livingNeighbors = 0;
 		
@@ -273,7 +421,7 @@ public class GameOfLife {
 		
 		// If overcrowded or too lonely, die:
 		if (OVERCROWDING_MIN <= livingNeighbors && livingNeighbors <= OVERCROWDING_MAX || 
-			LONELINESS_MIN <= livingNeighbors && countLivingNeighbors(x, y) <= LONELINESS_MAX) {
+			LONELINESS_MIN <= livingNeighbors && livingNeighbors <= LONELINESS_MAX) {
 			return false;
 		}
 		
@@ -287,62 +435,576 @@ public class GameOfLife {
 	
 	/**
 	 * Updates the states of all Cells to the next generation and increment the generation number by 1.
+	 * Every registered observer is notified of the new generation.
 	 */
 	public void nextGen() {
-//		Make a new GameBoard and copy! Otherwise, the Cells are not updated simultaneously and former updates will affect 
-//		the calculation for other Cells in the same generation, causing inaccurate results. 
-		
-		GameBoard nextGen = new GameBoard(getWidth(), getHeight());
-		for (int i = 0; i < getWidth(); i++) {
-			for (int j = 0; j < getHeight(); j++) {
-				if (willBeAlive(i, j)) {
-					nextGen.setPiece(i, j, new Cell(Cell.ALIVE));
-				}
-				else {
-					nextGen.setPiece(i, j, new Cell(Cell.DEAD));
+		advance(1);
+	}
+	
+	/**
+	 * Computes a number of generations back to back and increments the generation number by that number. 
+	 * 
+	 * Every registered observer is notified of the generation reached at the end. While the generations in between are 
+	 * computed, each observer is also notified at most once per the interval it was registered with, so that a long 
+	 * fast forward runs at the speed of the stepping code rather than at the speed of its observers. If the number of 
+	 * generations is not positive, this method performs no action.
+	 * 
+	 * @param generations the number of generations to advance by
+	 */
+	public void advance(int generations) {
+		int done = 0;
+		while (done < generations) {
+			BitGrid before = cellsBeforeReplacing();
+			int chunk = 1;
+			if (tiledStepper != null && engine instanceof BitGridEngine && ((BitGridEngine) engine).isConway()) {
+				chunk = Math.min(tiledStepper.getDepth(), generations - done);
+				beginStatistics(gen + chunk);
+				BitGridEngine bits = (BitGridEngine) engine;
+				bits.setGrid(tiledStepper.advance(bits.grid(), chunk, statistics));
+				gen += chunk;
+			}
+			else {
+				step();
+				adaptEngine();
+			}
+			done += chunk;
+			
+			// Counted as they are computed, so that edits made by the observers in between are journaled in order
+			if (journal != null) {
+				journal.steps(chunk);
+			}
+			fireChanges(before);
+			if (done < generations && !observers.isEmpty()) {
+				notifyObservers(false);
+			}
+		}
+		if (generations > 0) {
+			notifyObservers(true);
+		}
+	}
+	
+	/**
+	 * Turns tiled stepping on or off. With tiled stepping on, advance() computes up to TiledStepper.DEPTH_DEFAULT 
+	 * generations per pass over the board, advancing one cache-sized tile of the board at a time, which is faster on 
+	 * boards much larger than the processor caches. The generations computed are exactly the same either way; observers 
+	 * are only notified of the generations at the end of a pass. Tiled stepping works on the bit-grid engine, so while 
+	 * it is on the engine is not chosen automatically, and an engine set with setEngine() steps on its own. 
+	 * 
+	 * It is left out of the public interface: the bit-grid kernel is bound by computation rather than by memory, so 
+	 * tiling has measured no more than about 1.2 times as fast, even on boards larger than the last-level cache. 
+	 * 
+	 * @param enabled whether to use tiled stepping
+	 */
+	void setTiledStepping(boolean enabled) {
+		tiledStepper = enabled ? new TiledStepper() : null;
+		if (automaticEngine) {
+			installCells(engine.snapshot());
+		}
+	}
+	
+	/**
+	 * @return whether tiled stepping is on
+	 */
+	boolean isTiledStepping() {
+		return tiledStepper != null;
+	}
+	
+	/*
+	 * Updates the states of all Cells to the next generation and increments the generation number by 1, without 
+	 * notifying observers. The statistics collectors are fed in the same pass.
+	 */
+	private void step() {
+		beginStatistics(gen + 1);
+		if (engine instanceof BitGridEngine && ((BitGridEngine) engine).isConway()) {
+			BitGridEngine bits = (BitGridEngine) engine;
+			bits.setGrid(BitKernel.step(bits.grid(), statistics));
+		}
+		else if (statistics.isEmpty()) {
+			engine.step();
+		}
+		else {
+			// Other engines know nothing of collectors, so they are fed from copies of the board before and after
+			BitGrid before = engine.snapshot();
+			engine.step();
+			BitGrid after = engine.snapshot();
+			int wordsPerRow = after.wordsPerRow();
+			for (int y = 0; y < getHeight(); y++) {
+				for (StatisticsCollector collector : statistics) {
+					collector.acceptWords(y, 0, before.words(), after.words(), y * wordsPerRow, wordsPerRow);
 				}
 			}
 		}
+		gen++;
+	}
+	
+	/*
+	 * Keeps the engine suited to a board edited one Cell at a time. A Cell born on the sparse engine moves the board to 
+	 * the bit-grid engine at once if the population has crossed EngineType.SPARSE_LEAVE_DENSITY, since each insertion 
+	 * into the sparse engine's sorted array costs more as the board fills; the population is a field there, so this 
+	 * costs nothing. Edits on the bit-grid engine, whose population is counted by scanning, have the density checked 
+	 * after the next generation instead.
+	 */
+	private void cellEdited(boolean alive) {
+		if (!automaticEngine || tiledStepper != null) {
+			return;
+		}
+		if (engineType == EngineType.SPARSE) {
+			if (alive && engine.population() > (long) getWidth() * getHeight() * EngineType.SPARSE_LEAVE_DENSITY) {
+				checkEngine();
+			}
+		}
+		else {
+			engineCheckDue = true;
+		}
+	}
+	
+	/*
+	 * Every ENGINE_CHECK_INTERVAL generations, and after the first generation following a fill, paste or other edit, 
+	 * moves the Cells between the bit-grid and sparse engines if the density of the board has crossed a threshold of 
+	 * EngineType.adapt(). Since the thresholds lie four times apart, a switch is only undone once the population has 
+	 * changed by that much, so the checks and the switches cost a small fraction of the generations in between.
+	 */
+	private void adaptEngine() {
+		if (!automaticEngine || tiledStepper != null || 
+				!engineCheckDue && ++generationsSinceEngineCheck < ENGINE_CHECK_INTERVAL) {
+			return;
+		}
+		checkEngine();
+	}
+	
+	/*
+	 * Moves the Cells to the engine EngineType.adapt() chooses for the density of the board, if it is another one
+	 */
+	private void checkEngine() {
+		generationsSinceEngineCheck = 0;
+		engineCheckDue = false;
+		long population = engine.population();
+		EngineType type = EngineType.adapt(engineType, getWidth(), getHeight(), population, EngineType.CONWAY);
+		if (type == engineType) {
+			return;
+		}
 		
-		board = nextGen;
+		long start = System.nanoTime();
+		LifeEngine next = type.create(getWidth(), getHeight(), EngineType.CONWAY);
+		if (next instanceof BitGridEngine) {
+			((BitGridEngine) next).setGrid(engine.snapshot());
+		}
+		else {
+			next.load(cells());
+		}
+		EngineSwitch record = new EngineSwitch(gen, engine.getName(), next.getName(), population, 
+				System.nanoTime() - start);
+		engine = next;
+		engineType = type;
 		
-		gen++;
+		engineSwitchCount++;
+		engineSwitchNanos += record.getNanos();
+		synchronized (engineSwitches) {
+			if (engineSwitches.size() == ENGINE_SWITCHES_KEPT) {
+				engineSwitches.removeFirst();
+			}
+			engineSwitches.addLast(record);
+		}
 	}
 	
 	/**
-	 * @return the number of living Cells currently on the game board.
+	 * @return the latest switches between engines made while advancing, oldest first; at most 32 are kept
 	 */
-	public int countLivingCells() {
-		int livingCells = 0;
-		
-		for (int i = 0; i < getWidth(); i++) {
-			for (int j = 0; j < getHeight(); j++) {
-				if (isAlive(i, j)) {
-					livingCells++;
-				}
+	public List<EngineSwitch> getEngineSwitches() {
+		synchronized (engineSwitches) {
+			return new ArrayList<>(engineSwitches);
+		}
+	}
+	
+	/**
+	 * @return the number of switches between engines made while advancing
+	 */
+	public int getEngineSwitchCount() {
+		return engineSwitchCount;
+	}
+	
+	/**
+	 * @return the total time spent moving Cells between engines while advancing, in nanoseconds
+	 */
+	public long getEngineSwitchNanos() {
+		return engineSwitchNanos;
+	}
+	
+	/*
+	 * Tells the statistics collectors that a generation is about to be computed
+	 */
+	private void beginStatistics(int nextGen) {
+		for (StatisticsCollector collector : statistics) {
+			collector.begin(nextGen, getWidth(), getHeight());
+		}
+	}
+	
+	/**
+	 * Registers a statistics collector to be fed every generation computed from now on, in the same pass over the board 
+	 * that computes it. With tiled stepping on, the collector is fed only the last generation of each pass. 
+	 * 
+	 * @param collector the collector to register
+	 */
+	public void addStatistics(StatisticsCollector collector) {
+		statistics.add(collector);
+	}
+	
+	/**
+	 * Unregisters a statistics collector. If the collector is not registered, this method performs no action.
+	 * 
+	 * @param collector the collector to unregister
+	 */
+	public void removeStatistics(StatisticsCollector collector) {
+		statistics.remove(collector);
+	}
+	
+	/**
+	 * Registers an observer to be notified as generations are computed. Observers are notified at the end of every call to 
+	 * nextGen() or advance(), and at most once per the interval given while advance() computes the generations in between.
+	 * 
+	 * @param observer the observer to register
+	 * @param minIntervalMillis the minimum time between notifications in the middle of an advance(), in milliseconds; 
+	 * for a display this is typically the duration of one frame 
+	 */
+	public void addObserver(GenerationObserver observer, long minIntervalMillis) {
+		observers.add(new ObserverRegistration(observer, minIntervalMillis));
+	}
+	
+	/**
+	 * Unregisters an observer. If the observer is not registered, this method performs no action.
+	 * 
+	 * @param observer the observer to unregister
+	 */
+	public void removeObserver(GenerationObserver observer) {
+		observers.removeIf(registration -> registration.observer == observer);
+	}
+	
+	/*
+	 * Notifies the observers whose interval has elapsed since they were last notified, or all of them if always is true
+	 */
+	private void notifyObservers(boolean always) {
+		long now = System.nanoTime();
+		for (ObserverRegistration registration : observers) {
+			if (always || now - registration.lastNotified >= registration.minIntervalNanos) {
+				registration.lastNotified = now;
+				registration.observer.generationAdvanced(this);
 			}
 		}
-		
-		return livingCells;
+	}
+	
+	/**
+	 * Begins a batch of edits. The edits change the board at once, and change listeners are told of them together when 
+	 * the batch is flushed or committed. 
+	 * 
+	 * @return the transaction to make the edits through
+	 */
+	public EditTransaction beginEdit() {
+		return new EditTransaction(this);
+	}
+	
+	/*
+	 * Sets a Cell for an EditTransaction without telling the listeners, returning whether it changed
+	 */
+	boolean editCell(int x, int y, boolean alive) {
+		if (!onBoard(x, y) || engine.get(x, y) == alive) {
+			return false;
+		}
+		engine.set(x, y, alive);
+		cellEdited(alive);
+		if (journal != null) {
+			journal.cell(x, y, alive);
+		}
+		return true;
+	}
+	
+	/*
+	 * Returns whether any change listener is registered, so that an EditTransaction only records changes someone wants
+	 */
+	boolean hasChangeListeners() {
+		return !changeListeners.isEmpty();
+	}
+	
+	/*
+	 * Returns empty changes for the current generation, for an EditTransaction to fill in
+	 */
+	CellChanges newChanges() {
+		return CellChanges.obtain(changesPool, gen);
+	}
+	
+	/**
+	 * Registers a listener to be told which Cells are born and which die in every generation computed and every edit of 
+	 * the board, in place of rescanning the board for changes. With tiled stepping on, one set of changes covers all the 
+	 * generations of a pass.
+	 * 
+	 * @param listener the listener to register
+	 */
+	public void addChangeListener(CellChangeListener listener) {
+		changeListeners.add(listener);
+	}
+	
+	/**
+	 * Unregisters a change listener. If the listener is not registered, this method performs no action.
+	 * 
+	 * @param listener the listener to unregister
+	 */
+	public void removeChangeListener(CellChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+	
+	/*
+	 * Returns a copy of the Cells to compare against after an edit in place, or null if no listener needs the changes
+	 */
+	private BitGrid copyForListeners() {
+		return changeListeners.isEmpty() ? null : engine.snapshot();
+	}
+	
+	/*
+	 * Returns the Cells to compare against after a change that gives the engine a new grid rather than changing its grid 
+	 * in place, or null if no listener needs the changes. The bit-grid engine's own grid is returned without a copy.
+	 */
+	private BitGrid cellsBeforeReplacing() {
+		if (changeListeners.isEmpty()) {
+			return null;
+		}
+		return engine instanceof BitGridEngine ? ((BitGridEngine) engine).grid() : engine.snapshot();
+	}
+	
+	/*
+	 * Tells the change listeners how the Cells differ from an earlier state, if there are listeners and an earlier state
+	 */
+	private void fireChanges(BitGrid before) {
+		if (before != null && !changeListeners.isEmpty()) {
+			fireChanges(CellChanges.diff(changesPool, gen, before, cells()));
+		}
+	}
+	
+	/*
+	 * Hands changes to the change listeners, then releases them
+	 */
+	void fireChanges(CellChanges changes) {
+		try {
+			for (CellChangeListener listener : changeListeners) {
+				listener.cellsChanged(changes);
+			}
+		} finally {
+			changes.release();
+		}
+	}
+	
+	/**
+	 * Starts recording the game to a journal, from which ReplayJournal.replay() can rebuild any generation reached from 
+	 * now on. The journal is first given the board as it is, then every edit, random setup and generation computed. 
+	 * Recording to another journal stops, and the journal is left open. If the journal is null, recording stops.
+	 * 
+	 * @param journal the journal to record to, or null to stop recording
+	 */
+	public void setJournal(ReplayJournal journal) {
+		this.journal = journal;
+		if (journal != null) {
+			journal.start(getWidth(), getHeight(), gen, cells());
+		}
+	}
+	
+	/**
+	 * @return the journal the game is being recorded to, or null if it is not being recorded
+	 */
+	public ReplayJournal getJournal() {
+		return journal;
+	}
+	
+	/*
+	 * Replaces all Cells and the generation number for a ReplayJournal being replayed, telling the change listeners
+	 */
+	void restore(BitGrid cells, int gen) {
+		BitGrid before = cellsBeforeReplacing();
+		BitGrid copy = new BitGrid(getWidth(), getHeight());
+		copy.paste(cells, 0, 0, PasteMode.REPLACE);
+		installCells(copy);
+		this.gen = gen;
+		fireChanges(before);
+	}
+	
+	/**
+	 * @return a copy of the Cells currently on the game board, which is not affected by later changes to the game
+	 */
+	public BitGrid snapshot() {
+		return engine.snapshot();
+	}
+	
+	/**
+	 * Freezes the current generation into a snapshot that other threads may read while the game goes on. On the bit-grid 
+	 * engine this takes constant time, and the Cells are only copied if the board is edited before the next generation; 
+	 * on other engines the Cells are copied now. Like other calls on the game, this must not run while the game is 
+	 * advancing on another thread, but it may be called from a GenerationObserver.
+	 * 
+	 * @return the snapshot
+	 */
+	public BoardSnapshot freeze() {
+		BitGrid cells = engine instanceof BitGridEngine ? ((BitGridEngine) engine).share() : engine.snapshot();
+		return new BoardSnapshot(cells, gen);
+	}
+	
+	/**
+	 * Sets the engine that holds and steps the Cells, in place of the one chosen automatically, and copies the Cells into 
+	 * it. The engine must have the dimension of the board and play Conway's Game of Life; engines of another dimension 
+	 * are ignored. If the engine is null, the engine is chosen automatically again, as described in EngineType.select(), 
+	 * each time the whole board is replaced, as by randomSetup() and clear(); and while advancing, the Cells are moved 
+	 * between the bit-grid and sparse engines as the density of the board rises and falls, as described in 
+	 * EngineType.adapt(). 
+	 * 
+	 * @param engine the engine to use, such as one made by EngineType.create(), or null to choose automatically
+	 */
+	public void setEngine(LifeEngine engine) {
+		if (engine == null) {
+			automaticEngine = true;
+			installCells(this.engine.snapshot());
+		}
+		else if (engine.getWidth() == getWidth() && engine.getHeight() == getHeight()) {
+			engine.load(this.engine.snapshot());
+			this.engine = engine;
+			engineType = null;
+			automaticEngine = false;
+		}
+	}
+	
+	/**
+	 * @return the name of the engine holding the Cells, such as "bit-grid" or "sparse"
+	 */
+	public String getEngineName() {
+		return engine.getName();
+	}
+	
+	/**
+	 * @return whether the engine is chosen automatically, rather than set with setEngine()
+	 */
+	public boolean isEngineAutomatic() {
+		return automaticEngine;
+	}
+	
+	/*
+	 * Replaces all Cells with a grid the caller hands over, first choosing the engine for them if it is chosen 
+	 * automatically; the bit-grid engine keeps the grid itself
+	 */
+	private void installCells(BitGrid cells) {
+		if (automaticEngine) {
+			int population = cells.population();
+			// An empty board goes to the bit-grid engine, since it is about to be filled far more often than not; the 
+			// first check after it is stepped moves it to the sparse engine if it is still nearly empty
+			EngineType type = tiledStepper != null || population == 0 ? EngineType.BIT_GRID : 
+					EngineType.select(cells.getWidth(), cells.getHeight(), population, EngineType.CONWAY);
+			engineCheckDue |= population == 0;
+			if (type != engineType) {
+				engine = type.create(cells.getWidth(), cells.getHeight(), EngineType.CONWAY);
+				engineType = type;
+			}
+		}
+		if (engine instanceof BitGridEngine) {
+			((BitGridEngine) engine).setGrid(cells);
+		}
+		else {
+			engine.load(cells);
+		}
+	}
+	
+	/*
+	 * Returns the Cells as a BitGrid to read: the bit-grid engine's own grid, or a copy of the Cells of any other engine. 
+	 * To change the Cells in place, use cellsForEdit() instead.
+	 */
+	private BitGrid cells() {
+		return engine instanceof BitGridEngine ? ((BitGridEngine) engine).grid() : engine.snapshot();
+	}
+	
+	/*
+	 * Returns the Cells as a BitGrid to change in place, as cells() does, first copying the bit-grid engine's grid if it 
+	 * is shared with a BoardSnapshot
+	 */
+	private BitGrid cellsForEdit() {
+		if (engine instanceof BitGridEngine) {
+			((BitGridEngine) engine).unshare();
+		}
+		return cells();
+	}
+	
+	/*
+	 * Copies a grid returned by cellsForEdit() and then changed back into the engine, unless it is the engine's own grid, and 
+	 * has the engine reconsidered for the changed density after the next generation
+	 */
+	private void storeCells(BitGrid cells) {
+		if (!(engine instanceof BitGridEngine)) {
+			engine.load(cells);
+		}
+		engineCheckDue = true;
+	}
+	
+	/*
+	 * Returns whether a location is on the game board
+	 */
+	private boolean onBoard(int x, int y) {
+		return x >= 0 && x < getWidth() && y >= 0 && y < getHeight();
+	}
+	
+	/**
+	 * Counts the objects currently on the game board, such as blocks, blinkers and gliders, as described in ObjectCensus. 
+	 * 
+	 * @return the number of each object found, by name
+	 */
+	public Map<String, Integer> census() {
+		return ObjectCensus.take(cells());
+	}
+	
+	/**
+	 * @return the number of living Cells currently on the game board.
+	 */
+	public int countLivingCells() {
+		return engine.population();
 	}
 	
 	/**
 	 * Sets the game board to a random setup, and resets the generation number to 0.
 	 */
 	public void randomSetup() {
-		Random generator = new Random();
+		randomSetup(new Random().nextLong());
+	}
+	
+	/**
+	 * Sets the game board to the random setup given by a seed, and resets the generation number to 0. The same seed 
+	 * always gives the same setup on a board of the same dimension, so a journal only has to record the seed.
+	 * 
+	 * @param seed the seed of the random setup
+	 */
+	public void randomSetup(long seed) {
+		Random generator = new Random(seed);
+		BitGrid before = cellsBeforeReplacing();
+		BitGrid cells = new BitGrid(getWidth(), getHeight());
 		for (int i = 0; i < getWidth(); i++) {
 			for (int j = 0; j < getHeight(); j++) {
 				if (generator.nextBoolean()) {
-					setAlive(i, j);
-				}
-				else {
-					setDead(i, j);
+					cells.set(i, j, true);
 				}
 			}
 		}
+		installCells(cells);
 		
 		gen = 0;
+		if (journal != null) {
+			journal.random(seed);
+		}
+		fireChanges(before);
+	}
+	
+	/*
+	 * An observer together with how often it may be notified in the middle of an advance()
+	 */
+	private static class ObserverRegistration {
+		private final GenerationObserver observer;
+		private final long minIntervalNanos;
+		private long lastNotified;
+		
+		private ObserverRegistration(GenerationObserver observer, long minIntervalMillis) {
+			this.observer = observer;
+			this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+			this.lastNotified = System.nanoTime();
+		}
 	}
 	
 	/*
@@ -524,6 +1186,12 @@ public class GameOfLife {
 		
 		System.out.println("The board now looks like: ");
 		System.out.println(game);
+		System.out.println("In compact text form it is: ");
+		try {
+			game.writeTo(System.out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 		System.out.println("There is/are " + game.countLivingCells() + " living cell(s) on the board right now.");
 		
 		System.out.println();
@@ -569,6 +1237,63 @@ public class GameOfLife {
 		System.out.println("The game proceeds to the next generation.\nThe game is now at generation " + game.getGen() + ".");
 		System.out.println("The game board now looks like:\n" + game);
 		
+		System.out.println();
+		game.fillRegion(0, 0, game.getWidth(), game.getHeight(), Cell.DEAD);
+		game.stamp(BitGrid.fromText("OO\nOO"), 1, 1);
+		System.out.println("The board is filled with dead Cells and a block is stamped at (1,1):\n" + game);
+		BitGrid corner = game.copyRegion(0, 0, 2, 2);
+		game.paste(corner, 0, 0, PasteMode.XOR);
+		System.out.println("The 2 * 2 region at (0,0) is copied and pasted back onto itself with XOR:\n" + game);
+		System.out.println("There is/are " + game.countLivingCells() + " living cell(s) on the board right now.");
+		
+		System.out.println();
+		CellChangeListener printer = new CellChangeListener() {
+			@Override
+			public void cellsChanged(CellChanges changes) {
+				System.out.println(changes);
+			}
+		};
+		game.addChangeListener(printer);
+		game.nextGen();
+		game.changeState(0, 0);
+		game.removeChangeListener(printer);
+		System.out.println("The changes above are from one more generation and from changing the state of (0,0).");
+		game.addChangeListener(printer);
+		EditTransaction edit = game.beginEdit();
+		for (int i = 0; i < Math.min(game.getWidth(), game.getHeight()); i++) {
+			edit.toggle(i, i);
+		}
+		edit.commit();
+		game.removeChangeListener(printer);
+		System.out.println("The changes above are from toggling the diagonal in one edit transaction, which changed the " +
+				"population by " + edit.getPopulationChange() + " within (" + edit.getDirtyMinX() + "," + 
+				edit.getDirtyMinY() + ") to (" + edit.getDirtyMaxX() + "," + edit.getDirtyMaxY() + ").");
+		
+		System.out.println();
+		int[] notifications = new int[1];
+		GenerationObserver counter = new GenerationObserver() {
+			@Override
+			public void generationAdvanced(GameOfLife game) {
+				notifications[0]++;
+			}
+		};
+		game.addObserver(counter, 1000);
+		game.advance(1000);
+		game.removeObserver(counter);
+		System.out.println("The game advances by 1000 generations and is now at generation " + game.getGen() + ".");
+		System.out.println("An observer registered with an interval of one second was notified " + notifications[0] + 
+				" time(s).");
+		
+		System.out.println();
+		PopulationStatistics population = new PopulationStatistics();
+		BoundingBoxStatistics boundingBox = new BoundingBoxStatistics();
+		game.addStatistics(population);
+		game.addStatistics(boundingBox);
+		game.nextGen();
+		game.removeStatistics(population);
+		game.removeStatistics(boundingBox);
+		System.out.println("Statistics gathered while computing one more generation: " + population + "; " + boundingBox);
+		
 		System.out.println();
 		game.clear();
 		System.out.println("The game board is now cleared.\n" + game);
@@ -577,6 +1302,9 @@ public class GameOfLife {
 		System.out.println();
 		game.randomSetup();
 		System.out.println("The game board is given a random setup.\n" + game);
+		game.advance(200);
+		System.out.println("After 200 generations the objects on the board are " + game.census());
+		System.out.println("The board is held by the " + game.getEngineName() + " engine.");
 		System.out.println("The game is now at generation " + game.getGen());
 	}
 
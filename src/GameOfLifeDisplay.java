@@ -1,13 +1,15 @@
 import java.awt.BorderLayout;
+import java.awt.DisplayMode;
 import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.event.MouseWheelEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -20,23 +22,33 @@ import javax.swing.event.ChangeListener;
 import javax.swing.event.ChangeEvent;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.JSpinner;
+import javax.swing.SwingWorker;
 import java.awt.GridLayout;
 import java.awt.FlowLayout;
+import java.awt.Component;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Displays generations of John Conway's Game of Life.
  * Allows a user of the program to step through one generation at a time or to run the generations based on a timer.
  */
 public class GameOfLifeDisplay extends JFrame {
-
+	
 	private JPanel contentPane;
 	private JLabel txtGeneration = new JLabel();
 	private JLabel txtCellsAlive = new JLabel();
+	private JLabel txtSpeed = new JLabel();
 	private GameOfLife game;
 	private static final int GAME_WIDTH_MIN = 1, GAME_WIDTH_MAX = 1000, GAME_WIDTH_DEFAULT = 50;
 	private static final int GAME_HEIGHT_MIN = 1, GAME_HEIGHT_MAX = 1000, GAME_HEIGHT_DEFAULT = 30;
 	private static final int GRID_WIDTH_DEFAULT = 15, GRID_HEIGHT_DEFAULT = 15;
-
+	private static final int FAST_FORWARD_MIN = 1, FAST_FORWARD_MAX = 1000000, FAST_FORWARD_DEFAULT = 1000;
+	private static final int FRAME_INTERVAL_MS = 16;  // the board is redrawn at most this often while fast forwarding
+	private static final long CHUNK_TARGET_NANOS = 8000000;  // how long each advance() at max speed should take
+	private static final int CHUNK_MAX = 1 << 20;
+	private static final long SPEED_INTERVAL_NANOS = 500000000;  // how often the speed shown at max speed is updated
+	
 	/*
 	 * Launch the application.
 	 */
@@ -52,7 +64,7 @@ public class GameOfLifeDisplay extends JFrame {
 			}
 		});
 	}
-
+	
 	/*
 	 * Create the frame. Adds a button panel to the frame and initializes the usage of each button.
 	 */
@@ -82,6 +94,7 @@ public class GameOfLifeDisplay extends JFrame {
 		 */
 		JPanel boardPanel = new BoardPanel(game, GRID_WIDTH_DEFAULT, GRID_HEIGHT_DEFAULT);
 		contentPane.add(boardPanel, BorderLayout.CENTER);
+		game.addChangeListener((BoardPanel) boardPanel);  // the panel repaints the Cells that change by itself
 		
 		/*
 		 * Resizes the grids every time the window is resized so that the game board always fills the panel.
@@ -99,13 +112,11 @@ public class GameOfLifeDisplay extends JFrame {
 		 * Creates a Timer and defines what will occur when it is run when the user clicks the "start" button
 		 */
 		Timer timer = new Timer(700, new ActionListener(){
-
+			
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
 				game.nextGen();
 				txtGeneration.setText("Generation " + game.getGen());
-				txtCellsAlive.setText("Cells Alive: " + game.countLivingCells());
-				repaint();
 			}
 			
 		});
@@ -119,8 +130,6 @@ public class GameOfLifeDisplay extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				game.randomSetup(); 
 				txtGeneration.setText("Generation " + game.getGen());
-				txtCellsAlive.setText("Cells Alive: " + game.countLivingCells());
-				repaint();
 			}
 		});
 		buttonPanelTop.setLayout(new FlowLayout(FlowLayout.CENTER, 5, 5));
@@ -135,8 +144,6 @@ public class GameOfLifeDisplay extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				game.nextGen();  // The game goes to the next generation
 				txtGeneration.setText("Generation " + game.getGen());  // Updates the generation number label 
-				txtCellsAlive.setText("Cells Alive: " + game.countLivingCells());  // Updates the number of cells alive on the board
-				repaint();
 			}
 		});	
 		buttonPanelTop.add(nextGenButton);
@@ -178,6 +185,154 @@ public class GameOfLifeDisplay extends JFrame {
 		});
 		buttonPanelBottom.add(sldSpeed);
 		
+		/*
+		 * Adds a spinner and a button which compute the chosen number of generations as fast as possible on a background 
+		 * thread. Meanwhile the board shows a copy of the latest generation, taken at most once per frame, and the other 
+		 * controls are disabled so that the game is not changed from two threads.
+		 */
+		JSpinner spnFastForward = new JSpinner(new SpinnerNumberModel(FAST_FORWARD_DEFAULT, FAST_FORWARD_MIN, 
+				FAST_FORWARD_MAX, 100));
+		JButton btnFastForward = new JButton("Fast Forward");
+		btnFastForward.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				timer.stop();
+				startStopButton.setText("Start");
+				beginBackgroundRun((BoardPanel) boardPanel, buttonPanelTop, buttonPanelBottom);
+				int generations = (Integer) spnFastForward.getValue();
+				
+				new SwingWorker<Void, Frame>() {
+					@Override
+					protected Void doInBackground() {
+						GenerationObserver observer = new GenerationObserver() {
+							@Override
+							public void generationAdvanced(GameOfLife game) {
+								publish(new Frame(game.freeze().cells(), game.getGen()));  // no copy on the bit-grid engine
+							}
+						};
+						game.addObserver(observer, FRAME_INTERVAL_MS);
+						try {
+							game.advance(generations);
+						} finally {
+							game.removeObserver(observer);
+						}
+						return null;
+					}
+					
+					@Override
+					protected void process(List<Frame> frames) {
+						Frame latest = frames.get(frames.size() - 1);  // frames that arrive together are skipped to the last
+						((BoardPanel) boardPanel).setSnapshot(latest.cells);
+						txtGeneration.setText("Generation " + latest.gen);
+						txtCellsAlive.setText("Cells Alive: " + latest.cells.population());
+						boardPanel.repaint();  // only the panel, which clears behind itself, as at max speed
+					}
+					
+					@Override
+					protected void done() {
+						endBackgroundRun((BoardPanel) boardPanel, buttonPanelTop, buttonPanelBottom);
+					}
+				}.execute();
+			}
+		});
+		buttonPanelBottom.add(spnFastForward);
+		buttonPanelBottom.add(btnFastForward);
+		
+		/*
+		 * Adds a button which runs the game as fast as it can be computed until it is pressed again, however small the 
+		 * board. The generations are computed on a background thread in batches sized to take a few milliseconds each, 
+		 * and the board shows the latest generation once per refresh of the screen. The label next to the button shows 
+		 * the generations computed per second and the time between the frames shown.
+		 */
+		JButton btnMaxSpeed = new JButton("Max Speed");
+		btnMaxSpeed.addActionListener(new ActionListener() {
+			private SwingWorker<Void, Frame> worker;  // the run in progress, or null
+			private volatile boolean stopping;  // set to have the worker stop after its current batch
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (worker != null) {
+					stopping = true;  // not cancel(), which would call done() while the game is still being advanced
+					btnMaxSpeed.setEnabled(false);
+					return;
+				}
+				timer.stop();
+				startStopButton.setText("Start");
+				beginBackgroundRun((BoardPanel) boardPanel, buttonPanelTop, buttonPanelBottom);
+				btnMaxSpeed.setText("Stop");
+				btnMaxSpeed.setEnabled(true);
+				long frameNanos = TimeUnit.MILLISECONDS.toNanos(frameIntervalMillis());
+				stopping = false;
+				
+				worker = new SwingWorker<Void, Frame>() {
+					private long meterNanos = System.nanoTime(), framesShown;
+					private int meterGen = game.getGen();
+					
+					@Override
+					protected Void doInBackground() {
+						GenerationObserver observer = new GenerationObserver() {
+							private long lastPublished = System.nanoTime() - frameNanos;
+							
+							@Override
+							public void generationAdvanced(GameOfLife game) {
+								long now = System.nanoTime();
+								if (now - lastPublished >= frameNanos) {  // not at the end of every batch, only once a frame
+									lastPublished = now;
+									publish(new Frame(game.freeze().cells(), game.getGen()));
+								}
+							}
+						};
+						game.addObserver(observer, TimeUnit.NANOSECONDS.toMillis(frameNanos));
+						try {
+							int chunk = 1;
+							while (!stopping && game.getGen() < Integer.MAX_VALUE) {  // a small board reaches it in minutes
+								long start = System.nanoTime();
+								game.advance(Math.min(chunk, Integer.MAX_VALUE - game.getGen()));
+								long nanos = System.nanoTime() - start;
+								if (nanos < CHUNK_TARGET_NANOS / 2) {
+									chunk = Math.min(chunk * 2, CHUNK_MAX);
+								}
+								else if (nanos > CHUNK_TARGET_NANOS * 2) {
+									chunk = Math.max(chunk / 2, 1);
+								}
+							}
+						} finally {
+							game.removeObserver(observer);
+						}
+						return null;
+					}
+					
+					@Override
+					protected void process(List<Frame> frames) {
+						Frame latest = frames.get(frames.size() - 1);  // frames that arrive together are skipped to the last
+						((BoardPanel) boardPanel).setSnapshot(latest.cells);
+						txtGeneration.setText("Generation " + latest.gen);
+						txtCellsAlive.setText("Cells Alive: " + latest.cells.population());
+						boardPanel.repaint();  // only the panel, which clears behind itself
+						framesShown++;
+						long now = System.nanoTime();
+						if (now - meterNanos >= SPEED_INTERVAL_NANOS) {
+							txtSpeed.setText(String.format("%,.0f gen/s, %.1f ms/frame", 
+									(latest.gen - meterGen) * 1e9 / (now - meterNanos), (now - meterNanos) / 1e6 / framesShown));
+							meterNanos = now;
+							meterGen = latest.gen;
+							framesShown = 0;
+						}
+					}
+					
+					@Override
+					protected void done() {
+						worker = null;
+						btnMaxSpeed.setText("Max Speed");
+						endBackgroundRun((BoardPanel) boardPanel, buttonPanelTop, buttonPanelBottom);
+					}
+				};
+				worker.execute();
+			}
+		});
+		buttonPanelBottom.add(btnMaxSpeed);
+		buttonPanelBottom.add(txtSpeed);
+		
 		/*
 		 * Creates a button that clears the game board and sets the generation to 0, so that a new game can be played.
 		 * The button also stops the current game if it is running.
@@ -191,7 +346,6 @@ public class GameOfLifeDisplay extends JFrame {
 				txtGeneration.setText("Generation 0"); 
 				txtCellsAlive.setText("Cells Alive: 0");
 				startStopButton.setText("Start");
-				repaint();
 			}
 		});
 		buttonPanelTop.add(btnClear);
@@ -209,17 +363,78 @@ public class GameOfLifeDisplay extends JFrame {
 		buttonPanelTop.add(txtCellsAlive);
 		
 		/*
-		 * Allows the user to toggle the state of a Cell on the game board with a mouse click
+		 * Keeps the number of cells alive up to date as the game is stepped and as the user toggles and paints Cells with 
+		 * the mouse. BoardPanel counts the population on from the Cells born and died, so the board is never rescanned.
 		 */
-		boardPanel.addMouseListener(new MouseAdapter() {
+		boardPanel.addPropertyChangeListener(BoardPanel.POPULATION_PROPERTY, new PropertyChangeListener() {
 			@Override
-			public void mouseClicked(MouseEvent e) {
-				game.changeState(e.getX() / ((BoardPanel) boardPanel).getGridWidth(), e.getY() / ((BoardPanel) boardPanel).getGridHeight());
-				txtCellsAlive.setText("Cells Alive: " + game.countLivingCells());
-				repaint();
+			public void propertyChange(PropertyChangeEvent e) {
+				txtCellsAlive.setText("Cells Alive: " + e.getNewValue());
 			}
 		});
 		
 	}
+	
+	/*
+	 * Hands the game to a background thread: disables the controls and mouse painting, and has the board show the 
+	 * frames it is given instead of repainting the Cells that change, starting with the board as it is now, so that it 
+	 * never has to read the game while the thread runs
+	 */
+	private void beginBackgroundRun(BoardPanel boardPanel, JPanel... panels) {
+		setControlsEnabled(false, panels);
+		boardPanel.setEditable(false);
+		game.removeChangeListener(boardPanel);  // the panel shows whole frames until done
+		boardPanel.setSnapshot(game.freeze().cells());
+	}
+	
+	/*
+	 * Takes the game back from a background thread, and shows it as it was left
+	 */
+	private void endBackgroundRun(BoardPanel boardPanel, JPanel... panels) {
+		boardPanel.setEditable(true);
+		boardPanel.setSnapshot(null);  // fires the population the game was left with
+		game.addChangeListener(boardPanel);
+		txtGeneration.setText("Generation " + game.getGen());
+		setControlsEnabled(true, panels);
+		repaint();
+	}
+	
+	/*
+	 * Returns the time between refreshes of the screen, in milliseconds, or FRAME_INTERVAL_MS if it is not known
+	 */
+	private static long frameIntervalMillis() {
+		if (GraphicsEnvironment.isHeadless()) {
+			return FRAME_INTERVAL_MS;
+		}
+		DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode();
+		int hertz = mode.getRefreshRate();
+		return hertz == DisplayMode.REFRESH_RATE_UNKNOWN ? FRAME_INTERVAL_MS : Math.max(1000 / hertz, 1);
+	}
+	
+	/*
+	 * Enables or disables every control on the given panels, leaving the labels as they are
+	 */
+	private static void setControlsEnabled(boolean enabled, JPanel... panels) {
+		for (JPanel panel : panels) {
+			for (Component control : panel.getComponents()) {
+				if (!(control instanceof JLabel)) {
+					control.setEnabled(enabled);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * A copy of the Cells of one generation, handed from the fast forward thread to the event dispatch thread
+	 */
+	private static class Frame {
+		private final BitGrid cells;
+		private final int gen;
+		
+		private Frame(BitGrid cells, int gen) {
+			this.cells = cells;
+			this.gen = gen;
+		}
+	}
 
 }
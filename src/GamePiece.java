@@ -43,6 +43,19 @@ public abstract class GamePiece {
 		return "" + value;
 	}
 	
+	/**
+	 * @return a single character representing this GamePiece in the compact text form of a GameBoard, which is its value
+	 * as a base-36 digit, or '?' if the value has no single-digit representation
+	 */
+	public char toChar() {
+		if (0 <= value && value < 36) {
+			return Character.forDigit(value, 36);
+		}
+		else {
+			return '?';
+		}
+	}
+	
 	/**
 	 * @return a clone of this GamePiece
 	 */
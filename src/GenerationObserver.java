@@ -0,0 +1,16 @@
+/**
+ * An observer of the generations computed by a GameOfLife, such as a display, a statistics recorder or an exporter.
+ * Observers are registered with GameOfLife.addObserver together with the minimum interval between notifications.
+ */
+public interface GenerationObserver {
+	
+	/**
+	 * Called on the thread that advanced the game, after the game has moved on to a new generation. The game must not be
+	 * changed from within this method; an observer that hands the state to another thread should copy it first, for
+	 * example with GameOfLife.snapshot().
+	 *
+	 * @param game the game whose generation has advanced
+	 */
+	void generationAdvanced(GameOfLife game);
+
+}
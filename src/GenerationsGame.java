@@ -0,0 +1,359 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A game of a multi-state Generations rule, such as Brian's Brain or Star Wars, on a rectangular board. The Cells are
+ * held in bit planes laid out as in BitGrid, one bit per Cell: one plane of the living Cells, and for the dying Cells
+ * the number of generations each has left before it is dead, in binary across as few planes as the rule needs. A
+ * generation is computed 64 Cells at a time: the living neighbours are counted with the bitwise adders of BitKernel,
+ * the births and survivals are picked out of the count bits, and the dying Cells count down with a bitwise borrow.
+ * Cells off the board are dead, as in GameOfLife.
+ */
+public class GenerationsGame {
+	
+	private final int width, height, wordsPerRow;
+	private final long lastWordMask;
+	private final long[] deadRow;  // stands in for the rows above the first and below the last
+	private GenerationsRule rule;
+	private long[] alive, nextAlive;
+	private long[][] dying;  // bit p of the generations left to each dying Cell, 0 for Cells that are not dying
+	private int gen;
+	
+	/**
+	 * Constructs a GenerationsGame with all Cells dead. The width and height must be positive; if they are not, the board
+	 * is 20 * 20. If the rule is null, Conway's Game of Life, B3/S23/C2, is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public GenerationsGame(int width, int height, GenerationsRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		this.width = width;
+		this.height = height;
+		wordsPerRow = (width + 63) >>> 6;
+		lastWordMask = BitKernel.lastWordMask(width);
+		deadRow = new long[wordsPerRow];
+		this.rule = rule != null ? rule : GenerationsRule.parse("B3/S23");
+		alive = new long[height * wordsPerRow];
+		nextAlive = new long[alive.length];
+		dying = planes(this.rule);
+	}
+	
+	/**
+	 * @return the width of the board
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return the height of the board
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * @return the current generation number
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the rule being played
+	 */
+	public GenerationsRule getRule() {
+		return rule;
+	}
+	
+	/**
+	 * Changes the rule being played. States the new rule does not have become dead. If the rule is null, this method
+	 * performs no action.
+	 *
+	 * @param rule the rule to play
+	 */
+	public void setRule(GenerationsRule rule) {
+		if (rule == null) {
+			return;
+		}
+		
+		// The generations left to a dying Cell depend on the number of states, so the states are read out and put back
+		byte[] states = new byte[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				states[y * width + x] = (byte) getState(x, y);
+			}
+		}
+		this.rule = rule;
+		dying = planes(rule);
+		Arrays.fill(alive, 0);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				setState(x, y, states[y * width + x] & 0xFF);
+			}
+		}
+	}
+	
+	/*
+	 * Makes the planes of the generations left to dying Cells for a rule: enough to hold the states minus 2, which a
+	 * Cell has left when it stops being alive
+	 */
+	private long[][] planes(GenerationsRule rule) {
+		return new long[32 - Integer.numberOfLeadingZeros(rule.getStates() - 2)][height * wordsPerRow];
+	}
+	
+	/**
+	 * @param x the x-coordinate of a Cell
+	 * @param y the y-coordinate of a Cell
+	 * @return the state of the Cell, or 0 (dead) if it is off the board
+	 */
+	public int getState(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return 0;
+		}
+		int index = y * wordsPerRow + (x >>> 6);
+		long bit = 1L << x;
+		if ((alive[index] & bit) != 0) {
+			return 1;
+		}
+		int left = 0;
+		for (int p = 0; p < dying.length; p++) {
+			left |= (dying[p][index] & bit) != 0 ? 1 << p : 0;
+		}
+		return left == 0 ? 0 : rule.getStates() - left;
+	}
+	
+	/**
+	 * Sets the state of a Cell. If the Cell is off the board, this method performs no action; if the state is not one of
+	 * the rule's, the Cell becomes dead.
+	 *
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param state the new state
+	 */
+	public void setState(int x, int y, int state) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return;
+		}
+		int index = y * wordsPerRow + (x >>> 6);
+		long bit = 1L << x;
+		int left = state >= 2 && state < rule.getStates() ? rule.getStates() - state : 0;
+		alive[index] = state == 1 ? alive[index] | bit : alive[index] & ~bit;
+		for (int p = 0; p < dying.length; p++) {
+			dying[p][index] = (left >>> p & 1) != 0 ? dying[p][index] | bit : dying[p][index] & ~bit;
+		}
+	}
+	
+	/**
+	 * Updates the states of all Cells to the next generation and increments the generation number by 1.
+	 */
+	public void nextGen() {
+		int births = rule.getBirths(), survivals = rule.getSurvivals();
+		long start = rule.getStates() - 2;  // the generations left to a Cell that has just stopped being alive
+		for (int r = 0; r < height; r++) {
+			int row = r * wordsPerRow;
+			long[] aboveRows = r > 0 ? alive : deadRow, belowRows = r < height - 1 ? alive : deadRow;
+			int above = r > 0 ? row - wordsPerRow : 0, below = r < height - 1 ? row + wordsPerRow : 0;
+			
+			// Slide a window of three words along the three rows, as BitKernel does
+			long aPrev = 0, a = aboveRows[above];
+			long cPrev = 0, c = alive[row];
+			long bPrev = 0, b = belowRows[below];
+			for (int w = 0; w < wordsPerRow; w++) {
+				long aNext = 0, cNext = 0, bNext = 0;
+				if (w + 1 < wordsPerRow) {
+					aNext = aboveRows[above + w + 1];
+					cNext = alive[row + w + 1];
+					bNext = belowRows[below + w + 1];
+				}
+				
+				// The living neighbour count as ones, twos, fours and eights bits
+				long aWest = (a << 1) | (aPrev >>> 63), aEast = (a >>> 1) | (aNext << 63);
+				long cWest = (c << 1) | (cPrev >>> 63), cEast = (c >>> 1) | (cNext << 63);
+				long bWest = (b << 1) | (bPrev >>> 63), bEast = (b >>> 1) | (bNext << 63);
+				long aOnes = aWest ^ a ^ aEast, aTwos = (aWest & a) | (aEast & (aWest ^ a));
+				long cOnes = cWest ^ cEast, cTwos = cWest & cEast;
+				long bOnes = bWest ^ b ^ bEast, bTwos = (bWest & b) | (bEast & (bWest ^ b));
+				long ones = aOnes ^ cOnes ^ bOnes;
+				long onesCarry = (aOnes & cOnes) | (bOnes & (aOnes ^ cOnes));
+				long twosA = aTwos ^ cTwos, twosACarry = aTwos & cTwos;
+				long twosB = bTwos ^ onesCarry, twosBCarry = bTwos & onesCarry;
+				long twos = twosA ^ twosB, twosCarry = twosA & twosB;
+				long fours = twosACarry ^ twosBCarry ^ twosCarry;
+				long eights = (twosACarry & twosBCarry) | (twosCarry & (twosACarry ^ twosBCarry));
+				
+				// Dead Cells with a birth count are born, and living ones with a survival count stay alive
+				int index = row + w;
+				long dyingNow = 0;
+				for (long[] plane : dying) {
+					dyingNow |= plane[index];
+				}
+				long survive = c & matching(survivals, ones, twos, fours, eights);
+				long born = ~c & ~dyingNow & matching(births, ones, twos, fours, eights);
+				nextAlive[index] = (survive | born) & (w == wordsPerRow - 1 ? lastWordMask : -1L);
+				
+				// Dying Cells have one generation less left, and living Cells that do not survive start dying
+				long borrow = dyingNow, stopped = c & ~survive;
+				for (int p = 0; p < dying.length; p++) {
+					long bit = dying[p][index];
+					dying[p][index] = (bit ^ borrow) | (stopped & -(start >>> p & 1));
+					borrow &= ~bit;
+				}
+				
+				aPrev = a;
+				a = aNext;
+				cPrev = c;
+				c = cNext;
+				bPrev = b;
+				b = bNext;
+			}
+		}
+		long[] swap = alive;
+		alive = nextAlive;
+		nextAlive = swap;
+		gen++;
+	}
+	
+	/*
+	 * Picks out the Cells of a word whose living neighbour count, given as ones, twos, fours and eights bits, is in a
+	 * set of counts, bit n of the set standing for n neighbours
+	 */
+	private static long matching(int counts, long ones, long twos, long fours, long eights) {
+		long match = 0;
+		for (int rest = counts & 0x1FF; rest != 0; rest &= rest - 1) {
+			int n = Integer.numberOfTrailingZeros(rest);
+			match |= ~((ones ^ -(n & 1)) | (twos ^ -(n >>> 1 & 1)) | (fours ^ -(n >>> 2 & 1)) | (eights ^ -(n >>> 3)));
+		}
+		return match;
+	}
+	
+	/**
+	 * Computes a number of generations back to back. If the number is not positive, this method performs no action.
+	 *
+	 * @param generations the number of generations to advance by
+	 */
+	public void advance(int generations) {
+		for (int i = 0; i < generations; i++) {
+			nextGen();
+		}
+	}
+	
+	/**
+	 * @return the number of living Cells, those in state 1
+	 */
+	public int countLivingCells() {
+		int count = 0;
+		for (long word : alive) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+	
+	/**
+	 * Makes all Cells dead and resets the generation number to 0.
+	 */
+	public void clear() {
+		Arrays.fill(alive, 0);
+		for (long[] plane : dying) {
+			Arrays.fill(plane, 0);
+		}
+		gen = 0;
+	}
+	
+	/**
+	 * Gives each Cell a random state, alive or dead with equal probability, and resets the generation number to 0.
+	 */
+	public void randomSetup() {
+		Random random = new Random();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				setState(x, y, random.nextBoolean() ? 1 : 0);
+			}
+		}
+		gen = 0;
+	}
+	
+	/**
+	 * @return the board as text, one line per row: '.' for a dead Cell, 'O' for a living one, and the state as a base-36
+	 * digit for a dying one
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder((width + 1) * height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int state = getState(x, y);
+				out.append(state == 0 ? '.' : state == 1 ? 'O' : state < 36 ? Character.forDigit(state, 36) : '?');
+			}
+			out.append('\n');
+		}
+		return out.toString();
+	}
+	
+	/*
+	 * Tests the Generations rules, and measures stepping against the two-state paths of GameOfLife
+	 */
+	public static void main(String[] args) {
+		for (String text : new String[] {"B2/S/C3", "b2/s345/c4", "345/2/4", "B3/S23", "B3/S23/C1", "B9/S", "nonsense"}) {
+			System.out.println("\"" + text + "\" reads as " + GenerationsRule.parse(text));
+		}
+		
+		GenerationsGame brain = new GenerationsGame(12, 6, GenerationsRule.parse("B2/S/C3"));
+		brain.setState(5, 2, 1);
+		brain.setState(6, 2, 1);
+		brain.setState(5, 3, 1);
+		brain.setState(6, 3, 1);
+		System.out.println("\nA 2 * 2 block of living Cells in Brian's Brain:\n" + brain);
+		brain.advance(2);
+		System.out.println("Two generations later (2 is dying):\n" + brain);
+		
+		GenerationsGame life = new GenerationsGame(60, 40, null);
+		GameOfLife reference = new GameOfLife(60, 40);
+		reference.randomSetup();
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 60; x++) {
+				life.setState(x, y, reference.isAlive(x, y) ? 1 : 0);
+			}
+		}
+		life.advance(100);
+		reference.advance(100);
+		boolean same = true;
+		for (int y = 0; y < 40; y++) {
+			for (int x = 0; x < 60; x++) {
+				same &= (life.getState(x, y) == 1) == reference.isAlive(x, y);
+			}
+		}
+		System.out.println("B3/S23/C2 matches GameOfLife after 100 generations: " + same);
+		
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 1024, generations = 100;
+		GenerationsGame starWars = new GenerationsGame(side, side, GenerationsRule.parse("B2/S345/C4"));
+		starWars.randomSetup();
+		GameOfLife conway = new GameOfLife(side, side);
+		conway.randomSetup();
+		starWars.advance(generations);
+		conway.advance(generations);  // warm up both
+		
+		long start = System.nanoTime();
+		starWars.advance(generations);
+		double multiState = (double) (System.nanoTime() - start) / generations / side / side;
+		start = System.nanoTime();
+		conway.advance(generations);
+		double bitwise = (double) (System.nanoTime() - start) / generations / side / side;
+		start = System.nanoTime();
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				conway.willBeAlive(x, y);
+			}
+		}
+		double perCell = (double) (System.nanoTime() - start) / side / side;
+		System.out.println(String.format("Per cell per generation on a %d * %d board: Star Wars on bit planes " +
+				"%.2f ns, Conway on bits %.2f ns, Conway through willBeAlive %.2f ns", side, side, multiState, bitwise,
+				perCell));
+	}
+
+}
@@ -0,0 +1,171 @@
+/**
+ * A rule of the Generations family, such as Brian's Brain (B2/S/C3) or Star Wars (B2/S345/C4). Cells have a number of
+ * states: 0 is dead, 1 is alive, and the states from 2 up are dying. Only living Cells count as neighbours. A dead Cell
+ * is born when its number of living neighbours is in the birth set, and a living Cell survives when the number is in
+ * the survival set; otherwise a living Cell starts dying, and a dying Cell moves to the next state, the last state
+ * leading back to dead. With two states this is a Life-like rule, Conway's Game of Life being B3/S23/C2.
+ *
+ * The rule is compiled into a transition table indexed by (state, living neighbour count), so that stepping a Cell is
+ * a single table lookup.
+ */
+public class GenerationsRule {
+	
+	/**
+	 * The most states a rule may have, so that every state fits in a byte
+	 */
+	public static final int STATES_MAX = 256;
+	
+	private final String name;
+	private final int births, survivals;  // bit n is set if n living neighbours cause a birth or a survival
+	private final int states;
+	private final byte[] transitions;
+	
+	/**
+	 * Constructs a GenerationsRule from its birth and survival sets and its number of states. Numbers of states below 2
+	 * are replaced by 2, and above STATES_MAX by STATES_MAX.
+	 *
+	 * @param births bit n is set if a dead Cell with n living neighbours is born
+	 * @param survivals bit n is set if a living Cell with n living neighbours survives
+	 * @param states the number of states, including dead and alive
+	 */
+	public GenerationsRule(int births, int survivals, int states) {
+		this.births = births & 0x1FF;
+		this.survivals = survivals & 0x1FF;
+		this.states = Math.min(Math.max(states, 2), STATES_MAX);
+		
+		StringBuilder text = new StringBuilder("B");
+		for (int n = 0; n <= 8; n++) {
+			if ((this.births >>> n & 1) != 0) {
+				text.append(n);
+			}
+		}
+		text.append("/S");
+		for (int n = 0; n <= 8; n++) {
+			if ((this.survivals >>> n & 1) != 0) {
+				text.append(n);
+			}
+		}
+		name = text.append("/C").append(this.states).toString();
+		
+		transitions = new byte[this.states * 9];
+		for (int n = 0; n <= 8; n++) {
+			transitions[n] = (byte) (this.births >>> n & 1);
+			transitions[9 + n] = (byte) ((this.survivals >>> n & 1) != 0 ? 1 : 2 % this.states);
+			for (int state = 2; state < this.states; state++) {
+				transitions[state * 9 + n] = (byte) ((state + 1) % this.states);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a rule written as "B2/S345/C4", or in the older survival/birth/states order as "345/2/4". The letters may be
+	 * in either case, and a rule without a number of states, such as "B3/S23", has two.
+	 *
+	 * @param rule the rule as text
+	 * @return the rule, or null if the text is not a rule
+	 */
+	public static GenerationsRule parse(String rule) {
+		String[] parts = rule.trim().toUpperCase().split("/", -1);
+		if (parts.length < 2 || parts.length > 3) {
+			return null;
+		}
+		int births = -1, survivals = -1, states = 2;
+		boolean lettered = parts[0].startsWith("B") || parts[0].startsWith("S");
+		for (int i = 0; i < parts.length; i++) {
+			String part = parts[i];
+			char kind = lettered && !part.isEmpty() ? part.charAt(0) : "SBC".charAt(i);
+			String digits = lettered ? part.substring(Math.min(1, part.length())) : part;
+			if (lettered && (part.isEmpty() || "BSCG".indexOf(kind) < 0)) {
+				return null;
+			}
+			if (kind == 'C' || kind == 'G') {
+				try {
+					states = Integer.parseInt(digits);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+				if (states < 2 || states > STATES_MAX) {
+					return null;
+				}
+				continue;
+			}
+			int set = 0;
+			for (char digit : digits.toCharArray()) {
+				if (digit < '0' || digit > '8') {
+					return null;
+				}
+				set |= 1 << (digit - '0');
+			}
+			if (kind == 'B') {
+				births = set;
+			}
+			else {
+				survivals = set;
+			}
+		}
+		if (births < 0 || survivals < 0) {
+			return null;
+		}
+		return new GenerationsRule(births, survivals, states);
+	}
+	
+	/**
+	 * @return the number of states, including dead and alive
+	 */
+	public int getStates() {
+		return states;
+	}
+	
+	/**
+	 * @return the set of living neighbour counts at which a dead Cell is born, bit n standing for n neighbours
+	 */
+	public int getBirths() {
+		return births;
+	}
+	
+	/**
+	 * @return the set of living neighbour counts at which a living Cell survives, bit n standing for n neighbours
+	 */
+	public int getSurvivals() {
+		return survivals;
+	}
+	
+	/**
+	 * @param state the current state of a Cell
+	 * @param livingNeighbors the number of its neighbours that are alive, from 0 to 8
+	 * @return the state of the Cell in the next generation, or 0 if the state or count is out of range
+	 */
+	public int next(int state, int livingNeighbors) {
+		if (state < 0 || state >= states || livingNeighbors < 0 || livingNeighbors > 8) {
+			return 0;
+		}
+		return transitions[state * 9 + livingNeighbors] & 0xFF;
+	}
+	
+	/**
+	 * @return the transition table: the next state of a Cell in state s with n living neighbours, as an unsigned byte,
+	 * is at index s * 9 + n. The array is shared and must not be changed.
+	 */
+	byte[] transitions() {
+		return transitions;
+	}
+	
+	/**
+	 * @return the rule in the form "B2/S345/C4"
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+	
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof GenerationsRule && name.equals(((GenerationsRule) other).name);
+	}
+	
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+}
@@ -0,0 +1,335 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A game of a Larger than Life rule, whose neighbourhoods may reach up to LargerThanLifeRule.RADIUS_MAX Cells away in a
+ * square, diamond or hexagon. Counting every Cell of such a neighbourhood would cost hundreds of reads per Cell, so the
+ * counts are kept in a window that slides along each row: moving the window one Cell to the right adds the Cells just
+ * past its right edge and removes those on its left edge. Every edge of the supported shapes is made of straight runs,
+ * vertical or diagonal, and the living Cells of a run are summed in constant time from prefix sums taken along the
+ * columns, diagonals and anti-diagonals of the board. A generation therefore costs the same per Cell whatever the
+ * radius. Cells off the board are dead, as in GameOfLife.
+ */
+public class LargerThanLifeGame {
+	
+	private BitGrid cells;
+	private LargerThanLifeRule rule;
+	private int gen;
+	
+	// Prefix sums of the board with a margin of dead Cells around it, each row paddedWidth long
+	private int margin, paddedWidth;
+	private int[] columns, diagonals, antiDiagonals;
+	
+	// The runs of the left and right edges of the neighbourhood, each {first dy, last dy, dx at first dy, slope}
+	private int[][] firstRuns, lastRuns;
+	
+	/**
+	 * Constructs a LargerThanLifeGame with all Cells dead. The width and height must be positive; if they are not, the
+	 * board is 20 * 20. If the rule is null, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public LargerThanLifeGame(int width, int height, LargerThanLifeRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		cells = new BitGrid(width, height);
+		setRule(rule != null ? rule : LargerThanLifeRule.parse("R1,C0,M0,S2..3,B3..3,NM"));
+	}
+	
+	/**
+	 * @return the width of the board
+	 */
+	public int getWidth() {
+		return cells.getWidth();
+	}
+	
+	/**
+	 * @return the height of the board
+	 */
+	public int getHeight() {
+		return cells.getHeight();
+	}
+	
+	/**
+	 * @return the current generation number
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the rule being played
+	 */
+	public LargerThanLifeRule getRule() {
+		return rule;
+	}
+	
+	/**
+	 * Changes the rule being played. If the rule is null, this method performs no action.
+	 *
+	 * @param rule the rule to play
+	 */
+	public void setRule(LargerThanLifeRule rule) {
+		if (rule == null) {
+			return;
+		}
+		this.rule = rule;
+		int radius = rule.getRadius();
+		NeighborhoodShape shape = rule.getShape();
+		int[] first = new int[2 * radius + 1], last = new int[2 * radius + 1];
+		for (int dy = -radius; dy <= radius; dy++) {
+			first[dy + radius] = shape.first(radius, dy);
+			last[dy + radius] = shape.last(radius, dy);
+		}
+		firstRuns = runs(first, radius);
+		lastRuns = runs(last, radius);
+	}
+	
+	/*
+	 * Splits an edge of a neighbourhood, given as the dx of each row from -radius to radius, into straight runs
+	 */
+	private static int[][] runs(int[] edge, int radius) {
+		List<int[]> runs = new ArrayList<>();
+		int start = 0;
+		while (start < edge.length) {
+			int slope = start + 1 < edge.length ? edge[start + 1] - edge[start] : 0;
+			int end = start;
+			while (end + 1 < edge.length && edge[end + 1] - edge[end] == slope) {
+				end++;
+			}
+			runs.add(new int[] {start - radius, end - radius, edge[start], slope});
+			start = end + 1;
+		}
+		return runs.toArray(new int[0][]);
+	}
+	
+	/**
+	 * @param x the x-coordinate of a Cell
+	 * @param y the y-coordinate of a Cell
+	 * @return whether the Cell is alive; Cells off the board are dead
+	 */
+	public boolean isAlive(int x, int y) {
+		return cells.get(x, y);
+	}
+	
+	/**
+	 * Sets a Cell alive or dead. If the Cell is off the board, this method performs no action.
+	 *
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param alive whether the Cell is to be alive
+	 */
+	public void setAlive(int x, int y, boolean alive) {
+		cells.set(x, y, alive);
+	}
+	
+	/**
+	 * Counts the living Cells in the neighbourhood of a Cell one by one, the Cell itself included if the rule counts it.
+	 * This costs one read per Cell of the neighbourhood; nextGen() counts in constant time per Cell instead.
+	 *
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @return the number of living Cells in the neighbourhood
+	 */
+	public int countNeighborhood(int x, int y) {
+		int radius = rule.getRadius(), count = 0;
+		for (int dy = -radius; dy <= radius; dy++) {
+			for (int dx = rule.getShape().first(radius, dy); dx <= rule.getShape().last(radius, dy); dx++) {
+				if ((dx != 0 || dy != 0 || rule.countsSelf()) && cells.get(x + dx, y + dy)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Updates the states of all Cells to the next generation and increments the generation number by 1.
+	 */
+	public void nextGen() {
+		int width = getWidth(), height = getHeight(), radius = rule.getRadius();
+		buildPrefixSums(2 * radius + 3);  // room for windows starting left of the board and for the runs around them
+		
+		BitGrid next = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			// A window centred radius + 1 Cells left of the board covers only dead Cells
+			int count = 0;
+			for (int x = -radius - 1; x < width - 1; x++) {
+				count += edgeSum(lastRuns, x + 1, y) - edgeSum(firstRuns, x, y);
+				boolean alive = cells.get(x + 1, y);
+				if (x + 1 >= 0 && rule.willBeAlive(alive, alive && !rule.countsSelf() ? count - 1 : count)) {
+					next.set(x + 1, y, true);
+				}
+			}
+		}
+		cells = next;
+		gen++;
+	}
+	
+	/**
+	 * Computes a number of generations back to back. If the number is not positive, this method performs no action.
+	 *
+	 * @param generations the number of generations to advance by
+	 */
+	public void advance(int generations) {
+		for (int i = 0; i < generations; i++) {
+			nextGen();
+		}
+	}
+	
+	/*
+	 * Takes the prefix sums of the board, with a margin of dead Cells around it, along its columns (downwards), diagonals
+	 * (down and to the right) and anti-diagonals (down and to the left)
+	 */
+	private void buildPrefixSums(int margin) {
+		this.margin = margin;
+		paddedWidth = getWidth() + 2 * margin;
+		int paddedHeight = getHeight() + 2 * margin;
+		if (columns == null || columns.length != paddedWidth * paddedHeight) {
+			columns = new int[paddedWidth * paddedHeight];
+			diagonals = new int[columns.length];
+			antiDiagonals = new int[columns.length];
+		}
+		for (int j = 0; j < paddedHeight; j++) {
+			for (int i = 0; i < paddedWidth; i++) {
+				int k = j * paddedWidth + i, cell = cells.get(i - margin, j - margin) ? 1 : 0;
+				columns[k] = cell + (j > 0 ? columns[k - paddedWidth] : 0);
+				diagonals[k] = cell + (j > 0 && i > 0 ? diagonals[k - paddedWidth - 1] : 0);
+				antiDiagonals[k] = cell + (j > 0 && i < paddedWidth - 1 ? antiDiagonals[k - paddedWidth + 1] : 0);
+			}
+		}
+	}
+	
+	/*
+	 * Sums the living Cells along an edge of the neighbourhood of the Cell at (x, y)
+	 */
+	private int edgeSum(int[][] runs, int x, int y) {
+		int sum = 0;
+		for (int[] run : runs) {
+			sum += runSum(x + run[2], y + run[0], run[3], run[1] - run[0] + 1);
+		}
+		return sum;
+	}
+	
+	/*
+	 * Sums the living Cells of a straight run of n Cells starting at (x, y) and going down one row per Cell, and by slope
+	 * Cells across, -1, 0 or 1
+	 */
+	private int runSum(int x, int y, int slope, int n) {
+		if (slope == 0) {
+			return columns[index(x, y + n - 1)] - columns[index(x, y - 1)];
+		}
+		if (slope > 0) {
+			return diagonals[index(x + n - 1, y + n - 1)] - diagonals[index(x - 1, y - 1)];
+		}
+		return antiDiagonals[index(x - n + 1, y + n - 1)] - antiDiagonals[index(x + 1, y - 1)];
+	}
+	
+	private int index(int x, int y) {
+		return (y + margin) * paddedWidth + x + margin;
+	}
+	
+	/**
+	 * @return the number of living Cells on the board
+	 */
+	public int countLivingCells() {
+		return cells.population();
+	}
+	
+	/**
+	 * Makes each Cell alive or dead with equal probability, and resets the generation number to 0.
+	 */
+	public void randomSetup() {
+		Random random = new Random();
+		for (int y = 0; y < getHeight(); y++) {
+			for (int x = 0; x < getWidth(); x++) {
+				cells.set(x, y, random.nextBoolean());
+			}
+		}
+		gen = 0;
+	}
+	
+	/**
+	 * @return a copy of the Cells on the board, which is not affected by later changes to the game
+	 */
+	public BitGrid snapshot() {
+		return new BitGrid(cells);
+	}
+	
+	/**
+	 * @return the board as text, one line per row, 'O' for a living Cell and '.' for a dead one
+	 */
+	@Override
+	public String toString() {
+		return cells.toString();
+	}
+	
+	/*
+	 * Checks the sliding counts against counting Cell by Cell, and measures the cost per Cell at several radii
+	 */
+	public static void main(String[] args) {
+		for (String text : new String[] {"R5,C0,M1,S34..58,B34..45,NM", "r2,m0,s4..7,b5..6,nn", "R11,M1,S1..2,B1..2",
+				"R3,C3,M1,S1..2,B1..2", "R1,M0,S2..3,B3..3"}) {
+			System.out.println("\"" + text + "\" reads as " + LargerThanLifeRule.parse(text));
+		}
+		
+		LargerThanLifeGame life = new LargerThanLifeGame(64, 48, null);
+		GameOfLife reference = new GameOfLife(64, 48);
+		reference.randomSetup();
+		for (int y = 0; y < 48; y++) {
+			for (int x = 0; x < 64; x++) {
+				life.setAlive(x, y, reference.isAlive(x, y));
+			}
+		}
+		life.advance(100);
+		reference.advance(100);
+		System.out.println("\nR1,C0,M0,S2..3,B3..3,NM matches GameOfLife after 100 generations: " +
+				life.snapshot().equals(reference.snapshot()));
+		
+		Random random = new Random(1);
+		boolean same = true;
+		for (NeighborhoodShape shape : NeighborhoodShape.values()) {
+			for (int radius = 1; radius <= LargerThanLifeRule.RADIUS_MAX; radius++) {
+				int area = (2 * radius + 1) * (2 * radius + 1);
+				LargerThanLifeRule rule = new LargerThanLifeRule(radius, shape, random.nextBoolean(), area / 5, area / 3,
+						area / 4, area / 3);
+				LargerThanLifeGame game = new LargerThanLifeGame(1 + random.nextInt(70), 1 + random.nextInt(70), rule);
+				game.randomSetup();
+				for (int gen = 0; gen < 3; gen++) {
+					BitGrid expected = new BitGrid(game.getWidth(), game.getHeight());
+					for (int y = 0; y < game.getHeight(); y++) {
+						for (int x = 0; x < game.getWidth(); x++) {
+							expected.set(x, y, rule.willBeAlive(game.isAlive(x, y), game.countNeighborhood(x, y)));
+						}
+					}
+					game.nextGen();
+					same &= expected.equals(game.snapshot());
+				}
+			}
+		}
+		System.out.println("Sliding counts match counting Cell by Cell for every shape and radius: " + same);
+		
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 512, generations = 10;
+		for (NeighborhoodShape shape : NeighborhoodShape.values()) {
+			StringBuilder line = new StringBuilder("Per cell per generation, " + shape + ":");
+			for (int radius : new int[] {1, 5, 10}) {
+				int area = (2 * radius + 1) * (2 * radius + 1);
+				LargerThanLifeGame game = new LargerThanLifeGame(side, side,
+						new LargerThanLifeRule(radius, shape, true, area / 4, area / 2, area / 4, area / 3));
+				game.randomSetup();
+				game.advance(generations);  // warm up
+				long start = System.nanoTime();
+				game.advance(generations);
+				line.append(String.format(" radius %d %.1f ns;", radius,
+						(double) (System.nanoTime() - start) / generations / side / side));
+			}
+			System.out.println(line);
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/**
+ * A Larger than Life rule: a two-state rule in which a Cell's fate depends on the number of living Cells in a large 
+ * neighbourhood around it. A dead Cell is born when the count is within the birth range, and a living Cell survives when 
+ * the count is within the survival range. Rules are written as in "R5,C0,M1,S34..58,B34..45,NM" (Bosco's Rule): the 
+ * radius, the number of states (0 or 2), whether the Cell itself is counted, the survival and birth ranges, and the 
+ * shape of the neighbourhood. Conway's Game of Life is "R1,C0,M0,S2..3,B3..3,NM".
+ */
+public class LargerThanLifeRule {
+	
+	/**
+	 * The largest radius a rule may have
+	 */
+	public static final int RADIUS_MAX = 10;
+	
+	private final int radius;
+	private final NeighborhoodShape shape;
+	private final boolean countsSelf;
+	private final int survivalMin, survivalMax, birthMin, birthMax;
+	
+	/**
+	 * Constructs a LargerThanLifeRule. A radius below 1 is replaced by 1 and above RADIUS_MAX by RADIUS_MAX, and a null 
+	 * shape by NeighborhoodShape.MOORE. An empty range, with its minimum above its maximum, never matches.
+	 * 
+	 * @param radius the radius of the neighbourhood
+	 * @param shape the shape of the neighbourhood
+	 * @param countsSelf whether a Cell counts towards its own neighbourhood
+	 * @param survivalMin the least count at which a living Cell survives
+	 * @param survivalMax the greatest count at which a living Cell survives
+	 * @param birthMin the least count at which a dead Cell is born
+	 * @param birthMax the greatest count at which a dead Cell is born
+	 */
+	public LargerThanLifeRule(int radius, NeighborhoodShape shape, boolean countsSelf, int survivalMin, int survivalMax, 
+			int birthMin, int birthMax) {
+		this.radius = Math.min(Math.max(radius, 1), RADIUS_MAX);
+		this.shape = shape != null ? shape : NeighborhoodShape.MOORE;
+		this.countsSelf = countsSelf;
+		this.survivalMin = survivalMin;
+		this.survivalMax = survivalMax;
+		this.birthMin = birthMin;
+		this.birthMax = birthMax;
+	}
+	
+	/**
+	 * Reads a rule written as in "R5,C0,M1,S34..58,B34..45,NM". The parts may come in any order and in either case; the 
+	 * number of states and the shape may be left out, meaning two states and NeighborhoodShape.MOORE.
+	 * 
+	 * @param rule the rule as text
+	 * @return the rule, or null if the text is not a rule, or has a radius out of range or more than two states
+	 */
+	public static LargerThanLifeRule parse(String rule) {
+		int radius = -1, survivalMin = -1, survivalMax = -1, birthMin = -1, birthMax = -1, countsSelf = -1;
+		NeighborhoodShape shape = NeighborhoodShape.MOORE;
+		try {
+			for (String part : rule.trim().toUpperCase().split(",")) {
+				part = part.trim();
+				if (part.isEmpty()) {
+					return null;
+				}
+				String value = part.substring(1);
+				switch (part.charAt(0)) {
+				case 'R':
+					radius = Integer.parseInt(value);
+					break;
+				case 'C':
+					int states = Integer.parseInt(value);
+					if (states != 0 && states != 2) {
+						return null;
+					}
+					break;
+				case 'M':
+					countsSelf = Integer.parseInt(value);
+					break;
+				case 'S':
+				case 'B':
+					int dots = value.indexOf("..");
+					int min = Integer.parseInt(dots < 0 ? value : value.substring(0, dots));
+					int max = Integer.parseInt(dots < 0 ? value : value.substring(dots + 2));
+					if (part.charAt(0) == 'S') {
+						survivalMin = min;
+						survivalMax = max;
+					}
+					else {
+						birthMin = min;
+						birthMax = max;
+					}
+					break;
+				case 'N':
+					shape = value.length() == 1 ? NeighborhoodShape.fromCode(value.charAt(0)) : null;
+					if (shape == null) {
+						return null;
+					}
+					break;
+				default:
+					return null;
+				}
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (radius < 1 || radius > RADIUS_MAX || (countsSelf != 0 && countsSelf != 1) || survivalMin < 0 || birthMin < 0) {
+			return null;
+		}
+		return new LargerThanLifeRule(radius, shape, countsSelf == 1, survivalMin, survivalMax, birthMin, birthMax);
+	}
+	
+	/**
+	 * @return the radius of the neighbourhood
+	 */
+	public int getRadius() {
+		return radius;
+	}
+	
+	/**
+	 * @return the shape of the neighbourhood
+	 */
+	public NeighborhoodShape getShape() {
+		return shape;
+	}
+	
+	/**
+	 * @return whether a Cell counts towards its own neighbourhood
+	 */
+	public boolean countsSelf() {
+		return countsSelf;
+	}
+	
+	/**
+	 * @param alive whether a Cell is alive
+	 * @param count the number of living Cells in its neighbourhood, itself included if the rule counts it
+	 * @return whether the Cell is alive in the next generation
+	 */
+	public boolean willBeAlive(boolean alive, int count) {
+		return alive ? survivalMin <= count && count <= survivalMax : birthMin <= count && count <= birthMax;
+	}
+	
+	/**
+	 * @return the rule in the form "R5,C0,M1,S34..58,B34..45,NM"
+	 */
+	@Override
+	public String toString() {
+		return "R" + radius + ",C0,M" + (countsSelf ? 1 : 0) + ",S" + survivalMin + ".." + survivalMax + ",B" + birthMin + 
+				".." + birthMax + ",N" + shape.getCode();
+	}
+
+}
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/**
+ * A way of storing and stepping the Cells of a two-state board, such as a bit grid or a set of living Cells. GameOfLife
+ * holds its board in an engine and chooses the engine at runtime; the engines built in are listed in EngineType, and
+ * others may be installed with GameOfLife.setEngine. An engine plays one two-state rule, given when it is made, and Cells
+ * off the board are always dead.
+ *
+ * Engines are not thread-safe; each is used by one thread at a time.
+ */
+public interface LifeEngine {
+	
+	/**
+	 * @return a short name for the engine, such as "bit-grid"
+	 */
+	String getName();
+	
+	/**
+	 * @return the width of the board
+	 */
+	int getWidth();
+	
+	/**
+	 * @return the height of the board
+	 */
+	int getHeight();
+	
+	/**
+	 * @param x the x-coordinate of a Cell
+	 * @param y the y-coordinate of a Cell
+	 * @return whether the Cell is alive; false if it is off the board
+	 */
+	boolean get(int x, int y);
+	
+	/**
+	 * Sets a Cell alive or dead. If the Cell is off the board, this method performs no action.
+	 *
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param alive whether the Cell is to be alive
+	 */
+	void set(int x, int y, boolean alive);
+	
+	/**
+	 * Updates all Cells to the next generation.
+	 */
+	void step();
+	
+	/**
+	 * @return the number of living Cells
+	 */
+	int population();
+	
+	/**
+	 * Copies one row of Cells into words laid out as a row of a BitGrid, bit x % 64 of word x / 64 standing for the Cell
+	 * in column x, so that the board can be read a row at a time without a copy of all of it. The default reads the Cells
+	 * one by one with get(); engines that can find the living Cells of a row faster override it.
+	 *
+	 * @param y the y-coordinate of the row; if it is off the board, the words are left all dead
+	 * @param words receives the row; the first (getWidth() + 63) / 64 words are overwritten
+	 */
+	default void readRow(int y, long[] words) {
+		int width = getWidth();
+		Arrays.fill(words, 0, (width + 63) >>> 6, 0L);
+		if (y < 0 || y >= getHeight()) {
+			return;
+		}
+		for (int x = 0; x < width; x++) {
+			if (get(x, y)) {
+				words[x >>> 6] |= 1L << x;
+			}
+		}
+	}
+	
+	/**
+	 * @return a copy of the Cells, which is not affected by later changes to the engine
+	 */
+	BitGrid snapshot();
+	
+	/**
+	 * Replaces all Cells with a copy of the Cells of a grid of the same dimension. Grids of another dimension are copied
+	 * from their upper left corner, Cells beyond them being dead.
+	 *
+	 * @param cells the Cells to copy
+	 */
+	void load(BitGrid cells);
+
+}
@@ -0,0 +1,82 @@
+/**
+ * The shapes of neighbourhood a LargerThanLifeRule can count living Cells in, each given by the range of columns it 
+ * covers in every row within its radius. Each row of a neighbourhood is a single run of Cells.
+ */
+public enum NeighborhoodShape {
+	
+	/**
+	 * The square of Cells within the radius horizontally and vertically; of radius 1, the eight Moore neighbours
+	 */
+	MOORE('M'),
+	
+	/**
+	 * The diamond of Cells whose horizontal and vertical distances add up to at most the radius
+	 */
+	VON_NEUMANN('N'),
+	
+	/**
+	 * The hexagon of Cells within the radius on a hexagonal grid laid out on the square one: the square with its upper 
+	 * right and lower left corners cut off along the diagonal; of radius 1, the Moore neighbours but the north-east and 
+	 * south-west ones
+	 */
+	HEXAGONAL('H');
+	
+	private final char code;
+	
+	private NeighborhoodShape(char code) {
+		this.code = code;
+	}
+	
+	/**
+	 * @return the letter standing for the shape in a rule such as "R5,C0,M1,S34..58,B34..45,NM"
+	 */
+	public char getCode() {
+		return code;
+	}
+	
+	/**
+	 * @param code a letter standing for a shape
+	 * @return the shape, or null if the letter stands for none
+	 */
+	public static NeighborhoodShape fromCode(char code) {
+		for (NeighborhoodShape shape : values()) {
+			if (shape.code == Character.toUpperCase(code)) {
+				return shape;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param radius the radius of the neighbourhood
+	 * @param dy the vertical offset of a row from the centre, from -radius to radius
+	 * @return the horizontal offset from the centre of the first Cell of the row in the neighbourhood
+	 */
+	public int first(int radius, int dy) {
+		switch (this) {
+		case VON_NEUMANN:
+			return Math.abs(dy) - radius;
+		case HEXAGONAL:
+			return dy < 0 ? -radius : dy - radius;
+		default:
+			return -radius;
+		}
+	}
+	
+	/**
+	 * @param radius the radius of the neighbourhood
+	 * @param dy the vertical offset of a row from the centre, from -radius to radius
+	 * @return the horizontal offset from the centre of the last Cell of the row in the neighbourhood
+	 */
+	public int last(int radius, int dy) {
+		switch (this) {
+		case VON_NEUMANN:
+			return radius - Math.abs(dy);
+		case HEXAGONAL:
+			return dy < 0 ? dy + radius : radius;
+		default:
+			return radius;
+		}
+	}
+
+}
@@ -0,0 +1,349 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Takes a census of the objects on a board: blocks, blinkers, gliders and so on. The living Cells are split into
+ * clusters of Cells that touch, including diagonally, by a flood fill. Each cluster is brought to a canonical form, the
+ * least of its eight rotations and reflections, and looked up by that form in a dictionary of named objects. The
+ * phases of the oscillators and spaceships in the dictionary are all recorded, so they are recognised in any phase.
+ *
+ * Some objects, such as the beacon and the lightweight spaceship, fall apart into several clusters in some phases. So
+ * clusters that come within two Cells of each other are first looked up together, and only if the group is not a known
+ * object is each of them named on its own. Clusters not in the dictionary are given a name made from their population
+ * and a hash of their canonical form; these names are made afresh by each census, and are not kept.
+ */
+public class ObjectCensus {
+	
+	// The name, period and one phase of each object known in advance
+	private static final String[][] KNOWN_OBJECTS = {
+		{"block", "1", "OO\nOO"},
+		{"beehive", "1", ".OO.\nO..O\n.OO."},
+		{"loaf", "1", ".OO.\nO..O\n.O.O\n..O."},
+		{"boat", "1", "OO.\nO.O\n.O."},
+		{"ship", "1", "OO.\nO.O\n.OO"},
+		{"tub", "1", ".O.\nO.O\n.O."},
+		{"pond", "1", ".OO.\nO..O\nO..O\n.OO."},
+		{"long boat", "1", "OO..\nO.O.\n.O.O\n..O."},
+		{"barge", "1", ".O..\nO.O.\n.O.O\n..O."},
+		{"snake", "1", "OO.O\nO.OO"},
+		{"eater 1", "1", "OO..\nO.O.\n..O.\n..OO"},
+		{"blinker", "2", "OOO"},
+		{"toad", "2", ".OOO\nOOO."},
+		{"beacon", "2", "OO..\nOO..\n..OO\n..OO"},
+		{"glider", "4", ".O.\n..O\nOOO"},
+		{"lightweight spaceship", "4", ".O..O\nO....\nO...O\nOOOO."},
+		{"middleweight spaceship", "4", "...O..\n.O...O\nO.....\nO....O\nOOOOO."},
+		{"heavyweight spaceship", "4", "...OO..\n.O....O\nO......\nO.....O\nOOOOOO."}
+	};
+	
+	// Canonical forms to object names, of the objects registered
+	private static final Map<String, String> dictionary = new ConcurrentHashMap<>();
+	
+	// The populations of the phases registered that fall apart into several clusters; a group of clusters with any other
+	// population is not looked up
+	private static final Set<Integer> splitPopulations = ConcurrentHashMap.newKeySet();
+	
+	// The names of the objects registered that come back to where they were, the still lifes and oscillators
+	private static final Set<String> stationary = ConcurrentHashMap.newKeySet();
+	
+	static {
+		for (String[] object : KNOWN_OBJECTS) {
+			register(object[0], BitGrid.fromText(object[2]), Integer.parseInt(object[1]));
+		}
+	}
+	
+	/**
+	 * Counts the objects on a board by name. The cost grows with the population, plus one pass over the words of the
+	 * board to find the living Cells.
+	 *
+	 * @param grid the Cells of the board
+	 * @return the number of each object found, by name in alphabetical order
+	 */
+	public static Map<String, Integer> take(BitGrid grid) {
+		Map<String, Integer> counts = new TreeMap<>();
+		List<long[]> clusters = clusters(grid);
+		int[] group = group(grid, clusters);
+		
+		// Chains the clusters of each group from its first, the root, through next[], counting the Cells of the group
+		int[] next = new int[clusters.size()], last = new int[clusters.size()], size = new int[clusters.size()];
+		for (int i = 0; i < clusters.size(); i++) {
+			int root = root(group, i);
+			next[i] = -1;
+			if (root != i) {
+				next[last[root]] = i;
+			}
+			last[root] = i;
+			size[root] += clusters.get(i).length;
+		}
+		for (int first = 0; first < clusters.size(); first++) {
+			if (group[first] != first) {
+				continue;
+			}
+			if (next[first] < 0 || !splitPopulations.contains(size[first])) {
+				for (int i = first; i >= 0; i = next[i]) {
+					counts.merge(name(clusters.get(i)), 1, Integer::sum);
+				}
+				continue;
+			}
+			long[] cells = new long[size[first]];
+			int found = 0;
+			for (int i = first; i >= 0; i = next[i]) {
+				System.arraycopy(clusters.get(i), 0, cells, found, clusters.get(i).length);
+				found += clusters.get(i).length;
+			}
+			String known = dictionary.get(canonical(cells));
+			if (known != null) {
+				counts.merge(known, 1, Integer::sum);
+			} else {
+				for (int i = first; i >= 0; i = next[i]) {
+					counts.merge(name(clusters.get(i)), 1, Integer::sum);
+				}
+			}
+		}
+		return counts;
+	}
+	
+	/*
+	 * Joins the clusters that come within two Cells of each other into groups, and returns for each cluster the index of
+	 * another in its group, leading to the first cluster of the group as by root(). Clusters within one Cell are already
+	 * joined, so only the ring of Cells two away from each Cell is looked at.
+	 */
+	private static int[] group(BitGrid grid, List<long[]> clusters) {
+		Map<Long, Integer> clusterOf = new HashMap<>();
+		int[] group = new int[clusters.size()];
+		for (int i = 0; i < clusters.size(); i++) {
+			group[i] = i;
+			for (long cell : clusters.get(i)) {
+				clusterOf.put(cell, i);
+			}
+		}
+		for (int i = 0; i < clusters.size(); i++) {
+			for (long cell : clusters.get(i)) {
+				int x = CellChanges.x(cell), y = CellChanges.y(cell);
+				for (int dy = -2; dy <= 2; dy++) {
+					for (int dx = -2; dx <= 2; dx += Math.abs(dy) == 2 ? 1 : 4) {
+						if (grid.get(x + dx, y + dy)) {
+							int a = root(group, i), b = root(group, clusterOf.get(CellChanges.pack(x + dx, y + dy)));
+							group[Math.max(a, b)] = Math.min(a, b);
+						}
+					}
+				}
+			}
+		}
+		return group;
+	}
+	
+	/*
+	 * Follows the links of a group to its first cluster, shortening them on the way
+	 */
+	private static int root(int[] group, int i) {
+		while (group[i] != i) {
+			group[i] = group[group[i]];
+			i = group[i];
+		}
+		return i;
+	}
+	
+	/**
+	 * Finds the clusters of living Cells that touch each other, horizontally, vertically or diagonally.
+	 *
+	 * @param grid the Cells of the board
+	 * @return the Cells of each cluster, as coordinates packed as by CellChanges.pack()
+	 */
+	public static List<long[]> clusters(BitGrid grid) {
+		List<long[]> clusters = new ArrayList<>();
+		BitGrid unvisited = new BitGrid(grid);
+		long[] words = unvisited.words();
+		int wordsPerRow = unvisited.wordsPerRow();
+		long[] stack = new long[64];
+		
+		for (int i = 0; i < words.length; i++) {
+			while (words[i] != 0) {
+				int seedX = ((i % wordsPerRow) << 6) + Long.numberOfTrailingZeros(words[i]), seedY = i / wordsPerRow;
+				unvisited.set(seedX, seedY, false);
+				stack[0] = CellChanges.pack(seedX, seedY);
+				int size = 1, found = 0;
+				long[] cluster = new long[8];
+				
+				// Every Cell pushed is marked visited, so each is pushed, and added to the cluster, exactly once
+				while (size > 0) {
+					long cell = stack[--size];
+					if (found == cluster.length) {
+						cluster = Arrays.copyOf(cluster, found * 2);
+					}
+					cluster[found++] = cell;
+					int x = CellChanges.x(cell), y = CellChanges.y(cell);
+					for (int dy = -1; dy <= 1; dy++) {
+						for (int dx = -1; dx <= 1; dx++) {
+							if (unvisited.get(x + dx, y + dy)) {
+								unvisited.set(x + dx, y + dy, false);
+								if (size == stack.length) {
+									stack = Arrays.copyOf(stack, size * 2);
+								}
+								stack[size++] = CellChanges.pack(x + dx, y + dy);
+							}
+						}
+					}
+				}
+				clusters.add(Arrays.copyOf(cluster, found));
+			}
+		}
+		return clusters;
+	}
+	
+	/**
+	 * Brings a cluster of Cells to the same form whatever its position, rotation or reflection: of the eight ways to
+	 * rotate and reflect it, moved so that its bounding box starts at (0,0), the one whose Cells, listed in row-major
+	 * order, come first.
+	 *
+	 * @param cells the Cells of the cluster, as packed coordinates
+	 * @return the canonical form of the cluster
+	 */
+	public static String canonical(long[] cells) {
+		String best = null;
+		long[] transformed = new long[cells.length];
+		for (int t = 0; t < 8; t++) {
+			int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+			for (int i = 0; i < cells.length; i++) {
+				int x = transformX(t, cells[i]), y = transformY(t, cells[i]);
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+			}
+			for (int i = 0; i < cells.length; i++) {
+				transformed[i] = CellChanges.pack(transformX(t, cells[i]) - minX, transformY(t, cells[i]) - minY);
+			}
+			Arrays.sort(transformed);  // packed coordinates sort in row-major order
+			
+			StringBuilder form = new StringBuilder();
+			for (long cell : transformed) {
+				form.append(CellChanges.x(cell)).append(',').append(CellChanges.y(cell)).append(';');
+			}
+			if (best == null || form.toString().compareTo(best) < 0) {
+				best = form.toString();
+			}
+		}
+		return best;
+	}
+	
+	/*
+	 * Transform t of the eight rotations and reflections swaps the coordinates if bit 2 is set, then negates x if bit 0
+	 * is set and y if bit 1 is set
+	 */
+	private static int transformX(int t, long cell) {
+		int x = (t & 4) != 0 ? CellChanges.y(cell) : CellChanges.x(cell);
+		return (t & 1) != 0 ? -x : x;
+	}
+	
+	private static int transformY(int t, long cell) {
+		int y = (t & 4) != 0 ? CellChanges.x(cell) : CellChanges.y(cell);
+		return (t & 2) != 0 ? -y : y;
+	}
+	
+	/**
+	 * Looks up the name of a cluster of Cells in the dictionary. A cluster not in the dictionary is named after its
+	 * population and a hash of its canonical form, as in "object-7-1a2b3c4d"; the name is not added to the dictionary.
+	 *
+	 * @param cells the Cells of the cluster, as packed coordinates
+	 * @return the name of the object
+	 */
+	public static String name(long[] cells) {
+		String form = canonical(cells);
+		String known = dictionary.get(form);
+		return known != null ? known : "object-" + cells.length + "-" + String.format("%08x", form.hashCode());
+	}
+	
+	/**
+	 * @param cells the Cells of a cluster, as packed coordinates
+	 * @return whether the cluster is a phase of a known still life or oscillator, rather than of a spaceship or of an
+	 * object not in the dictionary
+	 */
+	public static boolean isStationary(long[] cells) {
+		String known = dictionary.get(canonical(cells));
+		return known != null && stationary.contains(known);
+	}
+	
+	/**
+	 * Adds an object to the dictionary under a name, in every phase of its period, whether or not its Cells form a single
+	 * cluster in that phase. The object is run in isolation to find its phases, and is taken to be a spaceship if it is
+	 * not back where it started after its period; a name given earlier to any of them is replaced.
+	 *
+	 * @param name the name of the object
+	 * @param pattern one phase of the object
+	 * @param period the number of generations after which the object repeats its shape; 1 for a still life
+	 */
+	public static void register(String name, BitGrid pattern, int period) {
+		int margin = Math.max(period, 1) + 2;  // room for a spaceship to move and for its sparks
+		BitGrid grid = new BitGrid(pattern.getWidth() + 2 * margin, pattern.getHeight() + 2 * margin);
+		grid.paste(pattern, margin, margin, PasteMode.REPLACE);
+		BitGrid start = new BitGrid(grid);
+		for (int phase = 0; phase < Math.max(period, 1); phase++) {
+			long[] cells = new long[grid.population()];
+			int found = 0;
+			List<long[]> clusters = clusters(grid);
+			for (long[] cluster : clusters) {
+				System.arraycopy(cluster, 0, cells, found, cluster.length);
+				found += cluster.length;
+			}
+			if (found > 0) {
+				dictionary.put(canonical(cells), name);
+				if (clusters.size() > 1) {
+					splitPopulations.add(found);
+				}
+			}
+			grid = BitKernel.step(grid);
+		}
+		if (grid.equals(start)) {
+			stationary.add(name);
+		}
+		else {
+			stationary.remove(name);
+		}
+	}
+	
+	/*
+	 * Checks the dictionary against a board of known objects, and takes a census of a random board after it has settled
+	 */
+	public static void main(String[] args) {
+		BitGrid board = new BitGrid(40, 20);
+		String[] placed = {"OO\nOO", "OOO", ".O.\n..O\nOOO", "O\nO\nO", "OOO\n..O\n.O.", ".OO.\nO..O\n.OO."};
+		for (int i = 0; i < placed.length; i++) {
+			board.paste(BitGrid.fromText(placed[i]), 2 + 6 * i, 2 + (i % 2) * 8, PasteMode.OR);
+		}
+		System.out.println("A board with a block, two blinkers, two gliders and a beehive:\n" + board);
+		System.out.println("Census: " + take(board));
+		
+		System.out.println("\nPhases in which each known object, alone on a board, is recognised:");
+		for (String[] object : KNOWN_OBJECTS) {
+			BitGrid grid = new BitGrid(40, 40);
+			grid.paste(BitGrid.fromText(object[2]), 16, 16, PasteMode.REPLACE);
+			int period = Integer.parseInt(object[1]), recognised = 0;
+			for (int phase = 0; phase < period; phase++) {
+				if (take(grid).equals(Map.of(object[0], 1))) {
+					recognised++;
+				}
+				grid = BitKernel.step(grid);
+			}
+			System.out.println("  " + object[0] + ": " + recognised + " of " + period);
+		}
+		
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+		GameOfLife game = new GameOfLife(side, side);
+		game.randomSetup();
+		game.advance(3000);
+		BitGrid settled = game.snapshot();
+		long start = System.nanoTime();
+		Map<String, Integer> census = take(settled);
+		long nanos = System.nanoTime() - start;
+		System.out.println("\nA random " + side + " * " + side + " board after 3000 generations has " + settled.population() +
+				" living cells; its census took " + nanos / 1000000 + " ms:");
+		census.entrySet().stream().sorted((a, b) -> b.getValue() - a.getValue()).limit(15)
+				.forEach(entry -> System.out.println("  " + entry.getValue() + " " + entry.getKey()));
+	}
+
+}
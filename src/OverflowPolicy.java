@@ -0,0 +1,17 @@
+/**
+ * What a FrameExporter does with a new frame when its queue of frames waiting to be encoded is full.
+ */
+public enum OverflowPolicy {
+	
+	/**
+	 * The new frame is dropped, so the simulation never waits for the encoder; the frames written thin out instead
+	 */
+	DROP,
+	
+	/**
+	 * The simulation waits until the encoder has made room, so every frame is written at the cost of slowing the game to
+	 * the speed of encoding
+	 */
+	BLOCK
+
+}
@@ -0,0 +1,608 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A board of Conway's Game of Life kept in a memory-mapped file rather than on the heap, for universes larger than
+ * memory. The board is divided into square tiles of one bit per Cell, stored row-major one after another, and the
+ * operating system pages them in and out as they are touched. A small cache keeps tiles as long arrays on the heap;
+ * when it is full, a tile that the next generation will not read, being stable or of an older copy, is evicted from
+ * among the least recently used, and failing that the least recently used. Edits write only the words they change.
+ *
+ * The file holds three copies of the board. Each generation is computed from the current copy into another, tile by
+ * tile in file order, so that both are read and written sequentially. A tile that did not change in the last
+ * generation, and whose neighbours did not change either, cannot change in the next; if the copy written into holds the
+ * previous generation, it already holds the same Cells, so the tile is skipped without being read: stable and empty
+ * regions cost nothing. The header records the copy and generation of the last checkpoint, and is written only by
+ * checkpoint(), after the tiles have been forced to disk. The copy checkpointed is never written again until the next
+ * checkpoint: generations go back and forth between the other two, and an edit to the checkpointed generation first
+ * copies it. So open() resumes from the last checkpoint even if the process was killed while writing. Cells off the
+ * board are dead, as in GameOfLife.
+ */
+public class PagedBoard implements AutoCloseable {
+	
+	/**
+	 * The default side of a tile in Cells, whose bits take 32 KB
+	 */
+	public static final int TILE_SIDE_DEFAULT = 512;
+	
+	/**
+	 * The default number of tiles kept on the heap
+	 */
+	public static final int CACHE_TILES_DEFAULT = 64;
+	
+	private static final long MAGIC = 0x4C49464550414745L;  // "LIFEPAGE"
+	private static final int VERSION = 2, HEADER_BYTES = 64, COPIES = 3;
+	private static final long SEGMENT_BYTES_MAX = 1L << 30;  // the most one mapping may cover
+	private static final int EVICTION_SCAN = 16;  // the least recently used tiles looked at for one not needed soon
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final int width, height, tileSide, tileWords, tilesAcross, tilesDown;
+	private final long tileBytes;
+	private final int tileCount, tilesPerSegment, boardWords, cacheTiles;
+	private final MappedByteBuffer[] segments;
+	private final Map<Long, long[]> cache;
+	private int gen, current;  // the generation number and which copy of the board holds it
+	private int checkpointed;  // the copy the header records, which is not written until the next checkpoint
+	private int previous = -1;  // the copy holding the generation before the current one, or -1 if none does
+	private BitSet changed;  // the tiles that changed in the last generation, or since the board was opened
+	private long tilesStepped, tilesSkipped;
+	
+	private PagedBoard(FileChannel channel, int width, int height, int tileSide, int gen, int current, int checkpointed,
+			int cacheTiles) throws IOException {
+		this.channel = channel;
+		this.width = width;
+		this.height = height;
+		this.tileSide = tileSide;
+		this.gen = gen;
+		this.current = current;
+		this.checkpointed = checkpointed;
+		this.cacheTiles = Math.max(cacheTiles, 1);
+		tileWords = tileSide / 64;
+		boardWords = (width + 63) / 64;
+		tilesAcross = (width + tileSide - 1) / tileSide;
+		tilesDown = (height + tileSide - 1) / tileSide;
+		tileBytes = (long) tileSide * tileWords * 8;
+		tileCount = tilesAcross * tilesDown;
+		tilesPerSegment = (int) Math.max(1, SEGMENT_BYTES_MAX / tileBytes);
+		
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		segments = new MappedByteBuffer[(COPIES * tileCount + tilesPerSegment - 1) / tilesPerSegment];
+		cache = new LinkedHashMap<>(16, 0.75f, true);
+		changed = new BitSet(tileCount);
+		changed.set(0, tileCount);  // the other copy is unknown until every tile has been stepped once
+	}
+	
+	/**
+	 * Creates a file holding an empty board, replacing any file already there. The width and height must be positive;
+	 * if they are not, the board is 20 * 20. The tile side is rounded up to a multiple of 64, and replaced by
+	 * TILE_SIDE_DEFAULT if not positive.
+	 *
+	 * @param file the file to create
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param tileSide the side of a tile in Cells
+	 * @param cacheTiles the number of tiles to keep on the heap
+	 * @return the board
+	 * @throws IOException if the file cannot be created
+	 */
+	public static PagedBoard create(Path file, int width, int height, int tileSide, int cacheTiles) throws IOException {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		tileSide = tileSide > 0 ? (tileSide + 63) / 64 * 64 : TILE_SIDE_DEFAULT;
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		// Every copy starts empty, so the board can be edited in copy 1 while copy 0 stands as the checkpoint
+		PagedBoard board = new PagedBoard(channel, width, height, tileSide, 0, 1, 0, cacheTiles);
+		board.header.putLong(0, MAGIC).putInt(8, VERSION).putInt(12, width).putInt(16, height).putInt(20, tileSide)
+				.putInt(24, 0).putInt(28, 0);
+		board.header.force();
+		return board;
+	}
+	
+	/**
+	 * Opens a board saved in a file, at the generation of its last checkpoint.
+	 *
+	 * @param file the file to open
+	 * @param cacheTiles the number of tiles to keep on the heap
+	 * @return the board
+	 * @throws IOException if the file cannot be read or does not hold a board
+	 */
+	public static PagedBoard open(Path file, int cacheTiles) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer bytes = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		channel.read(bytes, 0);
+		if (bytes.getLong(0) != MAGIC || bytes.getInt(8) != VERSION) {
+			channel.close();
+			throw new IOException(file + " does not hold a board");
+		}
+		return new PagedBoard(channel, bytes.getInt(12), bytes.getInt(16), bytes.getInt(20), bytes.getInt(24),
+				bytes.getInt(28), bytes.getInt(28), cacheTiles);
+	}
+	
+	/**
+	 * @return the width of the board
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * @return the height of the board
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * @return the current generation number
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @param x the x-coordinate of a Cell
+	 * @param y the y-coordinate of a Cell
+	 * @return whether the Cell is alive; Cells off the board are dead
+	 */
+	public boolean get(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return false;
+		}
+		long[] tile = tile(current, (y / tileSide) * tilesAcross + x / tileSide);
+		return (tile[(y % tileSide) * tileWords + (x % tileSide >>> 6)] >>> (x & 63) & 1) != 0;
+	}
+	
+	/**
+	 * Sets a Cell alive or dead. If the Cell is off the board, this method performs no action.
+	 *
+	 * @param x the x-coordinate of the Cell
+	 * @param y the y-coordinate of the Cell
+	 * @param alive whether the Cell is to be alive
+	 */
+	public void set(int x, int y, boolean alive) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return;
+		}
+		long word = word(y, x >>> 6), bit = 1L << (x & 63);
+		if (((word & bit) != 0) != alive) {
+			putWord(y, x >>> 6, word ^ bit);
+		}
+	}
+	
+	/**
+	 * Copies the living Cells of a grid onto the board, with the upper left corner of the grid at (x, y). Cells of the
+	 * grid that fall off the board are ignored. The grid is copied a word at a time, as by BitGrid.paste().
+	 *
+	 * @param grid the Cells to copy
+	 * @param x the x-coordinate on the board of the left column of the grid
+	 * @param y the y-coordinate on the board of the top row of the grid
+	 */
+	public void paste(BitGrid grid, int x, int y) {
+		long[] words = grid.words();
+		int wordsPerRow = grid.wordsPerRow(), firstWord = Math.floorDiv(x, 64), shift = Math.floorMod(x, 64);
+		for (int j = Math.max(-y, 0); j < Math.min(grid.getHeight(), height - y); j++) {
+			for (int w = 0; w < wordsPerRow; w++) {
+				long bits = words[j * wordsPerRow + w];
+				if (bits != 0) {
+					orWord(y + j, firstWord + w, bits << shift);
+					if (shift != 0) {
+						orWord(y + j, firstWord + w + 1, bits >>> (64 - shift));
+					}
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Sets alive the Cells of the given bits in one word of a row of the board, if the word is on the board
+	 */
+	private void orWord(int y, int boardWord, long bits) {
+		if (boardWord < 0 || boardWord >= boardWords) {
+			return;
+		}
+		long word = word(y, boardWord);
+		bits &= boardWord == boardWords - 1 ? BitKernel.lastWordMask(width) : -1L;
+		if ((word | bits) != word) {
+			putWord(y, boardWord, word | bits);
+		}
+	}
+	
+	/**
+	 * Copies a region of the board into a BitGrid, a word at a time.
+	 *
+	 * @param x the x-coordinate of the left column of the region
+	 * @param y the y-coordinate of the top row of the region
+	 * @param regionWidth the width of the region
+	 * @param regionHeight the height of the region
+	 * @return the Cells of the region, or null if the width or height is not positive
+	 */
+	public BitGrid copy(int x, int y, int regionWidth, int regionHeight) {
+		if (regionWidth <= 0 || regionHeight <= 0) {
+			return null;
+		}
+		BitGrid grid = new BitGrid(regionWidth, regionHeight);
+		long[] words = grid.words();
+		int wordsPerRow = grid.wordsPerRow(), firstWord = Math.floorDiv(x, 64), shift = Math.floorMod(x, 64);
+		for (int j = Math.max(-y, 0); j < Math.min(regionHeight, height - y); j++) {
+			for (int w = 0; w < wordsPerRow; w++) {
+				long bits = word(y + j, firstWord + w) >>> shift;
+				if (shift != 0) {
+					bits |= word(y + j, firstWord + w + 1) << (64 - shift);
+				}
+				words[j * wordsPerRow + w] = bits;
+			}
+			words[(j + 1) * wordsPerRow - 1] &= BitKernel.lastWordMask(regionWidth);
+		}
+		return grid;
+	}
+	
+	/*
+	 * Returns one word of a row of the current generation, counting words from the left edge of the board; words off
+	 * the board are dead
+	 */
+	private long word(int y, int boardWord) {
+		if (boardWord < 0 || boardWord >= boardWords) {
+			return 0;
+		}
+		return tile(current, (y / tileSide) * tilesAcross + boardWord / tileWords)[(y % tileSide) * tileWords +
+				boardWord % tileWords];
+	}
+	
+	/*
+	 * Changes one word of a row of the current generation, in the cache and in the file alone. If the current copy is
+	 * the one checkpointed, it is first copied, so that the checkpoint stays as it is.
+	 */
+	private void putWord(int y, int boardWord, long value) {
+		if (current == checkpointed) {
+			int spare = spare();
+			for (int index = 0; index < tileCount; index++) {
+				copyTile(current, spare, index);
+			}
+			current = spare;
+			previous = -1;
+		}
+		int index = (y / tileSide) * tilesAcross + boardWord / tileWords, word = (y % tileSide) * tileWords +
+				boardWord % tileWords;
+		long key = (long) current * tileCount + index;
+		tile(current, index)[word] = value;
+		segment(key).putLong(offset(key) + word * 8, value);
+		changed.set(index);
+	}
+	
+	/**
+	 * @return the number of living Cells on the board, found by reading every tile
+	 */
+	public long population() {
+		long population = 0;
+		for (int index = 0; index < tileCount; index++) {
+			for (long word : tile(current, index)) {
+				population += Long.bitCount(word);
+			}
+		}
+		return population;
+	}
+	
+	/**
+	 * Updates the states of all Cells to the next generation and increments the generation number by 1.
+	 */
+	public void nextGen() {
+		int other = previous >= 0 && previous != checkpointed ? previous : spare(), rows = tileSide + 2;
+		int words = tileWords + 2;
+		boolean stale = other != previous;  // whether the copy written into may differ where tiles are skipped
+		long[] work = new long[rows * words], stepped = new long[work.length];
+		BitSet nextChanged = new BitSet(tileCount);
+		
+		for (int ty = 0; ty < tilesDown; ty++) {
+			for (int tx = 0; tx < tilesAcross; tx++) {
+				int index = ty * tilesAcross + tx;
+				if (!neighborhoodChanged(tx, ty)) {
+					tilesSkipped++;
+					if (stale) {
+						copyTile(current, other, index);
+					}
+					continue;
+				}
+				tilesStepped++;
+				
+				// Copy the tile with a halo of one row and one word from each of its eight neighbours
+				Arrays.fill(work, 0);
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (tx + dx >= 0 && tx + dx < tilesAcross && ty + dy >= 0 && ty + dy < tilesDown) {
+							copyHalo(tile(current, index + dy * tilesAcross + dx), dx, dy, work, words);
+						}
+					}
+				}
+				BitKernel.step(work, stepped, rows, words, -1L);
+				
+				// Copy the interior out, keeping Cells past the edges of the board dead
+				long[] next = new long[tileSide * tileWords];
+				int validRows = Math.min(tileSide, height - ty * tileSide);
+				for (int r = 0; r < validRows; r++) {
+					System.arraycopy(stepped, (r + 1) * words + 1, next, r * tileWords, tileWords);
+					for (int w = 0; w < tileWords; w++) {
+						int firstCell = tx * tileSide + w * 64;
+						if (firstCell + 64 > width) {
+							next[r * tileWords + w] &= firstCell >= width ? 0 : BitKernel.lastWordMask(width);
+						}
+					}
+				}
+				if (!Arrays.equals(next, tile(current, index))) {
+					nextChanged.set(index);
+				}
+				write(other, index, next);
+			}
+		}
+		previous = current;
+		current = other;
+		changed = nextChanged;
+		gen++;
+	}
+	
+	/**
+	 * Computes a number of generations back to back. If the number is not positive, this method performs no action.
+	 *
+	 * @param generations the number of generations to advance by
+	 */
+	public void advance(int generations) {
+		for (int i = 0; i < generations; i++) {
+			nextGen();
+		}
+	}
+	
+	/*
+	 * Returns whether a tile or any of its neighbours changed in the last generation
+	 */
+	private boolean neighborhoodChanged(int tx, int ty) {
+		for (int y = Math.max(ty - 1, 0); y <= Math.min(ty + 1, tilesDown - 1); y++) {
+			int row = y * tilesAcross;
+			int next = changed.nextSetBit(row + Math.max(tx - 1, 0));
+			if (next >= 0 && next <= row + Math.min(tx + 1, tilesAcross - 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Copies into the working buffer the part of a neighbouring tile, at offset (dx, dy) from the tile being stepped,
+	 * that borders it: the whole tile for (0, 0), an edge row or edge word column for a side, a single word for a corner
+	 */
+	private void copyHalo(long[] tile, int dx, int dy, long[] work, int words) {
+		int firstRow = dy < 0 ? tileSide - 1 : 0, lastRow = dy > 0 ? 0 : tileSide - 1;
+		int firstWord = dx < 0 ? tileWords - 1 : 0, lastWord = dx > 0 ? 0 : tileWords - 1;
+		int workRow = dy < 0 ? 0 : dy > 0 ? tileSide + 1 : 1, workWord = dx < 0 ? 0 : dx > 0 ? tileWords + 1 : 1;
+		for (int r = firstRow; r <= lastRow; r++) {
+			System.arraycopy(tile, r * tileWords + firstWord, work, (workRow + r - firstRow) * words + workWord,
+					lastWord - firstWord + 1);
+		}
+	}
+	
+	/*
+	 * Returns a copy of the board that is neither the current one nor the one checkpointed
+	 */
+	private int spare() {
+		int copy = 0;
+		while (copy == current || copy == checkpointed) {
+			copy++;
+		}
+		return copy;
+	}
+	
+	/*
+	 * Returns a tile of one copy of the board from the cache, or reads it from the file into the cache
+	 */
+	private long[] tile(int copy, int index) {
+		long key = (long) copy * tileCount + index;
+		long[] tile = cache.get(key);
+		if (tile == null) {
+			tile = new long[tileSide * tileWords];
+			tileBuffer(key).asLongBuffer().get(tile);
+			cache(key, tile);
+		}
+		return tile;
+	}
+	
+	/*
+	 * Writes a tile of one copy of the board to the file, and keeps it in the cache
+	 */
+	private void write(int copy, int index, long[] tile) {
+		long key = (long) copy * tileCount + index;
+		tileBuffer(key).asLongBuffer().put(tile);
+		cache(key, tile);
+	}
+	
+	/*
+	 * Copies a tile from one copy of the board to another in the file, dropping any cached tile it replaces
+	 */
+	private void copyTile(int from, int to, int index) {
+		long key = (long) to * tileCount + index;
+		tileBuffer(key).put(tileBuffer((long) from * tileCount + index));
+		cache.remove(key);
+	}
+	
+	/*
+	 * Keeps a tile in the cache. If the cache is then too full, a tile that the next generation will not read is
+	 * evicted: one of an older copy, or one whose neighbourhood did not change. Only the least recently used few are
+	 * looked at; if none of them can go, the least recently used goes.
+	 */
+	private void cache(long key, long[] tile) {
+		cache.put(key, tile);
+		if (cache.size() <= cacheTiles) {
+			return;
+		}
+		Iterator<Long> keys = cache.keySet().iterator();
+		for (int seen = 0; seen < EVICTION_SCAN && keys.hasNext(); seen++) {
+			long next = keys.next();
+			int index = (int) (next % tileCount);
+			if (next / tileCount != current || !neighborhoodChanged(index % tilesAcross, index / tilesAcross)) {
+				keys.remove();
+				return;
+			}
+		}
+		cache.remove(cache.keySet().iterator().next());
+	}
+	
+	/*
+	 * Returns a little-endian view of the bytes of a tile in the file
+	 */
+	private ByteBuffer tileBuffer(long key) {
+		ByteBuffer view = segment(key).duplicate();
+		int offset = offset(key);
+		view.position(offset).limit(offset + (int) tileBytes);
+		return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/*
+	 * Returns the little-endian mapping of the segment of the file holding a tile, mapping it if need be
+	 */
+	private MappedByteBuffer segment(long key) {
+		int segment = (int) (key / tilesPerSegment);
+		if (segments[segment] == null) {
+			long first = (long) segment * tilesPerSegment;
+			long size = Math.min(tilesPerSegment, COPIES * tileCount - first) * tileBytes;
+			try {
+				segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first * tileBytes, size);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot map the board file", e);
+			}
+			segments[segment].order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return segments[segment];
+	}
+	
+	/*
+	 * Returns the offset of a tile within its segment
+	 */
+	private int offset(long key) {
+		return (int) ((key % tilesPerSegment) * tileBytes);
+	}
+	
+	/**
+	 * Flushes the current generation to disk and then records it in the header, so that open() resumes from it even if
+	 * the process is killed. Until the next checkpoint, the copy holding it is not written again.
+	 */
+	public void checkpoint() {
+		for (MappedByteBuffer segment : segments) {
+			if (segment != null) {
+				segment.force();
+			}
+		}
+		header.putInt(24, gen).putInt(28, current);
+		header.force();
+		checkpointed = current;
+	}
+	
+	/**
+	 * @return the number of tile steps computed so far
+	 */
+	public long getTilesStepped() {
+		return tilesStepped;
+	}
+	
+	/**
+	 * @return the number of tile steps skipped so far because the tile and its neighbours were unchanged
+	 */
+	public long getTilesSkipped() {
+		return tilesSkipped;
+	}
+	
+	/**
+	 * Checkpoints the board and closes its file.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		checkpoint();
+		channel.close();
+	}
+	
+	/*
+	 * Checks paged stepping against GameOfLife, including across a checkpoint, and measures a large sparse board
+	 */
+	public static void main(String[] args) throws IOException {
+		Path file = Files.createTempFile("paged-board", ".life");
+		try {
+			GameOfLife game = new GameOfLife(1000, 700);
+			game.randomSetup();
+			BitGrid initial = game.snapshot();
+			try (PagedBoard board = create(file, 1000, 700, 128, 32)) {
+				board.paste(initial, 0, 0);
+				board.advance(30);
+				board.checkpoint();
+				board.set(5, 5, !board.get(5, 5));  // an edit, undone, which moves the board off the checkpoint
+				board.set(5, 5, !board.get(5, 5));
+				board.advance(7);
+				game.advance(30);
+				
+				// As if the process had been killed, the file is opened again while the board is still open
+				try (PagedBoard crashed = open(file, 32)) {
+					System.out.println("A 1000 * 700 board in 128-cell tiles, opened again 7 generations after a " +
+							"checkpoint at 30, resumes from the checkpoint: " + (crashed.getGen() == 30 &&
+							crashed.copy(0, 0, 1000, 700).equals(game.snapshot())));
+				}
+			}
+			try (PagedBoard board = open(file, 32)) {
+				board.advance(23);
+				game.advance(30);
+				System.out.println("Closed at 37 and reopened, it matches GameOfLife after 60: " +
+						(board.getGen() == 60 && board.copy(0, 0, 1000, 700).equals(game.snapshot())) +
+						"; a region copied from an unaligned corner matches too: " +
+						board.copy(37, 11, 500, 300).equals(game.snapshot().copy(37, 11, 500, 300)));
+				System.out.println("  " + board.getTilesSkipped() + " of " + (board.getTilesStepped() +
+						board.getTilesSkipped()) + " tile steps were skipped as stable");
+			}
+			try (PagedBoard board = create(file, 300, 200, 64, 4)) {
+				BitGrid pattern = initial.copy(0, 0, 150, 90), expected = new BitGrid(300, 200);
+				for (int[] at : new int[][] {{70, 3}, {-5, -7}, {200, 150}}) {
+					board.paste(pattern, at[0], at[1]);
+					expected.paste(pattern, at[0], at[1], PasteMode.OR);
+				}
+				System.out.println("Pasting word by word at unaligned places matches BitGrid.paste(): " +
+						board.copy(0, 0, 300, 200).equals(expected));
+			}
+			
+			int side = args.length > 0 ? Integer.parseInt(args[0]) : 32768, generations = 20;
+			try (PagedBoard board = create(file, side, side, TILE_SIDE_DEFAULT, CACHE_TILES_DEFAULT)) {
+				Random random = new Random(1);
+				for (int i = 0; i < 200; i++) {
+					board.paste(BitGrid.fromText(".O.\n..O\nOOO"), random.nextInt(side), random.nextInt(side));
+				}
+				long start = System.nanoTime();
+				board.nextGen();
+				long firstNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				board.advance(generations);
+				long nanos = System.nanoTime() - start;
+				System.out.println("A " + side + " * " + side + " board (" + Files.size(file) / 1024 / 1024 +
+						" MB file) with 200 gliders: the first generation, stepping every tile, takes " + firstNanos /
+						1000000 + " ms; the next " + generations + " take " + nanos / generations / 1000000 +
+						" ms each, " + board.getTilesSkipped() * 100 / (board.getTilesStepped() + board.getTilesSkipped()) +
+						"% of tile steps skipped as stable; population " + board.population());
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+/**
+ * The ways a pattern of living and dead cells can be combined with the cells already on a board when it is pasted there.
+ */
+public enum PasteMode {
+	
+	/**
+	 * Every cell covered by the pattern takes the state of the pattern's cell, dead cells of the pattern included
+	 */
+	REPLACE,
+	
+	/**
+	 * Living cells of the pattern are set alive; the rest of the board is left unchanged
+	 */
+	OR,
+	
+	/**
+	 * Living cells of the pattern toggle the state of the cells they cover; the rest of the board is left unchanged
+	 */
+	XOR
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Counts the living Cells of each generation and the Cells born and died in it.
+ */
+public class PopulationStatistics implements StatisticsCollector {
+	
+	private int gen;
+	private long population, births, deaths;
+	
+	@Override
+	public void begin(int gen, int width, int height) {
+		this.gen = gen;
+		population = 0;
+		births = 0;
+		deaths = 0;
+	}
+	
+	@Override
+	public void acceptWords(int y, int firstWord, long[] before, long[] after, int offset, int count) {
+		for (int i = offset; i < offset + count; i++) {
+			population += Long.bitCount(after[i]);
+			births += Long.bitCount(after[i] & ~before[i]);
+			deaths += Long.bitCount(before[i] & ~after[i]);
+		}
+	}
+	
+	@Override
+	public StatisticsCollector newPartial() {
+		PopulationStatistics partial = new PopulationStatistics();
+		partial.gen = gen;
+		return partial;
+	}
+	
+	@Override
+	public void merge(StatisticsCollector partial) {
+		PopulationStatistics other = (PopulationStatistics) partial;
+		population += other.population;
+		births += other.births;
+		deaths += other.deaths;
+	}
+	
+	/**
+	 * @return the number of the generation the results are for
+	 */
+	public int getGen() {
+		return gen;
+	}
+	
+	/**
+	 * @return the number of living Cells
+	 */
+	public long getPopulation() {
+		return population;
+	}
+	
+	/**
+	 * @return the number of Cells born in the generation
+	 */
+	public long getBirths() {
+		return births;
+	}
+	
+	/**
+	 * @return the number of Cells that died in the generation
+	 */
+	public long getDeaths() {
+		return deaths;
+	}
+	
+	@Override
+	public String toString() {
+		return "Generation " + gen + ": population " + population + ", births " + births + ", deaths " + deaths;
+	}
+
+}
@@ -0,0 +1,339 @@
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * A GameBoard that stores the value of each GamePiece in a flat primitive array in row-major order instead of keeping one
+ * GamePiece object per square. Values are held one byte per square, and the whole board is widened to one int per square
+ * the first time a value outside the byte range is placed on it. This takes a small fraction of the memory of a
+ * GameBoard, whose squares each cost a reference plus a GamePiece object.
+ *
+ * GamePieces handed out by getPiece are made on demand by a piece factory, typically the constructor of the GamePiece
+ * subclass used by the game, such as Cell::new. They are detached views: changing the state of a returned GamePiece does
+ * not change the board; call setPiece or setValue to do that. A value of EMPTY marks a square without a GamePiece, so a
+ * GamePiece with that value cannot be stored.
+ */
+public class PrimitiveGameBoard extends GameBoard {
+	
+	/**
+	 * The value reported by getValue for an empty square or a location not on the board
+	 */
+	public static final int EMPTY = Integer.MIN_VALUE;
+	
+	private static final byte BYTE_EMPTY = Byte.MIN_VALUE;
+	
+	private final IntFunction<? extends GamePiece> pieceFactory;
+	private byte[] bytes;  // the values while they all fit in a byte, null once widened
+	private int[] ints;    // the values once widened, null before
+	
+	/**
+	 * Constructs a rectangular PrimitiveGameBoard given a specified width and a specified height. The width and height must
+	 * be positive integers. If non-positive values are received, the board constructed has dimension 8 * 8.
+	 * All squares on the board constructed are empty.
+	 *
+	 * @param width the width of the new game board
+	 * @param height the height of the new game board
+	 * @param pieceFactory makes the GamePiece that getPiece returns for a given value
+	 */
+	public PrimitiveGameBoard(int width, int height, IntFunction<? extends GamePiece> pieceFactory) {
+		super(width, height, false);
+		this.pieceFactory = pieceFactory;
+		this.bytes = new byte[getWidth() * getHeight()];
+		Arrays.fill(bytes, BYTE_EMPTY);
+	}
+	
+	/**
+	 * Constructs a square PrimitiveGameBoard given a specified width. The width must be a positive integer.
+	 * If a non-positive value is received, the board constructed has dimension 8 * 8.
+	 * All squares on the board constructed are empty.
+	 *
+	 * @param width the width of the new square game board
+	 * @param pieceFactory makes the GamePiece that getPiece returns for a given value
+	 */
+	public PrimitiveGameBoard(int width, IntFunction<? extends GamePiece> pieceFactory) {
+		this(width, width, pieceFactory);
+	}
+	
+	/**
+	 * Constructs a PrimitiveGameBoard given a 2D array of GamePieces that is a matrix with size greater than 0, copying the
+	 * value of each GamePiece. Null elements are empty squares. If a 2D array with size 0 is received, the board constructed
+	 * has dimension 8 * 8 with all squares empty.
+	 *
+	 * @param board the initial setup of the new game board as a 2D array of GamePieces
+	 * @param pieceFactory makes the GamePiece that getPiece returns for a given value
+	 */
+	public PrimitiveGameBoard(GamePiece[][] board, IntFunction<? extends GamePiece> pieceFactory) {
+		this(board.length > 0 ? board[0].length : 0, board.length, pieceFactory);
+		if (board.length > 0 && board[0].length > 0) {
+			for (int y = 0; y < getHeight(); y++) {
+				for (int x = 0; x < getWidth(); x++) {
+					if (board[y][x] != null) {
+						setValue(x, y, board[y][x].getValue());
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @return the value of the GamePiece at the location specified, EMPTY if the location is empty or not on board
+	 */
+	public int getValue(int x, int y) {
+		if (!onBoard(x, y)) {
+			return EMPTY;
+		}
+		int i = y * getWidth() + x;
+		if (ints != null) {
+			return ints[i];
+		}
+		byte value = bytes[i];
+		return value == BYTE_EMPTY ? EMPTY : value;
+	}
+	
+	/**
+	 * Places a GamePiece with the value specified at a location on this board, or empties the location if the value is
+	 * EMPTY. If the location specified is not on the board, this method performs no action.
+	 *
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @param value the value of the GamePiece to place, or EMPTY
+	 */
+	public void setValue(int x, int y, int value) {
+		if (!onBoard(x, y)) {
+			return;
+		}
+		int i = y * getWidth() + x;
+		if (ints == null && (value == EMPTY || (Byte.MIN_VALUE < value && value <= Byte.MAX_VALUE))) {
+			bytes[i] = value == EMPTY ? BYTE_EMPTY : (byte) value;
+			return;
+		}
+		if (ints == null) {
+			widen();
+		}
+		ints[i] = value;
+	}
+	
+	/*
+	 * Moves every value from the byte array to a new int array. This happens at most once in the lifetime of the board.
+	 */
+	private void widen() {
+		ints = new int[bytes.length];
+		for (int i = 0; i < bytes.length; i++) {
+			ints[i] = bytes[i] == BYTE_EMPTY ? EMPTY : bytes[i];
+		}
+		bytes = null;
+	}
+	
+	/**
+	 * Clears this PrimitiveGameBoard by emptying every square.
+	 */
+	@Override
+	public void clear() {
+		if (ints != null) {
+			Arrays.fill(ints, EMPTY);
+		}
+		else {
+			Arrays.fill(bytes, BYTE_EMPTY);
+		}
+	}
+	
+	/**
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @return whether there is a GamePiece at the location specified
+	 */
+	@Override
+	public boolean hasPiece(int x, int y) {
+		return getValue(x, y) != EMPTY;
+	}
+	
+	/**
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @return a new GamePiece with the value stored at the location specified, null if the location is empty or not on board
+	 */
+	@Override
+	public GamePiece getPiece(int x, int y) {
+		int value = getValue(x, y);
+		if (value == EMPTY) {
+			return null;
+		}
+		else {
+			return pieceFactory.apply(value);
+		}
+	}
+	
+	/**
+	 * Stores the value of a specified GamePiece at a specific location on this board. The GamePiece itself is not kept,
+	 * so later changes to it do not affect the board. A null GamePiece empties the location.
+	 *
+	 * @param x the x-coordinate of the location specified
+	 * @param y the y-coordinate of the location specified
+	 * @param piece the GamePiece whose value to place on the location specified
+	 * @return a GamePiece with the value replaced; null if the location is empty or not on board
+	 */
+	@Override
+	public GamePiece setPiece(int x, int y, GamePiece piece) {
+		GamePiece prev = getPiece(x, y);
+		setValue(x, y, piece == null ? EMPTY : piece.getValue());
+		return prev;
+	}
+	
+	/**
+	 * Places a GamePiece with the value of a specified GamePiece on every square of a rectangular region of this board, or
+	 * empties the region if the GamePiece is null. The parts of the region that are not on the board are ignored.
+	 *
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @param piece the GamePiece whose value to fill the region with, or null
+	 */
+	@Override
+	public void fill(int x, int y, int width, int height, GamePiece piece) {
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + width, getWidth());
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + height, getHeight());
+		if (x0 >= x1 || y0 >= y1) {
+			return;
+		}
+		
+		int value = piece == null ? EMPTY : piece.getValue();
+		setValue(x0, y0, value);  // widens the board first if the value does not fit in a byte
+		for (int j = y0; j < y1; j++) {
+			int from = j * getWidth() + x0, to = j * getWidth() + x1;
+			if (ints != null) {
+				Arrays.fill(ints, from, to, value);
+			}
+			else {
+				Arrays.fill(bytes, from, to, value == EMPTY ? BYTE_EMPTY : (byte) value);
+			}
+		}
+	}
+	
+	/**
+	 * Copies a rectangular region of this board into a new PrimitiveGameBoard with the same piece factory and the same
+	 * dimension as the region. Parts of the region that are not on this board are left empty in the copy.
+	 *
+	 * @param x the x-coordinate of the upper left corner of the region
+	 * @param y the y-coordinate of the upper left corner of the region
+	 * @param width the width of the region
+	 * @param height the height of the region
+	 * @return a new PrimitiveGameBoard holding the region; null if the width or height is not positive
+	 */
+	@Override
+	public PrimitiveGameBoard copyRegion(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		PrimitiveGameBoard region = new PrimitiveGameBoard(width, height, pieceFactory);
+		region.paste(this, -x, -y);
+		return region;
+	}
+	
+	/**
+	 * Pastes another GameBoard onto this one with its upper left corner at the location specified, copying the value of
+	 * every square covered. When the source is also a PrimitiveGameBoard each row is copied with a single array copy.
+	 * The parts of the source that fall outside this board are ignored.
+	 *
+	 * @param source the GameBoard to paste
+	 * @param x the x-coordinate on this board of the upper left corner of the source
+	 * @param y the y-coordinate on this board of the upper left corner of the source
+	 */
+	@Override
+	public void paste(GameBoard source, int x, int y) {
+		if (!(source instanceof PrimitiveGameBoard)) {
+			super.paste(source, x, y);
+			return;
+		}
+		PrimitiveGameBoard primitive = (PrimitiveGameBoard) source;
+		if (primitive == this) {
+			primitive = copyRegion(0, 0, getWidth(), getHeight());  // rows being read must not change while they are pasted
+		}
+		int x0 = Math.max(x, 0), x1 = (int) Math.min((long) x + primitive.getWidth(), getWidth());
+		int y0 = Math.max(y, 0), y1 = (int) Math.min((long) y + primitive.getHeight(), getHeight());
+		if (x0 >= x1 || y0 >= y1) {
+			return;
+		}
+		
+		if (primitive.ints != null && ints == null) {
+			widen();
+		}
+		for (int j = y0; j < y1; j++) {
+			int from = (j - y) * primitive.getWidth() + (x0 - x), to = j * getWidth() + x0;
+			if (ints == null) {
+				System.arraycopy(primitive.bytes, from, bytes, to, x1 - x0);
+			}
+			else if (primitive.ints != null) {
+				System.arraycopy(primitive.ints, from, ints, to, x1 - x0);
+			}
+			else {
+				for (int i = 0; i < x1 - x0; i++) {
+					byte value = primitive.bytes[from + i];
+					ints[to + i] = value == BYTE_EMPTY ? EMPTY : value;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the String representation of this PrimitiveGameBoard, in the same format as that of a GameBoard
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		for (int y = 0; y < getHeight(); y++) {
+			if (y != 0) {
+				out.append('\n');
+			}
+			out.append('[');
+			for (int x = 0; x < getWidth(); x++) {
+				if (x != 0) {
+					out.append(", ");
+				}
+				out.append(getPiece(x, y));
+			}
+			out.append(']');
+		}
+		return out.toString();
+	}
+	
+	/*
+	 * Tests the methods in the PrimitiveGameBoard class
+	 */
+	public static void main(String[] args) {
+		PrimitiveGameBoard board1 = new PrimitiveGameBoard(5, 10, Cell::new);
+		System.out.println("A rectangular PrimitiveGameBoard of Cells with dimension 5 * 10 is: \n" + board1);
+		gameBoardTestser(board1);
+		System.out.println();
+		
+		PrimitiveGameBoard board2 = new PrimitiveGameBoard(-1, Cell::new);
+		System.out.println("Receives invalid side length -1, \nconstructs an 8 * 8 default PrimitiveGameBoard: \n" + board2);
+		gameBoardTestser(board2);
+		System.out.println();
+		
+		Cell[][] setup = new Cell[3][4];
+		setup[1][2] = new Cell(Cell.ALIVE);
+		setup[2][0] = new Cell(Cell.DEAD);
+		PrimitiveGameBoard board3 = new PrimitiveGameBoard(setup, Cell::new);
+		System.out.println("A PrimitiveGameBoard with initial setup \n\"" + Arrays.deepToString(setup) + "\" \nis: \n" + board3);
+		System.out.println("The value at (2,1) is " + board3.getValue(2, 1));
+		System.out.println("The value at (0,0) is EMPTY? " + (board3.getValue(0, 0) == EMPTY));
+		
+		GamePiece view = board3.getPiece(2, 1);
+		view.changeState(Cell.DEAD);
+		System.out.println("Changing a piece returned by getPiece leaves the board unchanged: (2,1) is still "
+				+ board3.getPiece(2, 1));
+		
+		PrimitiveGameBoard copy = board3.copyRegion(1, 1, 2, 2);
+		board3.fill(0, 0, 4, 3, new Cell(Cell.DEAD));
+		board3.paste(copy, 0, 0);
+		System.out.println("The 2 * 2 region at (1,1) is copied, the board is filled with dead cells and the copy is " +
+				"pasted at (0,0): \n" + board3);
+		
+		board3.setValue(3, 0, 1000);
+		System.out.println("After storing the value 1000 at (3,0), the board is widened; the value there is "
+				+ board3.getValue(3, 0) + " and the value at (1,0) is still " + board3.getValue(1, 0));
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * The reference LifeEngine, which steps each Cell on its own by counting its eight neighbours and looking up the rule,
+ * exactly as GameOfLife.willBeAlive describes. It is the slowest engine and the simplest, and it plays any two-state
+ * rule, so it is the one the others are checked against.
+ */
+public class ReferenceEngine implements LifeEngine {
+	
+	private final GenerationsRule rule;
+	private BitGrid cells;
+	
+	/**
+	 * Constructs a ReferenceEngine with all Cells dead. The width and height must be positive; if they are not, the board
+	 * is 20 * 20. If the rule is null or has more than two states, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public ReferenceEngine(int width, int height, GenerationsRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		this.rule = rule != null && rule.getStates() == 2 ? rule : EngineType.CONWAY;
+		cells = new BitGrid(width, height);
+	}
+	
+	@Override
+	public String getName() {
+		return "reference";
+	}
+	
+	@Override
+	public int getWidth() {
+		return cells.getWidth();
+	}
+	
+	@Override
+	public int getHeight() {
+		return cells.getHeight();
+	}
+	
+	@Override
+	public boolean get(int x, int y) {
+		return cells.get(x, y);
+	}
+	
+	@Override
+	public void set(int x, int y, boolean alive) {
+		if (cells.onGrid(x, y)) {
+			cells.set(x, y, alive);
+		}
+	}
+	
+	@Override
+	public void step() {
+		BitGrid next = new BitGrid(getWidth(), getHeight());
+		for (int y = 0; y < getHeight(); y++) {
+			for (int x = 0; x < getWidth(); x++) {
+				int livingNeighbors = 0;
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if ((dx != 0 || dy != 0) && cells.get(x + dx, y + dy)) {
+							livingNeighbors++;
+						}
+					}
+				}
+				if (rule.next(cells.get(x, y) ? 1 : 0, livingNeighbors) == 1) {
+					next.set(x, y, true);
+				}
+			}
+		}
+		cells = next;
+	}
+	
+	@Override
+	public int population() {
+		return cells.population();
+	}
+	
+	@Override
+	public BitGrid snapshot() {
+		return new BitGrid(cells);
+	}
+	
+	@Override
+	public void load(BitGrid cells) {
+		BitGrid copy = new BitGrid(getWidth(), getHeight());
+		copy.paste(cells, 0, 0, PasteMode.REPLACE);
+		this.cells = copy;
+	}
+
+}
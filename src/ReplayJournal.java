@@ -0,0 +1,507 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * A compact record of a GameOfLife session, from which any generation it reached can be rebuilt exactly. Once given to
+ * GameOfLife.setJournal(), the journal holds the board as it was then, followed by every edit of the board, every random
+ * setup as its seed, and the number of generations computed between them; since stepping is deterministic, replaying
+ * the records with replay() reproduces the session Cell for Cell. Runs of generations without edits in between are
+ * recorded as one count, so a long run costs a few bytes rather than a board per generation.
+ *
+ * Records are put into a buffer and written to the channel only when the buffer fills, on flush() and on close(), so
+ * recording costs the game a few stores per edit and nothing per generation. A journal is meant to be used by the thread
+ * that changes the game. If writing to the channel fails, later records are dropped and close() throws the failure.
+ *
+ * The format is a header of MAGIC, the version and the rule, then records of one type byte followed by big-endian ints:
+ * <pre>
+ * 'S' width height gen grid       the whole board, written when recording starts
+ * 'R' seed (a long)               randomSetup(seed)
+ * 'A' x y, 'D' x y                a Cell set alive or dead
+ * 'F' x y width height alive      fillRegion(), alive being one byte
+ * 'P' x y mode grid               paste() with the PasteMode of that ordinal, as one byte
+ * 'C'                             clear()
+ * 'G' count                       count generations computed
+ * </pre>
+ * A grid is its width and height, then either 'c' and the number of its living Cells and the x and y of each, or 'w'
+ * and its words as in BitGrid, whichever is shorter.
+ */
+public class ReplayJournal implements Closeable {
+	
+	/**
+	 * The number of bytes held before they are written to the channel
+	 */
+	public static final int BUFFER_BYTES_DEFAULT = 1 << 16;
+	
+	/**
+	 * The first eight bytes of every journal, "LIFEJRNL" in ASCII
+	 */
+	public static final long MAGIC = 0x4C4946454A524E4CL;
+	
+	private static final int VERSION = 1;
+	private static final byte SNAPSHOT = 'S', RANDOM = 'R', ALIVE = 'A', DEAD = 'D', FILL = 'F', PASTE = 'P', CLEAR = 'C',
+			STEPS = 'G';
+	private static final byte CELL_LIST = 'c', WORD_LIST = 'w';
+	
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private int pendingSteps;  // generations computed since the last record, not yet written
+	private long bytes;
+	private IOException failure;
+	
+	/**
+	 * Constructs a ReplayJournal writing to a channel through a buffer of BUFFER_BYTES_DEFAULT bytes, and writes the
+	 * header into the buffer.
+	 *
+	 * @param channel the channel to write to, such as one from FileChannel.open() or Channels.newChannel()
+	 */
+	public ReplayJournal(WritableByteChannel channel) {
+		this(channel, BUFFER_BYTES_DEFAULT);
+	}
+	
+	/**
+	 * Constructs a ReplayJournal writing to a channel through a buffer of the size given, and writes the header into the
+	 * buffer. Buffers smaller than 64 bytes are made 64 bytes.
+	 *
+	 * @param channel the channel to write to
+	 * @param bufferBytes the number of bytes held before they are written to the channel
+	 */
+	public ReplayJournal(WritableByteChannel channel, int bufferBytes) {
+		this.channel = channel;
+		buffer = ByteBuffer.allocate(Math.max(bufferBytes, 64));
+		buffer.putLong(MAGIC).putInt(VERSION);
+		byte[] rule = EngineType.CONWAY.toString().getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(rule.length).put(rule);
+	}
+	
+	/*
+	 * Records the whole board, when a game starts recording to this journal
+	 */
+	void start(int width, int height, int gen, BitGrid cells) {
+		record(SNAPSHOT, 12).putInt(width).putInt(height).putInt(gen);
+		putGrid(cells);
+	}
+	
+	/*
+	 * Records a Cell set alive or dead
+	 */
+	void cell(int x, int y, boolean alive) {
+		record(alive ? ALIVE : DEAD, 8).putInt(x).putInt(y);
+	}
+	
+	/*
+	 * Records a region filled
+	 */
+	void fill(int x, int y, int width, int height, boolean alive) {
+		record(FILL, 17).putInt(x).putInt(y).putInt(width).putInt(height).put((byte) (alive ? 1 : 0));
+	}
+	
+	/*
+	 * Records a pattern pasted
+	 */
+	void paste(BitGrid pattern, int x, int y, PasteMode mode) {
+		record(PASTE, 9).putInt(x).putInt(y).put((byte) mode.ordinal());
+		putGrid(pattern);
+	}
+	
+	/*
+	 * Records the board cleared
+	 */
+	void clear() {
+		record(CLEAR, 0);
+	}
+	
+	/*
+	 * Records a random setup by its seed
+	 */
+	void random(long seed) {
+		record(RANDOM, 8).putLong(seed);
+	}
+	
+	/*
+	 * Counts generations computed, to be written as one record before the next edit or on flush
+	 */
+	void steps(int generations) {
+		if (pendingSteps > Integer.MAX_VALUE - generations) {
+			writeSteps();
+		}
+		pendingSteps += generations;
+	}
+	
+	/*
+	 * Writes the generations counted since the last record, if any
+	 */
+	private void writeSteps() {
+		if (pendingSteps > 0) {
+			int count = pendingSteps;
+			pendingSteps = 0;
+			record(STEPS, 4).putInt(count);
+		}
+	}
+	
+	/*
+	 * Starts a record of a type followed by a number of bytes, writing the generations counted before it and making room
+	 * for it in the buffer; returns the buffer to put the bytes into
+	 */
+	private ByteBuffer record(byte type, int length) {
+		writeSteps();
+		room(1 + length);
+		return buffer.put(type);
+	}
+	
+	/*
+	 * Writes out the buffer if it has less room than a number of bytes, which is at most its capacity
+	 */
+	private void room(int length) {
+		if (buffer.remaining() < length) {
+			drain();
+		}
+	}
+	
+	/*
+	 * Writes the buffer to the channel and empties it; after a failure the buffer is emptied without writing
+	 */
+	private void drain() {
+		buffer.flip();
+		bytes += buffer.remaining();
+		if (failure == null) {
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		buffer.clear();
+	}
+	
+	/*
+	 * Puts a grid as a list of its living Cells or as its words, whichever is shorter, a value at a time so that grids
+	 * larger than the buffer pass through it
+	 */
+	private void putGrid(BitGrid grid) {
+		long[] words = grid.words();
+		int wordsPerRow = grid.wordsPerRow(), population = grid.population();
+		room(13);
+		buffer.putInt(grid.getWidth()).putInt(grid.getHeight());
+		if (population < words.length) {
+			buffer.put(CELL_LIST).putInt(population);
+			for (int y = 0; y < grid.getHeight(); y++) {
+				for (int w = 0; w < wordsPerRow; w++) {
+					for (long alive = words[y * wordsPerRow + w]; alive != 0; alive &= alive - 1) {
+						room(8);
+						buffer.putInt((w << 6) + Long.numberOfTrailingZeros(alive)).putInt(y);
+					}
+				}
+			}
+		}
+		else {
+			buffer.put(WORD_LIST);
+			for (long word : words) {
+				room(8);
+				buffer.putLong(word);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the records held so far, including the generations computed since the last edit, to the channel.
+	 *
+	 * @throws IOException if writing to the channel has failed, now or earlier
+	 */
+	public void flush() throws IOException {
+		writeSteps();
+		drain();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+	
+	/**
+	 * @return the number of bytes recorded so far, including those still held in the buffer
+	 */
+	public long getBytes() {
+		return bytes + buffer.position() + (pendingSteps > 0 ? 5 : 0);
+	}
+	
+	/**
+	 * Writes the records held and closes the channel. Games still recording to the journal should be given another
+	 * journal or null first.
+	 *
+	 * @throws IOException if writing to or closing the channel failed, now or earlier
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Rebuilds the end of a recorded session.
+	 *
+	 * @param channel the channel to read the journal from; it is left open
+	 * @return the game as it was when recording stopped
+	 * @throws IOException if the channel cannot be read or does not hold a journal
+	 */
+	public static GameOfLife replay(ReadableByteChannel channel) throws IOException {
+		return replay(channel, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Rebuilds a generation of a recorded session. The journal is replayed until the game would be advanced past the
+	 * generation given, so edits made at that generation are included; if the session was cleared or set up at random,
+	 * which starts again from generation 0, the first time the generation was reached counts. If the session never
+	 * reached the generation, the game is returned as it was when recording stopped.
+	 *
+	 * @param channel the channel to read the journal from; it is left open
+	 * @param gen the generation to rebuild
+	 * @return the game at that generation, with no journal
+	 * @throws IOException if the channel cannot be read or does not hold a journal
+	 */
+	public static GameOfLife replay(ReadableByteChannel channel, int gen) throws IOException {
+		Reader in = new Reader(channel);
+		if (!in.has(12) || in.buffer.getLong() != MAGIC || in.buffer.getInt() != VERSION || !in.has(4)) {
+			throw new IOException("The channel does not hold a journal");
+		}
+		int ruleLength = in.buffer.getInt();
+		in.require(ruleLength);
+		in.buffer.position(in.buffer.position() + ruleLength);  // the rule, which GameOfLife always plays
+		
+		GameOfLife game = null;
+		while (in.has(1)) {
+			byte type = in.buffer.get();
+			if (game == null && type != SNAPSHOT) {
+				throw new IOException("The journal does not start with the board");
+			}
+			switch (type) {
+				case SNAPSHOT:
+					in.require(12);
+					int width = in.buffer.getInt(), height = in.buffer.getInt(), start = in.buffer.getInt();
+					BitGrid cells = in.grid();
+					if (game == null || game.getWidth() != width || game.getHeight() != height) {
+						game = new GameOfLife(width, height);
+					}
+					game.restore(cells, start);
+					break;
+				case RANDOM:
+					in.require(8);
+					game.randomSetup(in.buffer.getLong());
+					break;
+				case ALIVE:
+				case DEAD:
+					in.require(8);
+					game.setCell(in.buffer.getInt(), in.buffer.getInt(), type == ALIVE ? Cell.ALIVE : Cell.DEAD);
+					break;
+				case FILL:
+					in.require(17);
+					game.fillRegion(in.buffer.getInt(), in.buffer.getInt(), in.buffer.getInt(), in.buffer.getInt(),
+							in.buffer.get() == 1 ? Cell.ALIVE : Cell.DEAD);
+					break;
+				case PASTE:
+					in.require(9);
+					int x = in.buffer.getInt(), y = in.buffer.getInt(), mode = in.buffer.get();
+					if (mode < 0 || mode >= PasteMode.values().length) {
+						throw new IOException("The journal holds an unknown paste mode " + mode);
+					}
+					game.paste(in.grid(), x, y, PasteMode.values()[mode]);
+					break;
+				case CLEAR:
+					game.clear();
+					break;
+				case STEPS:
+					in.require(4);
+					int count = in.buffer.getInt();
+					if (game.getGen() <= gen && (long) game.getGen() + count > gen) {
+						game.advance(gen - game.getGen());
+						return game;
+					}
+					game.advance(count);
+					break;
+				default:
+					throw new IOException("The journal holds an unknown record type " + type);
+			}
+		}
+		if (game == null) {
+			throw new IOException("The journal does not hold the board");
+		}
+		return game;
+	}
+	
+	/*
+	 * Reads a journal through a buffer, refilling it as records need more bytes
+	 */
+	private static class Reader {
+		private final ReadableByteChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES_DEFAULT);
+		
+		private Reader(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.flip();  // empty, for reading
+		}
+		
+		/*
+		 * Returns whether a number of bytes, at most the capacity of the buffer, can be read, reading more if needed
+		 */
+		private boolean has(int length) throws IOException {
+			if (buffer.remaining() >= length) {
+				return true;
+			}
+			buffer.compact();
+			while (buffer.position() < length && channel.read(buffer) >= 0) {
+				// read until there is enough or the channel ends
+			}
+			buffer.flip();
+			return buffer.remaining() >= length;
+		}
+		
+		/*
+		 * Makes sure a number of bytes can be read, failing if the journal ends before them
+		 */
+		private void require(int length) throws IOException {
+			if (length < 0 || length > buffer.capacity() || !has(length)) {
+				throw new IOException("The journal ends in the middle of a record");
+			}
+		}
+		
+		/*
+		 * Reads a grid written by putGrid()
+		 */
+		private BitGrid grid() throws IOException {
+			require(9);
+			BitGrid grid = new BitGrid(buffer.getInt(), buffer.getInt());
+			byte form = buffer.get();
+			try {
+				if (form == CELL_LIST) {
+					require(4);
+					for (int n = buffer.getInt(); n > 0; n--) {
+						require(8);
+						grid.set(buffer.getInt(), buffer.getInt(), true);
+					}
+				}
+				else {
+					long[] words = grid.words();
+					for (int i = 0; i < words.length; i++) {
+						require(8);
+						words[i] = buffer.getLong();
+					}
+				}
+			} catch (BufferUnderflowException e) {
+				throw new IOException("The journal holds a broken grid", e);
+			}
+			return grid;
+		}
+	}
+	
+	/*
+	 * Records a session of edits and generations, checks that replaying the journal rebuilds generations along the way,
+	 * and compares its size and cost with keeping a board per generation
+	 */
+	public static void main(String[] args) throws IOException {
+		int side = 256, generations = 2000;
+		Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ReplayJournal journal = new ReplayJournal(Channels.newChannel(out));
+		GameOfLife game = new GameOfLife(side, side);
+		game.setJournal(journal);
+		game.randomSetup(random.nextLong());
+		
+		// Edit the board between advances, keeping the boards of some generations, as they were when they were advanced
+		// from, to check the replay against
+		int[] checked = {0, 1, 17, 500, 1234, generations};
+		BitGrid[] expected = new BitGrid[checked.length];
+		BitGrid glider = BitGrid.fromText(".O.\n..O\nOOO");
+		int next = 0;
+		while (game.getGen() < generations) {
+			switch (random.nextInt(5)) {
+				case 0:
+					game.changeState(random.nextInt(side), random.nextInt(side));
+					break;
+				case 1:
+					game.stamp(glider, random.nextInt(side), random.nextInt(side));
+					break;
+				case 2:
+					game.fillRegion(random.nextInt(side), random.nextInt(side), 8, 8, random.nextInt(2));
+					break;
+				default:
+					EditTransaction edit = game.beginEdit();
+					for (int i = 0; i < 20; i++) {
+						edit.set(random.nextInt(side), random.nextInt(side), true);
+					}
+					edit.commit();
+			}
+			if (checked[next] == game.getGen()) {
+				expected[next++] = game.snapshot();
+			}
+			game.advance(Math.min(1 + random.nextInt(20), checked[next] - game.getGen()));
+		}
+		expected[next] = game.snapshot();
+		game.setJournal(null);
+		journal.close();
+		
+		byte[] recorded = out.toByteArray();
+		System.out.println("A " + side + " * " + side + " session of " + generations + " generations with edits:");
+		System.out.println("  journal: " + recorded.length + " bytes");
+		long frames = (long) generations * game.snapshot().words().length * 8;
+		System.out.println("  one board per generation: " + frames + " bytes, " + frames / recorded.length +
+				" times as much");
+		for (int i = 0; i < checked.length; i++) {
+			long start = System.nanoTime();
+			GameOfLife replayed = replay(Channels.newChannel(new ByteArrayInputStream(recorded)), checked[i]);
+			System.out.printf("  generation %d rebuilt in %.1f ms, same board: %b%n", checked[i],
+					(System.nanoTime() - start) / 1e6, replayed.getGen() == checked[i] &&
+					replayed.snapshot().equals(expected[i]));
+		}
+		
+		// Edits made by an observer during one long advance are journaled in order with the generations around them
+		ByteArrayOutputStream observedOut = new ByteArrayOutputStream();
+		ReplayJournal observedJournal = new ReplayJournal(Channels.newChannel(observedOut));
+		GameOfLife observed = new GameOfLife(side, side);
+		observed.randomSetup(random.nextLong());
+		observed.setJournal(observedJournal);
+		observed.addObserver(g -> g.changeState(g.getGen() % side, g.getGen() % side), 0);
+		observed.advance(300);
+		observed.setJournal(null);
+		observedJournal.close();
+		GameOfLife replayedObserved = replay(Channels.newChannel(new ByteArrayInputStream(observedOut.toByteArray())), 300);
+		System.out.println("  a board edited by an observer at every generation of one advance, rebuilt at generation " +
+				"300, same board: " + replayedObserved.snapshot().equals(observed.snapshot()));
+		
+		// The cost of recording: many single-Cell edits and many short advances, with and without a journal
+		for (int round = 0; round < 2; round++) {
+			for (boolean recording : new boolean[] {false, true}) {
+				GameOfLife timed = new GameOfLife(64, 64);
+				timed.setEngine(EngineType.BIT_GRID.create(64, 64, EngineType.CONWAY));
+				ReplayJournal sink = new ReplayJournal(Channels.newChannel(new ByteArrayOutputStream()));
+				if (recording) {
+					timed.setJournal(sink);
+				}
+				Random edits = new Random(3);
+				long start = System.nanoTime();
+				for (int i = 0; i < 200000; i++) {
+					timed.changeState(edits.nextInt(64), edits.nextInt(64));
+					if (i % 4 == 0) {
+						timed.nextGen();
+					}
+				}
+				long nanos = System.nanoTime() - start;
+				if (round == 1) {
+					System.out.printf("  200000 edits and 50000 generations on 64 * 64 %s: %.1f ms, %d bytes%n",
+							recording ? "recorded" : "unrecorded", nanos / 1e6, recording ? sink.getBytes() : 0);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,439 @@
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/**
+ * Steps a two-state rule on rows of cells packed one bit per cell in longs, as BitKernel does for Conway's Game of Life,
+ * with a kernel made for the rule when it is first asked for. The eight neighbours of the 64 cells of a word are
+ * counted with the same bitwise adders as in BitKernel, giving the count as ones, twos, fours and eights bits, and the
+ * next state is a sum of products of those bits and the cell's own, worked out from the birth and survival sets. Counts
+ * above 8 cannot occur, so the sum is minimised treating them as don't-cares: Conway's rule comes out as
+ * ~fours & twos & (ones | c), and the eights are only used by rules that tell 8 neighbours from none.
+ *
+ * The kernel is written as Java source, compiled in memory and loaded as a hidden class with
+ * MethodHandles.Lookup.defineHiddenClass(), so the JIT compiler sees a loop with the rule's logic written out, just as
+ * BitKernel is. Kernels are cached by rule, and live as long as the program. Making a kernel needs the compiler of a
+ * JDK; without one, forRule() returns null and the rule is left to engines that need no kernel.
+ */
+public class RuleKernel {
+	
+	private static final String CLASS_NAME = "LifeRuleKernel";
+	private static final MethodType STEP_ROWS = MethodType.methodType(void.class, long[].class, long[].class, int.class,
+			int.class, long.class, int.class, int.class);
+	private static final String[] VARIABLES = {"ones", "twos", "fours", "eights", "c"};  // bit i of a minterm
+	private static final Map<String, Optional<RuleKernel>> KERNELS = new ConcurrentHashMap<>();
+	
+	private final GenerationsRule rule;
+	private final String expression;
+	private final MethodHandle stepRows;
+	
+	/*
+	 * Constructs a RuleKernel around the stepping method of a loaded kernel
+	 */
+	private RuleKernel(GenerationsRule rule, String expression, MethodHandle stepRows) {
+		this.rule = rule;
+		this.expression = expression;
+		this.stepRows = stepRows;
+	}
+	
+	/**
+	 * Returns the kernel for a rule, making it the first time the rule is asked for.
+	 *
+	 * @param rule a two-state rule
+	 * @return the kernel, or null if the rule is null or has more than two states, or no kernel could be made
+	 */
+	public static RuleKernel forRule(GenerationsRule rule) {
+		if (rule == null || rule.getStates() != 2) {
+			return null;
+		}
+		return KERNELS.computeIfAbsent(rule.toString(), name -> Optional.ofNullable(make(rule))).orElse(null);
+	}
+	
+	/**
+	 * @return the rule the kernel steps
+	 */
+	public GenerationsRule getRule() {
+		return rule;
+	}
+	
+	/**
+	 * @return the next state of a word of cells c as the kernel computes it, from the bits of the neighbour count
+	 */
+	public String getExpression() {
+		return expression;
+	}
+	
+	/**
+	 * Computes the next generation of a block of rows into another array of the same layout, as BitKernel.step() does.
+	 *
+	 * @param src the current generation, rows * wordsPerRow words
+	 * @param dst receives the next generation; must not be the same array as src
+	 * @param rows the number of rows in the block
+	 * @param wordsPerRow the number of words in each row of the block
+	 * @param lastWordMask the bits of the last word of each row that hold cells; the other bits are left dead
+	 */
+	public void step(long[] src, long[] dst, int rows, int wordsPerRow, long lastWordMask) {
+		try {
+			stepRows.invokeExact(src, dst, rows, wordsPerRow, lastWordMask, 0, rows);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(e);  // the generated method throws nothing checked
+		}
+	}
+	
+	/**
+	 * Computes the next generation of a whole BitGrid.
+	 *
+	 * @param grid the current generation
+	 * @return a new BitGrid holding the next generation
+	 */
+	public BitGrid step(BitGrid grid) {
+		BitGrid next = new BitGrid(grid.getWidth(), grid.getHeight());
+		step(grid.words(), next.words(), grid.getHeight(), grid.wordsPerRow(), BitKernel.lastWordMask(grid.getWidth()));
+		return next;
+	}
+	
+	/*
+	 * Writes, compiles and loads the kernel for a rule, returning null if it cannot be compiled or loaded
+	 */
+	private static RuleKernel make(GenerationsRule rule) {
+		String expression = expression(rule.getBirths(), rule.getSurvivals());
+		byte[] bytes = compile(source(rule, expression));
+		if (bytes == null) {
+			return null;
+		}
+		try {
+			MethodHandles.Lookup kernel = MethodHandles.lookup().defineHiddenClass(bytes, true);
+			return new RuleKernel(rule, expression, kernel.findStatic(kernel.lookupClass(), "stepRows", STEP_ROWS));
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Works out the next state of a word of cells as a minimal sum of products of the bits of its neighbour count and of
+	 * the cell itself, with the literals shared by every product taken out in front.
+	 *
+	 * @param births bit n is set if a dead cell with n living neighbours is born
+	 * @param survivals bit n is set if a living cell with n living neighbours survives
+	 * @return the expression, in Java over the variables ones, twos, fours, eights and c
+	 */
+	static String expression(int births, int survivals) {
+		// A minterm is a count from 0 to 15 in bits 0 to 3 and the cell in bit 4; counts of 9 and up are don't-cares
+		boolean[] on = new boolean[32], off = new boolean[32];
+		for (int minterm = 0; minterm < 32; minterm++) {
+			int count = minterm & 15;
+			if (count <= 8) {
+				on[minterm] = ((minterm < 16 ? births : survivals) >>> count & 1) != 0;
+				off[minterm] = !on[minterm];
+			}
+		}
+		
+		// A cube is a mask of the variables it fixes and their values; it is kept if it covers no off minterm
+		List<int[]> primes = new ArrayList<>();
+		for (int mask = 0; mask < 32; mask++) {
+			for (int value = mask; ; value = (value - 1) & mask) {
+				if (isImplicant(mask, value, off) && coversAny(mask, value, on) && isPrime(mask, value, off)) {
+					primes.add(new int[] {mask, value});
+				}
+				if (value == 0) {
+					break;
+				}
+			}
+		}
+		
+		// Products are chosen greedily, each covering the most on minterms not yet covered, then the fewest literals
+		List<int[]> chosen = new ArrayList<>();
+		boolean[] covered = new boolean[32];
+		while (true) {
+			int[] best = null;
+			int bestGain = 0;
+			for (int[] cube : primes) {
+				int gain = 0;
+				for (int minterm = 0; minterm < 32; minterm++) {
+					gain += on[minterm] && !covered[minterm] && (minterm & cube[0]) == cube[1] ? 1 : 0;
+				}
+				boolean fewer = gain == bestGain && gain > 0 && Integer.bitCount(cube[0]) < Integer.bitCount(best[0]);
+				if (gain > bestGain || fewer) {
+					best = cube;
+					bestGain = gain;
+				}
+			}
+			if (best == null) {
+				break;
+			}
+			chosen.add(best);
+			for (int minterm = 0; minterm < 32; minterm++) {
+				covered[minterm] |= (minterm & best[0]) == best[1];
+			}
+		}
+		if (chosen.isEmpty()) {
+			return "0L";
+		}
+		
+		// The literals every product has in common are written once, in front of the sum of what is left of them
+		int commonMask = 31, commonValue = chosen.get(0)[1];
+		for (int[] cube : chosen) {
+			commonMask &= cube[0] & ~(cube[1] ^ commonValue);
+		}
+		commonValue &= commonMask;
+		List<String> sum = new ArrayList<>();
+		for (int[] cube : chosen) {
+			String product = product(cube[0] & ~commonMask, cube[1]);
+			if (product == null) {
+				sum.clear();  // a product of the common literals alone covers all the others
+				break;
+			}
+			sum.add(product.contains("&") ? "(" + product + ")" : product);
+		}
+		String common = product(commonMask, commonValue);
+		if (sum.isEmpty()) {
+			return common == null ? "-1L" : common;
+		}
+		String rest = sum.size() == 1 ? sum.get(0) : "(" + String.join(" | ", sum) + ")";
+		return common == null ? String.join(" | ", sum) : common + " & " + rest;
+	}
+	
+	/*
+	 * Returns whether a cube covers no off minterm
+	 */
+	private static boolean isImplicant(int mask, int value, boolean[] off) {
+		for (int minterm = 0; minterm < 32; minterm++) {
+			if (off[minterm] && (minterm & mask) == value) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Returns whether a cube covers any on minterm
+	 */
+	private static boolean coversAny(int mask, int value, boolean[] on) {
+		for (int minterm = 0; minterm < 32; minterm++) {
+			if (on[minterm] && (minterm & mask) == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Returns whether no cube made by freeing one of the variables a cube fixes is still an implicant
+	 */
+	private static boolean isPrime(int mask, int value, boolean[] off) {
+		for (int bit = 1; bit < 32; bit <<= 1) {
+			if ((mask & bit) != 0 && isImplicant(mask & ~bit, value & ~bit, off)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Writes the literals a cube fixes joined by &, or returns null if it fixes none
+	 */
+	private static String product(int mask, int value) {
+		List<String> literals = new ArrayList<>();
+		for (int i = VARIABLES.length - 1; i >= 0; i--) {  // the cell first, then the count from the eights down
+			if ((mask >>> i & 1) != 0) {
+				literals.add(((value >>> i & 1) != 0 ? "" : "~") + VARIABLES[i]);
+			}
+		}
+		if (literals.isEmpty()) {
+			return null;
+		}
+		return String.join(" & ", literals);
+	}
+	
+	/*
+	 * Writes the source of the kernel for a rule: BitKernel's loop and adders, and the rule's expression for the result
+	 */
+	private static String source(GenerationsRule rule, String expression) {
+		return "/** The kernel for " + rule + " */\n" +
+				"public final class " + CLASS_NAME + " {\n" +
+				"	public static void stepRows(long[] src, long[] dst, int rows, int wordsPerRow, long lastWordMask, " +
+				"int fromRow, int toRow) {\n" +
+				"		if (wordsPerRow == 0) return;\n" +
+				"		long[] deadRow = new long[wordsPerRow];\n" +
+				"		for (int r = fromRow; r < toRow; r++) {\n" +
+				"			int row = r * wordsPerRow;\n" +
+				"			long[] aboveRows = r > 0 ? src : deadRow, belowRows = r < rows - 1 ? src : deadRow;\n" +
+				"			int above = r > 0 ? row - wordsPerRow : 0, below = r < rows - 1 ? row + wordsPerRow : 0;\n" +
+				"			long aPrev = 0, a = aboveRows[above], cPrev = 0, c = src[row], bPrev = 0, b = belowRows[below];\n" +
+				"			for (int w = 0; w < wordsPerRow; w++) {\n" +
+				"				long aNext = 0, cNext = 0, bNext = 0;\n" +
+				"				if (w + 1 < wordsPerRow) {\n" +
+				"					aNext = aboveRows[above + w + 1];\n" +
+				"					cNext = src[row + w + 1];\n" +
+				"					bNext = belowRows[below + w + 1];\n" +
+				"				}\n" +
+				"				long next = nextWord(aPrev, a, aNext, cPrev, c, cNext, bPrev, b, bNext);\n" +
+				"				dst[row + w] = w == wordsPerRow - 1 ? next & lastWordMask : next;\n" +
+				"				aPrev = a; a = aNext; cPrev = c; c = cNext; bPrev = b; b = bNext;\n" +
+				"			}\n" +
+				"		}\n" +
+				"	}\n" +
+				"\n" +
+				"	private static long nextWord(long aPrev, long a, long aNext, long cPrev, long c, long cNext, long bPrev, " +
+				"long b, long bNext) {\n" +
+				"		long aWest = (a << 1) | (aPrev >>> 63), aEast = (a >>> 1) | (aNext << 63);\n" +
+				"		long cWest = (c << 1) | (cPrev >>> 63), cEast = (c >>> 1) | (cNext << 63);\n" +
+				"		long bWest = (b << 1) | (bPrev >>> 63), bEast = (b >>> 1) | (bNext << 63);\n" +
+				"		long aOnes = aWest ^ a ^ aEast, aTwos = (aWest & a) | (aEast & (aWest ^ a));\n" +
+				"		long cOnes = cWest ^ cEast, cTwos = cWest & cEast;\n" +
+				"		long bOnes = bWest ^ b ^ bEast, bTwos = (bWest & b) | (bEast & (bWest ^ b));\n" +
+				"		long ones = aOnes ^ cOnes ^ bOnes;\n" +
+				"		long onesCarry = (aOnes & cOnes) | (bOnes & (aOnes ^ cOnes));\n" +
+				"		long twosA = aTwos ^ cTwos, twosACarry = aTwos & cTwos;\n" +
+				"		long twosB = bTwos ^ onesCarry, twosBCarry = bTwos & onesCarry;\n" +
+				"		long twos = twosA ^ twosB, twosCarry = twosA & twosB;\n" +
+				"		long fours = twosACarry ^ twosBCarry ^ twosCarry;\n" +
+				"		long eights = (twosACarry & twosBCarry) | (twosCarry & (twosACarry ^ twosBCarry));\n" +
+				"		return " + expression + ";\n" +
+				"	}\n" +
+				"}\n";
+	}
+	
+	/*
+	 * Compiles the source of one class in memory, returning its class file, or null if there is no compiler or the
+	 * source does not compile
+	 */
+	private static byte[] compile(String source) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			return null;
+		}
+		ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+		JavaFileObject input = new SimpleJavaFileObject(URI.create("string:///" + CLASS_NAME + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		JavaFileManager files = new ForwardingJavaFileManager<JavaFileManager>(
+				compiler.getStandardFileManager(null, null, null)) {
+			@Override
+			public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+					FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("bytes:///" + className + ".class"), kind) {
+					@Override
+					public OutputStream openOutputStream() {
+						return classFile;
+					}
+				};
+			}
+		};
+		boolean compiled = compiler.getTask(null, files, diagnostic -> { }, List.of("-g:none"), null,
+				List.of(input)).call();
+		return compiled ? classFile.toByteArray() : null;
+	}
+	
+	/*
+	 * Prints the expressions made for a few rules, checks kernels for random rules against ArrayEngine on random boards,
+	 * then times Conway's rule with BitKernel and with its made kernel, and other rules with theirs
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+		String[] named = {"B3/S23", "B36/S23", "B3678/S34678", "B2/S", "B1357/S1357", "B0/S8", "B/S", "B012345678/S012345678"};
+		for (String text : named) {
+			System.out.printf("%-22s %s%n", text, forRule(GenerationsRule.parse(text)).getExpression());
+		}
+		
+		GenerationsRule unseen = new GenerationsRule(0b100101000, 0b11100, 2);
+		long start = System.nanoTime();
+		RuleKernel first = forRule(unseen);
+		long makeNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < 100000; i++) {
+			forRule(unseen);
+		}
+		System.out.printf("%nMaking the kernel for %s took %.1f ms, and asking for it again %.0f ns%n", first.getRule(),
+				makeNanos / 1e6, (System.nanoTime() - start) / 1e5);
+		
+		int rules = 0, mismatches = 0;
+		for (int i = 0; i < 60; i++) {
+			GenerationsRule rule = new GenerationsRule(random.nextInt(512), random.nextInt(512), 2);
+			RuleKernel kernel = forRule(rule);
+			int width = 1 + random.nextInt(150), height = 1 + random.nextInt(40);
+			BitGrid grid = new BitGrid(width, height);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					grid.set(x, y, random.nextInt(3) == 0);
+				}
+			}
+			LifeEngine array = EngineType.ARRAY.create(width, height, rule);
+			array.load(grid);
+			boolean same = true;
+			for (int gen = 0; gen < 20 && same; gen++) {
+				grid = kernel.step(grid);
+				array.step();
+				same = grid.equals(array.snapshot());
+			}
+			rules++;
+			if (!same) {
+				mismatches++;
+				System.out.println("  the kernel differs from ArrayEngine on " + rule + ": " + kernel.getExpression());
+			}
+		}
+		System.out.println(rules + " random rule(s) stepped by their kernels and by ArrayEngine, " + mismatches +
+				" differing");
+		
+		int side = 2048, generations = 100;
+		BitGrid soup = new BitGrid(side, side);
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				soup.set(x, y, random.nextBoolean());
+			}
+		}
+		long[] src = soup.words(), dst = new long[src.length];
+		int wordsPerRow = soup.wordsPerRow();
+		long mask = BitKernel.lastWordMask(side);
+		System.out.println("\nNanoseconds per 64 Cells on a " + side + " * " + side + " soup, best of 5 runs of " +
+				generations + " generations:");
+		String[] timed = {"B3/S23", "B3/S23", "B36/S23", "B3678/S34678", "B1357/S1357", "B2/S", "B3/S23"};
+		for (int i = 0; i < timed.length; i++) {
+			String text = timed[i];
+			RuleKernel kernel = forRule(GenerationsRule.parse(text));
+			boolean hand = i == 0 || i == timed.length - 1;  // Conway's rule with BitKernel, first and again last
+			long best = Long.MAX_VALUE;
+			for (int run = 0; run < 5; run++) {
+				System.arraycopy(soup.words(), 0, src, 0, src.length);
+				start = System.nanoTime();
+				for (int gen = 0; gen < generations; gen++) {
+					if (hand) {
+						BitKernel.step(src, dst, side, wordsPerRow, mask);
+					}
+					else {
+						kernel.step(src, dst, side, wordsPerRow, mask);
+					}
+					long[] swap = src;
+					src = dst;
+					dst = swap;
+				}
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.printf("  %-14s %-10s %.2f%n", text, hand ? "BitKernel" : "generated",
+					(double) best / generations / src.length);
+		}
+	}
+
+}
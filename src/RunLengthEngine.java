@@ -0,0 +1,400 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The LifeEngine that holds each row as the runs of living Cells in it. A row is an int array of the columns where its
+ * runs start and end, {start0, end0, start1, end1, ...}, each end being the column after the last Cell of its run; the
+ * array is strictly increasing, so a Cell is alive when a binary search for its column lands after a start. An empty row
+ * shares one empty array, so memory grows with the number of runs and the height of the board, not with its area.
+ *
+ * A generation is computed on the runs themselves. The number of living Cells among a Cell and its eight neighbours only
+ * changes at a column next to a start or an end in the three rows around it, so each row of the next generation is found
+ * by merging the runs of those rows into the columns where the count changes, walking them once in order, deciding each
+ * stretch between two of them with the rule, and writing the living stretches straight out as runs. The cost grows with
+ * the number of runs near each row and the height of the board, so long lines and solid regions cost no more than
+ * single Cells; on scattered Cells, where every run is one Cell long, SparseEngine is faster.
+ *
+ * It plays any two-state rule, B0 included. EngineType.select() chooses it for rules that BitGridEngine cannot play, on
+ * large boards where few Cells are alive, or few are dead, so that the runs are few.
+ */
+public class RunLengthEngine implements LifeEngine {
+	
+	private static final int[] EMPTY = new int[0];
+	
+	private final int width, height;
+	private final int ruleMask;  // bit n: a dead Cell with n living neighbours is born; bit 9 + n: a living one survives
+	private int[][] rows, next;
+	private int[] xs = new int[64], deltas = new int[64];  // where the count of a column of three changes, and by how much
+	private int[] runs = new int[64];  // the runs of the row being computed
+	
+	/**
+	 * Constructs a RunLengthEngine with all Cells dead. The width and height must be positive; if they are not, the board
+	 * is 20 * 20. If the rule is null or has more than two states, Conway's Game of Life is played.
+	 *
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 * @param rule the rule to play
+	 */
+	public RunLengthEngine(int width, int height, GenerationsRule rule) {
+		if (width <= 0 || height <= 0) {
+			width = 20;
+			height = 20;
+		}
+		this.width = width;
+		this.height = height;
+		rule = rule != null && rule.getStates() == 2 ? rule : EngineType.CONWAY;
+		ruleMask = rule.getBirths() | rule.getSurvivals() << 9;
+		rows = new int[height][];
+		next = new int[height][];
+		Arrays.fill(rows, EMPTY);
+		Arrays.fill(next, EMPTY);
+	}
+	
+	@Override
+	public String getName() {
+		return "run-length";
+	}
+	
+	@Override
+	public int getWidth() {
+		return width;
+	}
+	
+	@Override
+	public int getHeight() {
+		return height;
+	}
+	
+	@Override
+	public boolean get(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return false;
+		}
+		int i = Arrays.binarySearch(rows[y], x);
+		return i >= 0 ? (i & 1) == 0 : (-i - 1 & 1) == 1;  // on a start, or between a start and its end
+	}
+	
+	@Override
+	public void set(int x, int y, boolean alive) {
+		if (x >= 0 && x < width && y >= 0 && y < height && get(x, y) != alive) {
+			// Changing one Cell changes whether the state changes at x and at x + 1
+			rows[y] = toggleBoundary(toggleBoundary(rows[y], x), x + 1);
+		}
+	}
+	
+	/*
+	 * Adds a column to the boundaries of a row, or removes it if it is one already
+	 */
+	private static int[] toggleBoundary(int[] row, int x) {
+		int i = Arrays.binarySearch(row, x);
+		int[] result;
+		if (i >= 0) {
+			if (row.length == 1) {
+				return EMPTY;
+			}
+			result = new int[row.length - 1];
+			System.arraycopy(row, 0, result, 0, i);
+			System.arraycopy(row, i + 1, result, i, row.length - i - 1);
+		}
+		else {
+			i = -i - 1;
+			result = new int[row.length + 1];
+			System.arraycopy(row, 0, result, 0, i);
+			result[i] = x;
+			System.arraycopy(row, i, result, i + 1, row.length - i);
+		}
+		return result;  // of odd length between the two toggles of set()
+	}
+	
+	@Override
+	public void step() {
+		boolean bornAlone = (ruleMask & 1) != 0;  // B0: Cells with no living neighbour are born
+		for (int y = 0; y < height; y++) {
+			int[] above = y > 0 ? rows[y - 1] : EMPTY, centre = rows[y], below = y < height - 1 ? rows[y + 1] : EMPTY;
+			if (above.length == 0 && centre.length == 0 && below.length == 0) {
+				next[y] = bornAlone ? new int[] {0, width} : EMPTY;
+				continue;
+			}
+			next[y] = stepRow(above, centre, below);
+		}
+		int[][] swap = rows;
+		rows = next;
+		next = swap;
+	}
+	
+	/*
+	 * Computes the runs of a row of the next generation from the runs of the rows above, at and below it
+	 */
+	private int[] stepRow(int[] above, int[] centre, int[] below) {
+		int columns = mergeColumns(above, centre, below);
+		int[] xs = this.xs, deltas = this.deltas;
+		
+		// The count of the block of nine around x is the column count at x - 1, x and x + 1, so it changes where the
+		// column count does, shifted by -1, 0 and +1; walk those three shifted lists and the centre row together, in order
+		int left = 0, middle = 0, right = 0, c = 0, inBlock = 0, centreAlive = 0, from = 0, length = 0;
+		while (true) {
+			int x = width;
+			if (left < columns) {
+				x = Math.min(x, xs[left] - 1);
+			}
+			if (middle < columns) {
+				x = Math.min(x, xs[middle]);
+			}
+			if (right < columns) {
+				x = Math.min(x, xs[right] + 1);
+			}
+			if (c < centre.length) {
+				x = Math.min(x, centre[c]);
+			}
+			
+			// Every Cell from the last change up to x has the same future, decided at once
+			if (x > from) {
+				int to = Math.min(x, width);
+				if ((ruleMask >>> (centreAlive * 9 + inBlock - centreAlive) & 1) != 0) {
+					if (length > 0 && runs[length - 1] == from) {
+						runs[length - 1] = to;  // continues the run before it
+					}
+					else {
+						if (length + 2 > runs.length) {
+							runs = Arrays.copyOf(runs, runs.length * 2);
+						}
+						runs[length++] = from;
+						runs[length++] = to;
+					}
+				}
+				from = to;
+			}
+			if (x >= width) {
+				break;
+			}
+			
+			while (left < columns && xs[left] - 1 == x) {
+				inBlock += deltas[left++];
+			}
+			while (middle < columns && xs[middle] == x) {
+				inBlock += deltas[middle++];
+			}
+			while (right < columns && xs[right] + 1 == x) {
+				inBlock += deltas[right++];
+			}
+			if (c < centre.length && centre[c] == x) {
+				centreAlive = (c++ & 1) == 0 ? 1 : 0;  // starts and ends alternate
+			}
+		}
+		return length == 0 ? EMPTY : Arrays.copyOf(runs, length);
+	}
+	
+	/*
+	 * Merges the runs of three rows into the columns where the number of living Cells among the three Cells of a column
+	 * changes, and by how much, in xs and deltas; returns the number of such columns
+	 */
+	private int mergeColumns(int[] above, int[] centre, int[] below) {
+		int total = above.length + centre.length + below.length;
+		if (xs.length < total) {
+			xs = new int[total * 2];
+			deltas = new int[xs.length];
+		}
+		int a = 0, c = 0, b = 0, columns = 0;
+		while (true) {
+			int x = Integer.MAX_VALUE;
+			if (a < above.length) {
+				x = Math.min(x, above[a]);
+			}
+			if (c < centre.length) {
+				x = Math.min(x, centre[c]);
+			}
+			if (b < below.length) {
+				x = Math.min(x, below[b]);
+			}
+			if (x == Integer.MAX_VALUE) {
+				return columns;
+			}
+			int delta = 0;  // each row is strictly increasing, so has at most one boundary at x
+			if (a < above.length && above[a] == x) {
+				delta += (a++ & 1) == 0 ? 1 : -1;
+			}
+			if (c < centre.length && centre[c] == x) {
+				delta += (c++ & 1) == 0 ? 1 : -1;
+			}
+			if (b < below.length && below[b] == x) {
+				delta += (b++ & 1) == 0 ? 1 : -1;
+			}
+			if (delta != 0) {
+				xs[columns] = x;
+				deltas[columns++] = delta;
+			}
+		}
+	}
+	
+	@Override
+	public int population() {
+		int population = 0;
+		for (int[] row : rows) {
+			for (int i = 0; i < row.length; i += 2) {
+				population += row[i + 1] - row[i];
+			}
+		}
+		return population;
+	}
+	
+	/**
+	 * @return the number of runs of living Cells on the board
+	 */
+	public long getRunCount() {
+		long count = 0;
+		for (int[] row : rows) {
+			count += row.length / 2;
+		}
+		return count;
+	}
+	
+	/**
+	 * @return an estimate of the bytes used to hold the board: the array of rows and the runs of each row that has any
+	 */
+	public long getMemoryBytes() {
+		long bytes = 16 + 4L * height;  // the array of rows, with compressed references
+		for (int[] row : rows) {
+			bytes += row.length == 0 ? 0 : 16 + 4L * row.length;
+		}
+		return bytes;
+	}
+	
+	@Override
+	public void readRow(int y, long[] words) {
+		Arrays.fill(words, 0, (width + 63) >>> 6, 0L);
+		if (y < 0 || y >= height) {
+			return;
+		}
+		int[] row = rows[y];
+		for (int i = 0; i < row.length; i += 2) {
+			// Set the run a word at a time, each word from its first Cell in the run to its last
+			for (int x = row[i], end; x < row[i + 1]; x = end) {
+				end = Math.min(row[i + 1], (x & ~63) + 64);
+				words[x >>> 6] |= (-1L >>> (64 - (end - x))) << x;
+			}
+		}
+	}
+	
+	@Override
+	public BitGrid snapshot() {
+		BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			int[] row = rows[y];
+			for (int i = 0; i < row.length; i += 2) {
+				grid.fill(row[i], y, row[i + 1] - row[i], 1, true);
+			}
+		}
+		return grid;
+	}
+	
+	@Override
+	public void load(BitGrid grid) {
+		long[] words = grid.words();
+		int wordsPerRow = grid.wordsPerRow(), limit = Math.min(width, grid.getWidth());
+		for (int y = 0; y < height; y++) {
+			int length = 0;
+			if (y < grid.getHeight()) {
+				int base = y * wordsPerRow;
+				int x = nextBit(words, base, wordsPerRow, 0, true, limit);
+				while (x < limit) {
+					int end = nextBit(words, base, wordsPerRow, x, false, limit);
+					if (length + 2 > runs.length) {
+						runs = Arrays.copyOf(runs, runs.length * 2);
+					}
+					runs[length++] = x;
+					runs[length++] = end;
+					x = nextBit(words, base, wordsPerRow, end, true, limit);
+				}
+			}
+			rows[y] = length == 0 ? EMPTY : Arrays.copyOf(runs, length);
+		}
+	}
+	
+	/*
+	 * Returns the first column from x on of a row of words whose Cell is alive, or dead, or limit if there is none before
+	 */
+	private static int nextBit(long[] words, int base, int wordsPerRow, int x, boolean alive, int limit) {
+		for (int w = x >>> 6; w < wordsPerRow && w << 6 < limit; w++) {
+			long word = alive ? words[base + w] : ~words[base + w];
+			if (w == x >>> 6) {
+				word &= -1L << x;  // shifts of a long only use the low 6 bits of x
+			}
+			if (word != 0) {
+				return Math.min((w << 6) + Long.numberOfTrailingZeros(word), limit);
+			}
+		}
+		return limit;
+	}
+	
+	/*
+	 * Compares the memory and the time per generation of the run-length engine with the bit-grid and sparse engines on
+	 * large boards of scattered Cells and of solid regions
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 4096, steps = 20;
+		Random random = new Random(1);
+		GenerationsRule withoutDeath = GenerationsRule.parse("B3/S012345678");
+		System.out.println("On a " + side + " * " + side + " board, the memory held and the milliseconds per generation:");
+		for (int board = 0; board < 4; board++) {
+			BitGrid initial = new BitGrid(side, side);
+			GenerationsRule rule = EngineType.CONWAY;
+			String name;
+			if (board < 3) {
+				double density = board == 0 ? 0.0002 : board == 1 ? 0.001 : 0.01;
+				name = "soup at density " + density;
+				for (long i = Math.round((double) side * side * density); i > 0; i--) {
+					initial.set(random.nextInt(side), random.nextInt(side), true);
+				}
+			}
+			else {
+				// Life without death fills in the regions around a few seeds, leaving long runs
+				name = "solid regions";
+				rule = withoutDeath;
+				LifeEngine grower = new BitGridEngine(side, side);
+				for (int i = 0; i < 64; i++) {
+					grower.set(random.nextInt(side), random.nextInt(side), true);
+				}
+				RunLengthEngine seeds = new RunLengthEngine(side, side, withoutDeath);
+				seeds.load(grower.snapshot());
+				for (int i = 0; i < 8; i++) {
+					seeds.set(random.nextInt(side), random.nextInt(side), true);
+				}
+				for (int i = 0; i < 60; i++) {
+					for (int j = 0; j < 64; j++) {
+						int x = random.nextInt(side), y = random.nextInt(side);
+						seeds.set(x, y, true);
+						seeds.set(x + 1, y, true);
+						seeds.set(x + 2, y, true);
+						seeds.set(x, y + 1, true);
+					}
+					seeds.step();
+				}
+				initial = seeds.snapshot();
+			}
+			System.out.println("  " + name + ", " + initial.population() + " living Cells:");
+			for (EngineType type : new EngineType[] {EngineType.BIT_GRID, EngineType.ARRAY, EngineType.SPARSE,
+					EngineType.RUN_LENGTH}) {
+				if (!type.supports(rule)) {
+					continue;
+				}
+				LifeEngine engine = type.create(side, side, rule);
+				engine.load(initial);
+				long bytes = engine instanceof RunLengthEngine ? ((RunLengthEngine) engine).getMemoryBytes() :
+						engine instanceof SparseEngine ? 8L * initial.population() :
+						engine instanceof ArrayEngine ? 2L * side * side : (long) initial.words().length * 8;
+				String runs = engine instanceof RunLengthEngine ? ", " + ((RunLengthEngine) engine).getRunCount() +
+						" runs" : "";
+				long nanos = 0;
+				for (int i = 0; i < 2 * steps; i++) {
+					engine.load(initial);
+					long start = System.nanoTime();
+					engine.step();
+					nanos += i >= steps ? System.nanoTime() - start : 0;  // the first half warms up
+				}
+				System.out.printf("    %-10s %9.1f KB %8.2f ms%s%n", engine.getName(), bytes / 1024.0, nanos / 1e6 / steps,
+						runs);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/**
+ * A GameOfLife run by a SimulationScheduler, with its speed target, its priority, and how well the target is being
+ * kept. The figures are read under the scheduler's lock, so they are consistent with one another and may be read from
+ * any thread.
+ */
+public class ScheduledGame {
+	
+	private static final long RATE_WINDOW_NANOS = 1000000000;
+	
+	private final SimulationScheduler scheduler;
+	private final GameOfLife game;
+	
+	// Guarded by the scheduler
+	double target;  // generations per second; 0 for as fast as the game's share of the workers allows
+	int priority;
+	long since;  // when the target was last set
+	long doneSince;  // generations advanced or forgiven since then
+	long generations, missed, cpuNanos;
+	double nanosPerGen;  // the recent cost of a generation, which sizes slices; 0 until the first slice
+	double virtualTime;  // CPU time used divided by priority, by which the scheduler shares out the workers
+	boolean busy, removed;
+	RuntimeException failure;
+	private long windowStart, windowGenerations;
+	private double rate;
+	
+	/*
+	 * Constructs a ScheduledGame for a scheduler, which adds it
+	 */
+	ScheduledGame(SimulationScheduler scheduler, GameOfLife game, double target, int priority, long now) {
+		this.scheduler = scheduler;
+		this.game = game;
+		this.target = target;
+		this.priority = priority;
+		since = now;
+		windowStart = now;
+	}
+	
+	/**
+	 * @return the game being run; it must not be used while it is scheduled, other than from its observers and listeners,
+	 * which are called on the scheduler's threads
+	 */
+	public GameOfLife getGame() {
+		return game;
+	}
+	
+	/**
+	 * @return the speed the game is run at in generations per second, or 0 if it is run as fast as its share allows
+	 */
+	public double getTarget() {
+		synchronized (scheduler) {
+			return target;
+		}
+	}
+	
+	/**
+	 * Sets the speed to run the game at. The lag is measured afresh from now. A target that is not positive, or is not a
+	 * number, runs the game as fast as its share of the workers allows.
+	 *
+	 * @param generationsPerSecond the number of generations to advance per second
+	 */
+	public void setTarget(double generationsPerSecond) {
+		synchronized (scheduler) {
+			target = generationsPerSecond > 0 ? generationsPerSecond : 0;
+			since = System.nanoTime();
+			doneSince = 0;
+			scheduler.notifyAll();
+		}
+	}
+	
+	/**
+	 * @return the priority of the game
+	 */
+	public int getPriority() {
+		synchronized (scheduler) {
+			return priority;
+		}
+	}
+	
+	/**
+	 * Sets the priority of the game. When the workers cannot keep up with every game, each game gets a share of their
+	 * time in proportion to its priority. Priorities below 1 are replaced by 1.
+	 *
+	 * @param priority the priority
+	 */
+	public void setPriority(int priority) {
+		synchronized (scheduler) {
+			this.priority = Math.max(priority, 1);
+		}
+	}
+	
+	/**
+	 * @return the number of generations the scheduler has advanced the game by
+	 */
+	public long getGenerations() {
+		synchronized (scheduler) {
+			return generations;
+		}
+	}
+	
+	/**
+	 * @return the number of generations the game is behind its target now, or 0 if it has none
+	 */
+	public long getLag() {
+		synchronized (scheduler) {
+			return target > 0 ? Math.max(due(System.nanoTime()), 0) : 0;
+		}
+	}
+	
+	/**
+	 * @return how far the game is behind its target now, in milliseconds of its target speed, or 0 if it has none
+	 */
+	public double getLagMillis() {
+		synchronized (scheduler) {
+			return target > 0 ? getLag() * 1000 / target : 0;
+		}
+	}
+	
+	/**
+	 * @return the number of generations given up because the game fell more than SimulationScheduler.MAX_LAG_MILLIS
+	 * behind its target
+	 */
+	public long getMissed() {
+		synchronized (scheduler) {
+			return missed;
+		}
+	}
+	
+	/**
+	 * @return the generations advanced per second over the last whole second measured, or 0 before the first
+	 */
+	public double getRate() {
+		synchronized (scheduler) {
+			return rate;
+		}
+	}
+	
+	/**
+	 * @return the time the scheduler's threads have spent advancing the game, in nanoseconds
+	 */
+	public long getCpuNanos() {
+		synchronized (scheduler) {
+			return cpuNanos;
+		}
+	}
+	
+	/**
+	 * @return the exception that stopped the game being scheduled, or null if none has
+	 */
+	public RuntimeException getFailure() {
+		synchronized (scheduler) {
+			return failure;
+		}
+	}
+	
+	/**
+	 * @return whether the game is no longer scheduled, having been removed or having failed
+	 */
+	public boolean isRemoved() {
+		synchronized (scheduler) {
+			return removed;
+		}
+	}
+	
+	/**
+	 * Returns the number of generations the game owes its target at a time, which is negative while it is ahead.
+	 *
+	 * @param now the time, from System.nanoTime()
+	 * @return the generations owed
+	 */
+	long due(long now) {
+		return (long) ((now - since) / 1e9 * target) - doneSince;
+	}
+	
+	/**
+	 * Counts a slice of generations advanced, and the time it took.
+	 *
+	 * @param count the number of generations advanced
+	 * @param nanos the time taken
+	 * @param now the time the slice ended
+	 */
+	void advanced(int count, long nanos, long now) {
+		generations += count;
+		doneSince += count;
+		cpuNanos += nanos;
+		double perGen = (double) nanos / count;
+		nanosPerGen = nanosPerGen == 0 ? perGen : nanosPerGen * 0.75 + perGen * 0.25;
+		virtualTime += (double) nanos / priority;
+		windowGenerations += count;
+		if (now - windowStart >= RATE_WINDOW_NANOS) {
+			rate = windowGenerations * 1e9 / (now - windowStart);
+			windowStart = now;
+			windowGenerations = 0;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		synchronized (scheduler) {
+			return String.format("%d * %d at %s, priority %d: %d generation(s), %.0f per second, lag %d, missed %d",
+					game.getWidth(), game.getHeight(), target > 0 ? String.format("%.0f/s", target) : "full speed",
+					priority, generations, rate, getLag(), missed);
+		}
+	}
+
+}
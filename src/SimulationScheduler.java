@@ -0,0 +1,426 @@
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.swing.Timer;
+
+/**
+ * Runs many GameOfLife instances at once on a fixed number of worker threads, rather than each on its own Swing Timer on
+ * the one event dispatch thread. Each game has a speed target in generations per second, or none to run as fast as its
+ * share allows, and a priority. The workers take turns at the games in slices of about SLICE_MILLIS: each slice goes to
+ * the game that has used the least CPU time for its priority among those owing generations, and advances it by as many
+ * generations as it owes or as fit in the slice, so a large or greedy game cannot hold a worker for long. When the
+ * workers cannot keep up, each game gets time in proportion to its priority: a game is not given a slice while it is
+ * more than a slice ahead, in time used for its priority, of a game being advanced, even if a worker is free. A game
+ * that has been idle, ahead of its target, is not owed the time it did not use.
+ *
+ * The workers together use at most the number of processors given, on average: the CPU time they spend advancing games
+ * is taken from an allowance that fills at that rate, and they wait while it is spent. Time is measured as the CPU time
+ * of the worker threads where the JVM supports it, and as elapsed time elsewhere. A game that falls more than
+ * MAX_LAG_MILLIS behind its target gives up the generations beyond that, which are counted as missed, rather than
+ * racing to catch up. The lag, missed generations, speed and CPU time of each game are kept in its ScheduledGame.
+ *
+ * Observers and change listeners of a scheduled game are called on the worker threads.
+ */
+public class SimulationScheduler implements Closeable {
+	
+	/**
+	 * The time a slice is sized to take, in milliseconds
+	 */
+	public static final int SLICE_MILLIS = 2;
+	
+	/**
+	 * The furthest a game may fall behind its target before generations are given up, in milliseconds of its target
+	 */
+	public static final int MAX_LAG_MILLIS = 1000;
+	
+	private static final long SLICE_NANOS = SLICE_MILLIS * 1000000L;
+	private static final long BURST_NANOS = 5 * SLICE_NANOS;  // the most CPU time the allowance holds, per processor
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final ThreadLocal<ScheduledGame> SLICE = new ThreadLocal<>();  // the game a worker is advancing
+	
+	private final List<ScheduledGame> games = new ArrayList<>();
+	private final List<Thread> workers = new ArrayList<>();
+	private final double maxProcessors;
+	private double allowance;  // CPU time the workers may still use, in nanoseconds
+	private long filled;  // when the allowance was last topped up
+	private double virtualClock;  // the virtual time of the last slice handed out
+	private long busyNanos;
+	private boolean closed;
+	
+	/**
+	 * Constructs a SimulationScheduler and starts its workers, which are daemon threads. If the number of threads is not
+	 * positive, one is used; if the number of processors is not positive, the workers are not held back.
+	 *
+	 * @param threads the number of worker threads
+	 * @param maxProcessors the number of processors' worth of time the workers may use together, such as 1.5
+	 */
+	public SimulationScheduler(int threads, double maxProcessors) {
+		threads = Math.max(threads, 1);
+		this.maxProcessors = maxProcessors > 0 ? maxProcessors : threads;
+		filled = System.nanoTime();
+		allowance = BURST_NANOS * this.maxProcessors;
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(this::work, "SimulationScheduler-" + i);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+	
+	/**
+	 * Schedules a game. From now on it belongs to the scheduler until it is removed.
+	 *
+	 * @param game the game to run
+	 * @param generationsPerSecond the speed to run it at; not positive to run it as fast as its share allows
+	 * @param priority its share of the workers' time relative to the other games when they cannot keep up with every
+	 * game; values below 1 are replaced by 1
+	 * @return the game's schedule, through which it is tuned, measured and removed; null if the game is null or the
+	 * scheduler is closed
+	 */
+	public synchronized ScheduledGame add(GameOfLife game, double generationsPerSecond, int priority) {
+		if (game == null || closed) {
+			return null;
+		}
+		ScheduledGame scheduled = new ScheduledGame(this, game, generationsPerSecond > 0 ? generationsPerSecond : 0,
+				Math.max(priority, 1), System.nanoTime());
+		scheduled.virtualTime = virtualClock;
+		games.add(scheduled);
+		notifyAll();
+		return scheduled;
+	}
+	
+	/**
+	 * Stops scheduling a game, waiting for the slice it is in, if any, to end, so that the game may be used again as
+	 * soon as this returns. Called from an observer or listener of a scheduled game, on a worker, it does not wait,
+	 * since the slice it would wait for may be its own: the game is given no more slices, but may still be in one.
+	 * If the game is not scheduled, this method performs no action.
+	 *
+	 * @param scheduled the game's schedule
+	 */
+	public synchronized void remove(ScheduledGame scheduled) {
+		if (scheduled == null || !games.remove(scheduled)) {
+			return;
+		}
+		scheduled.removed = true;
+		while (scheduled.busy && SLICE.get() == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * @return the games scheduled, in the order they were added
+	 */
+	public synchronized List<ScheduledGame> getGames() {
+		return new ArrayList<>(games);
+	}
+	
+	/**
+	 * @return the number of worker threads
+	 */
+	public int getThreads() {
+		return workers.size();
+	}
+	
+	/**
+	 * @return the number of processors' worth of time the workers may use together
+	 */
+	public double getMaxProcessors() {
+		return maxProcessors;
+	}
+	
+	/**
+	 * @return the time the workers have spent advancing games, in nanoseconds
+	 */
+	public synchronized long getBusyNanos() {
+		return busyNanos;
+	}
+	
+	/**
+	 * Stops the workers once they finish their slices, and waits for them. The games stay as they were left.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	/*
+	 * The loop each worker runs: takes the next slice, runs it outside the lock, and accounts for it
+	 */
+	private void work() {
+		while (true) {
+			ScheduledGame next;
+			int count;
+			synchronized (this) {
+				next = nextSlice();
+				if (next == null) {
+					return;  // closed
+				}
+				next.busy = true;
+				count = sliceSize(next, System.nanoTime());
+			}
+			long start = workerNanos();
+			RuntimeException failure = null;
+			SLICE.set(next);
+			try {
+				next.getGame().advance(count);
+			} catch (RuntimeException e) {
+				failure = e;
+			} finally {
+				SLICE.remove();
+			}
+			long nanos = Math.max(workerNanos() - start, 1);
+			synchronized (this) {
+				next.busy = false;
+				next.advanced(count, nanos, System.nanoTime());
+				allowance -= nanos;
+				busyNanos += nanos;
+				if (failure != null) {
+					next.failure = failure;
+					next.removed = true;
+					games.remove(next);
+				}
+				notifyAll();
+			}
+		}
+	}
+	
+	/*
+	 * Returns the CPU time of the current thread, or the elapsed time if the JVM does not measure it
+	 */
+	private static long workerNanos() {
+		return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+	}
+	
+	/*
+	 * Waits for a game to owe generations, to be no more than a slice ahead of the games being advanced, and for the
+	 * allowance to have time in it, and returns the game that has used the least time for its priority; returns null 
+	 * once the scheduler is closed
+	 */
+	private ScheduledGame nextSlice() {
+		while (!closed) {
+			long now = System.nanoTime();
+			allowance = Math.min(allowance + (now - filled) * maxProcessors, BURST_NANOS * maxProcessors);
+			filled = now;
+			long waitNanos = Long.MAX_VALUE;
+			ScheduledGame best = null;
+			double busyMin = Double.MAX_VALUE;
+			for (ScheduledGame scheduled : games) {
+				if (scheduled.busy) {
+					busyMin = Math.min(busyMin, scheduled.virtualTime);
+					continue;
+				}
+				if (scheduled.target > 0) {
+					forgive(scheduled, now);
+					long due = scheduled.due(now);
+					if (due < 1) {
+						// The time at which the next generation falls due
+						waitNanos = Math.min(waitNanos, (long) ((1 - due) * 1e9 / scheduled.target) + 1);
+						continue;
+					}
+				}
+				// A game that has waited does not bank the time: it is put at most one slice behind the others
+				scheduled.virtualTime = Math.max(scheduled.virtualTime, virtualClock - SLICE_NANOS);
+				if (best == null || scheduled.virtualTime < best.virtualTime) {
+					best = scheduled;
+				}
+			}
+			boolean ahead = best != null && best.virtualTime > busyMin + SLICE_NANOS;  // waits for a slice to end
+			if (best != null && !ahead && allowance > 0) {
+				virtualClock = Math.max(virtualClock, best.virtualTime);
+				return best;
+			}
+			if (best != null && !ahead) {
+				waitNanos = (long) (-allowance / maxProcessors) + 1;
+			}
+			try {
+				if (waitNanos == Long.MAX_VALUE) {
+					wait();
+				}
+				else {
+					wait(waitNanos / 1000000, (int) (waitNanos % 1000000));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		return null;
+	}
+	
+	/*
+	 * Gives up the generations a game owes beyond MAX_LAG_MILLIS of its target, counting them as missed
+	 */
+	private static void forgive(ScheduledGame scheduled, long now) {
+		long limit = (long) Math.ceil(scheduled.target * MAX_LAG_MILLIS / 1000);
+		long excess = scheduled.due(now) - Math.max(limit, 1);
+		if (excess > 0) {
+			scheduled.doneSince += excess;
+			scheduled.missed += excess;
+		}
+	}
+	
+	/*
+	 * Returns the number of generations to advance a game by in one slice: as many as fit in SLICE_MILLIS at its recent
+	 * cost, and no more than it owes if it has a target
+	 */
+	private static int sliceSize(ScheduledGame scheduled, long now) {
+		long fit = scheduled.nanosPerGen == 0 ? 1 : (long) (SLICE_NANOS / scheduled.nanosPerGen);
+		if (scheduled.target > 0) {
+			fit = Math.min(fit, scheduled.due(now));
+		}
+		return (int) Math.max(Math.min(fit, Integer.MAX_VALUE), 1);
+	}
+	
+	/*
+	 * Runs a mix of games at fixed speeds and at full speed on a few workers, and shows the speed and lag each keeps
+	 * and the share of time each priority gets; then caps the workers at half a processor and measures their CPU time,
+	 * and lastly runs the games that kept up on Swing Timers on one thread for comparison
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+		Random random = new Random(1);
+		int seconds = 4;
+		
+		// 24 small exhibits at 60 generations per second, 6 large ones at 20, and 4 games run flat out at priorities 1 to 4
+		SimulationScheduler scheduler = new SimulationScheduler(4, 0);
+		List<ScheduledGame> paced = new ArrayList<>(), greedy = new ArrayList<>();
+		for (int i = 0; i < 24; i++) {
+			paced.add(scheduler.add(randomGame(random, 128), 60, 1));
+		}
+		for (int i = 0; i < 6; i++) {
+			paced.add(scheduler.add(randomGame(random, 1024), 20, 1));
+		}
+		for (int priority = 1; priority <= 4; priority++) {
+			greedy.add(scheduler.add(randomGame(random, 512), 0, priority));
+		}
+		long lagMax = 0;
+		for (int tick = 0; tick < seconds * 10; tick++) {
+			Thread.sleep(100);
+			for (ScheduledGame scheduled : paced) {
+				lagMax = Math.max(lagMax, scheduled.getLag());
+			}
+		}
+		scheduler.close();
+		System.out.println(scheduler.getThreads() + " worker(s), no cap, " + seconds + " s, " +
+				Runtime.getRuntime().availableProcessors() + " processor(s):");
+		for (int i : new int[] {0, 23, 24, 29}) {
+			System.out.println("  " + paced.get(i));
+		}
+		long pacedMissed = 0;
+		for (ScheduledGame scheduled : paced) {
+			pacedMissed += scheduled.getMissed();
+		}
+		System.out.println("  most generations any paced game was behind: " + lagMax + ", generations missed in all: " +
+				pacedMissed);
+		long greedyNanos = 0;
+		for (ScheduledGame scheduled : greedy) {
+			greedyNanos += scheduled.getCpuNanos();
+		}
+		for (ScheduledGame scheduled : greedy) {
+			System.out.printf("  %s, %.0f%% of the full-speed games' time%n", scheduled,
+					100.0 * scheduled.getCpuNanos() / greedyNanos);
+		}
+		
+		// The same games under a cap of half a processor, measured by the CPU time of the worker threads
+		SimulationScheduler capped = new SimulationScheduler(4, 0.5);
+		for (ScheduledGame scheduled : paced) {
+			capped.add(scheduled.getGame(), scheduled.getTarget(), 1);
+		}
+		for (ScheduledGame scheduled : greedy) {
+			capped.add(scheduled.getGame(), 0, scheduled.getPriority());
+		}
+		long cpuBefore = workerCpuNanos(), start = System.nanoTime();
+		Thread.sleep(seconds * 1000);
+		long cpu = workerCpuNanos() - cpuBefore, wall = System.nanoTime() - start;
+		capped.close();
+		System.out.printf("%nCapped at %.1f processor: the workers used %.2f processor(s)%n", capped.getMaxProcessors(),
+				(double) cpu / wall);
+		
+		// The same games on Swing Timers, all of which fire on the one event dispatch thread, the full-speed ones every ms
+		List<ScheduledGame> all = new ArrayList<>(paced);
+		all.addAll(greedy);
+		List<Timer> timers = new ArrayList<>();
+		int[] before = new int[all.size()];
+		for (int i = 0; i < all.size(); i++) {
+			GameOfLife game = all.get(i).getGame();
+			double target = all.get(i).getTarget();
+			before[i] = game.getGen();
+			timers.add(new Timer(target > 0 ? (int) (1000 / target) : 1, e -> game.nextGen()));
+		}
+		for (Timer timer : timers) {
+			timer.start();
+		}
+		Thread.sleep(seconds * 1000);
+		for (Timer timer : timers) {
+			timer.stop();
+		}
+		System.out.println("\nThe same games on Swing Timers, in generations per second:");
+		for (int[] group : new int[][] {{0, 24}, {24, 30}, {30, 34}}) {
+			double total = 0;
+			for (int i = group[0]; i < group[1]; i++) {
+				total += all.get(i).getGame().getGen() - before[i];
+			}
+			double target = all.get(group[0]).getTarget();
+			System.out.printf("  %d game(s) of %d * %d at %s: %.1f each%n", group[1] - group[0],
+					all.get(group[0]).getGame().getWidth(), all.get(group[0]).getGame().getHeight(),
+					target > 0 ? String.format("%.0f/s", target) : "every ms", total / (group[1] - group[0]) / seconds);
+		}
+		
+		// A game whose observer removes it, on the worker advancing it, leaves the worker free for other games
+		SimulationScheduler single = new SimulationScheduler(1, 0);
+		GameOfLife doomed = randomGame(random, 64);
+		ScheduledGame[] doomedSchedule = new ScheduledGame[1];
+		doomed.addObserver(game -> single.remove(doomedSchedule[0]), 0);
+		synchronized (single) {
+			doomedSchedule[0] = single.add(doomed, 0, 1);
+		}
+		Thread.sleep(200);
+		ScheduledGame survivor = single.add(randomGame(random, 64), 0, 1);
+		Thread.sleep(200);
+		single.close();
+		System.out.println("\nA game that removes itself from its own observer is removed: " + doomedSchedule[0].isRemoved() +
+				"; the worker goes on to advance another game: " + (survivor.getGenerations() > 0));
+	}
+	
+	/*
+	 * Makes a square game filled at random
+	 */
+	private static GameOfLife randomGame(Random random, int side) {
+		GameOfLife game = new GameOfLife(side, side);
+		game.randomSetup(random.nextLong());
+		return game;
+	}
+	
+	/*
+	 * Adds up the CPU time of the scheduler's worker threads that are alive
+	 */
+	private static long workerCpuNanos() {
+		long nanos = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("SimulationScheduler-")) {
+				nanos += Math.max(THREADS.getThreadCpuTime(thread.getId()), 0);
+			}
+		}
+		return nanos;
+	}
+
+}
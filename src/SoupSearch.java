@@ -0,0 +1,292 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches for objects by running large numbers of random starting patterns, or soups, until they settle, and taking a
+ * census of what is left. Soup n of a search is filled from a random number generator seeded with the search seed and n,
+ * so any soup can be run again from its seed and number alone, and a search can be resumed from the number of the next
+ * soup, its cursor. Soups are run headless with BitKernel on a pool of one thread per processor; each thread keeps its
+ * own tally, and the tallies are merged into the table of the search when a run ends.
+ *
+ * A soup counts as settled once its population has repeated with a period of at most MAX_PERIOD generations for a
+ * whole check interval. Gliders do not change the population, so soups that shoot gliders settle too. So that gliders
+ * and spaceships are not turned into debris by the dead Cells beyond the edge of the board, at every check any object
+ * that lies wholly within ESCAPE_MARGIN Cells of the edge and has changed since the last check is taken to have
+ * escaped, and is deleted, unless ObjectCensus knows it as a still life or oscillator. So the objects that settle near
+ * the edge, whether they were there at the last check or have just formed, are left to be counted.
+ */
+public class SoupSearch {
+	
+	/**
+	 * The side of a soup, the side of the board it is run on, and the most generations it is run for
+	 */
+	public static final int SOUP_SIDE = 16, BOARD_SIDE = 256, MAX_GENERATIONS = 8000;
+	
+	/**
+	 * The longest population period taken as settled, which covers oscillators of period 2, 3, 5, 6 and 15 together
+	 */
+	public static final int MAX_PERIOD = 30;
+	
+	/**
+	 * The width of the band along the edges of the board in which objects are deleted as escaped. It is wider than the
+	 * distance a spaceship, at half the speed of light, travels in a check interval, plus its own length, so none
+	 * reaches the edge between checks.
+	 */
+	public static final int ESCAPE_MARGIN = 40;
+	
+	private static final int CHECK_INTERVAL = 60;
+	
+	private final long seed;
+	private final AtomicLong cursor;
+	private final Map<String, Long> objects = new HashMap<>();
+	private long soups, unsettled, nanos;
+	
+	/**
+	 * Constructs a SoupSearch that starts at the first soup.
+	 *
+	 * @param seed the seed of the search
+	 */
+	public SoupSearch(long seed) {
+		this(seed, 0);
+	}
+	
+	/**
+	 * Constructs a SoupSearch that resumes at a given soup. Negative cursors are replaced by 0.
+	 *
+	 * @param seed the seed of the search
+	 * @param cursor the number of the first soup to run
+	 */
+	public SoupSearch(long seed, long cursor) {
+		this.seed = seed;
+		this.cursor = new AtomicLong(Math.max(cursor, 0));
+	}
+	
+	/**
+	 * Fills a soup of SOUP_SIDE * SOUP_SIDE Cells, each alive with probability one half.
+	 *
+	 * @param seed the seed of the search
+	 * @param soup the number of the soup
+	 * @return the soup
+	 */
+	public static BitGrid soup(long seed, long soup) {
+		Random random = new Random(seed ^ (soup * 0x9E3779B97F4A7C15L));
+		BitGrid grid = new BitGrid(SOUP_SIDE, SOUP_SIDE);
+		for (int y = 0; y < SOUP_SIDE; y++) {
+			for (int x = 0; x < SOUP_SIDE; x++) {
+				grid.set(x, y, random.nextBoolean());
+			}
+		}
+		return grid;
+	}
+	
+	/**
+	 * Runs a soup in the middle of an empty board until it settles or MAX_GENERATIONS have passed, deleting the objects
+	 * that escape towards the edges. The board is stepped back and forth between two grids, and a third keeps the board
+	 * as it was at the last check.
+	 *
+	 * @param soup the soup
+	 * @param populations receives the population of each generation; at least MAX_GENERATIONS + 1 long
+	 * @return the board at the end, or null if the soup has not settled
+	 */
+	public static BitGrid run(BitGrid soup, int[] populations) {
+		BitGrid board = new BitGrid(BOARD_SIDE, BOARD_SIDE), next = new BitGrid(BOARD_SIDE, BOARD_SIDE);
+		BitGrid checked = new BitGrid(BOARD_SIDE, BOARD_SIDE);
+		board.paste(soup, (BOARD_SIDE - soup.getWidth()) / 2, (BOARD_SIDE - soup.getHeight()) / 2, PasteMode.REPLACE);
+		populations[0] = board.population();
+		for (int gen = 1; gen <= MAX_GENERATIONS; gen++) {
+			BitKernel.step(board.words(), next.words(), BOARD_SIDE, board.wordsPerRow(), -1L);  // BOARD_SIDE fills its words
+			BitGrid swap = board;
+			board = next;
+			next = swap;
+			if (gen % CHECK_INTERVAL == 0) {
+				deleteEscaped(board, checked);
+				System.arraycopy(board.words(), 0, checked.words(), 0, board.words().length);
+			}
+			populations[gen] = board.population();
+			if (gen % CHECK_INTERVAL == 0 && gen >= CHECK_INTERVAL + MAX_PERIOD && settled(populations, gen)) {
+				return board;
+			}
+		}
+		return null;
+	}
+	
+	/*
+	 * Deletes the objects that lie wholly within ESCAPE_MARGIN Cells of the edge of the board, do not have all their Cells
+	 * alive on the board of the last check, and are not known still lifes or oscillators
+	 */
+	private static void deleteEscaped(BitGrid board, BitGrid checked) {
+		int inner = BOARD_SIDE - ESCAPE_MARGIN;
+		for (long[] cluster : ObjectCensus.clusters(board)) {
+			boolean escaped = true, moved = false;
+			for (int i = 0; i < cluster.length && escaped; i++) {
+				int x = CellChanges.x(cluster[i]), y = CellChanges.y(cluster[i]);
+				escaped = x < ESCAPE_MARGIN || x >= inner || y < ESCAPE_MARGIN || y >= inner;
+				moved |= !checked.get(x, y);
+			}
+			if (escaped && moved && !ObjectCensus.isStationary(cluster)) {
+				for (long cell : cluster) {
+					board.set(CellChanges.x(cell), CellChanges.y(cell), false);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Checks whether the populations of the last check interval up to a generation repeat with some period
+	 */
+	private static boolean settled(int[] populations, int gen) {
+		for (int period = 1; period <= MAX_PERIOD; period++) {
+			boolean repeats = true;
+			for (int g = gen - CHECK_INTERVAL + 1; g <= gen && repeats; g++) {
+				repeats = populations[g] == populations[g - period];
+			}
+			if (repeats) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Runs the next soups of the search on one thread per processor and adds what they leave to the table of objects.
+	 * The cursor moves past the soups run.
+	 *
+	 * @param count the number of soups to run
+	 * @throws InterruptedException if the thread is interrupted while waiting for the soups
+	 */
+	public void run(long count) throws InterruptedException {
+		long first = cursor.get(), end = first + Math.max(count, 0);
+		AtomicLong next = new AtomicLong(first);
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Tally>> tallies = new ArrayList<>();
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < threads; i++) {
+				tallies.add(pool.submit(() -> {
+					Tally tally = new Tally();
+					int[] populations = new int[MAX_GENERATIONS + 1];
+					for (long soup = next.getAndIncrement(); soup < end; soup = next.getAndIncrement()) {
+						BitGrid settled = run(soup(seed, soup), populations);
+						if (settled == null) {
+							tally.unsettled++;
+							continue;
+						}
+						for (Map.Entry<String, Integer> entry : ObjectCensus.take(settled).entrySet()) {
+							tally.objects.merge(entry.getKey(), (long) entry.getValue(), Long::sum);
+						}
+					}
+					return tally;
+				}));
+			}
+			for (Future<Tally> future : tallies) {
+				Tally tally = future.get();
+				tally.objects.forEach((name, number) -> objects.merge(name, number, Long::sum));
+				unsettled += tally.unsettled;
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		nanos += System.nanoTime() - start;
+		soups += end - first;
+		cursor.set(end);
+	}
+	
+	/**
+	 * @return the seed of this search
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * @return the number of the next soup to run, from which a new SoupSearch with the same seed resumes
+	 */
+	public long getCursor() {
+		return cursor.get();
+	}
+	
+	/**
+	 * @return the number of each object found so far, by name
+	 */
+	public Map<String, Long> getObjects() {
+		return new HashMap<>(objects);
+	}
+	
+	/**
+	 * @return the number of soups run so far
+	 */
+	public long getSoups() {
+		return soups;
+	}
+	
+	/**
+	 * @return the number of soups run so far that did not settle within MAX_GENERATIONS
+	 */
+	public long getUnsettled() {
+		return unsettled;
+	}
+	
+	/**
+	 * @return the number of soups run per second of the runs so far
+	 */
+	public double getSoupsPerSecond() {
+		return nanos == 0 ? 0 : soups * 1e9 / nanos;
+	}
+	
+	/**
+	 * @return the table of objects found, most common first, with the throughput of the search and its cursor
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder(String.format("Seed %d, %d soup(s), %d unsettled, %.1f soups/sec, " +
+				"resume at soup %d%n", seed, soups, unsettled, getSoupsPerSecond(), getCursor()));
+		objects.entrySet().stream().sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
+				.forEach(entry -> out.append(String.format("%10d %s%n", entry.getValue(), entry.getKey())));
+		return out.toString();
+	}
+	
+	/*
+	 * The objects and counts found by one thread during a run
+	 */
+	private static class Tally {
+		private final Map<String, Long> objects = new HashMap<>();
+		private long unsettled;
+	}
+	
+	/*
+	 * Runs a search headless; the arguments, all optional, are the seed, the cursor to resume at and the number of soups
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		long cursor = args.length > 1 ? Long.parseLong(args[1]) : 0;
+		long count = args.length > 2 ? Long.parseLong(args[2]) : 200;
+		
+		SoupSearch search = new SoupSearch(seed, cursor);
+		search.run(count);
+		System.out.print(search);
+		
+		// A resumed search runs the same soups as the tail of one long search
+		SoupSearch whole = new SoupSearch(seed, cursor);
+		whole.run(20);
+		SoupSearch halves = new SoupSearch(seed, cursor);
+		halves.run(10);
+		SoupSearch resumed = new SoupSearch(seed, halves.getCursor());
+		resumed.run(10);
+		Map<String, Long> combined = halves.getObjects();
+		resumed.getObjects().forEach((name, number) -> combined.merge(name, number, Long::sum));
+		System.out.println("Two halves resumed from a cursor find the same objects as one run: " +
+				combined.equals(whole.getObjects()));
+	}
+
+}
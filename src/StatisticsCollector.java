@@ -0,0 +1,46 @@
+/**
+ * A statistic of the Cells of a GameOfLife that is gathered while each generation is computed, so that recording it costs
+ * no extra pass over the board. The stepping code hands every row of the new generation to the collectors right after
+ * computing it, while the row is still in cache. Collectors are registered with GameOfLife.addStatistics, and hold the
+ * results for the latest generation computed until the next one begins.
+ *
+ * When the board is stepped by several threads at once, each thread feeds its own partial collector made by
+ * newPartial(), and the partial results are merged into the registered collector once the generation is done.
+ */
+public interface StatisticsCollector {
+	
+	/**
+	 * Clears the results of the previous generation before a new one is computed.
+	 *
+	 * @param gen the number of the generation about to be computed
+	 * @param width the width of the board
+	 * @param height the height of the board
+	 */
+	void begin(int gen, int width, int height);
+	
+	/**
+	 * Takes in a run of words of one row of the new generation, together with the same words of the previous generation.
+	 * Words are laid out as in BitGrid, and every word of the board is handed in exactly once per generation.
+	 *
+	 * @param y the row the words belong to
+	 * @param firstWord the index within the row of the first word of the run
+	 * @param before an array holding the words of the previous generation
+	 * @param after an array holding the words of the new generation
+	 * @param offset the index in both arrays of the first word of the run
+	 * @param count the number of words in the run
+	 */
+	void acceptWords(int y, int firstWord, long[] before, long[] after, int offset, int count);
+	
+	/**
+	 * @return an empty collector with the same settings, ready for one thread's share of the current generation
+	 */
+	StatisticsCollector newPartial();
+	
+	/**
+	 * Adds the results of a partial collector made by newPartial() to the results of this one.
+	 *
+	 * @param partial the partial collector to merge in
+	 */
+	void merge(StatisticsCollector partial);
+
+}
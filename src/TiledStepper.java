@@ -0,0 +1,205 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Advances a BitGrid several generations at a time by temporal tiling. The grid is divided into tiles small enough for
+ * the working copy of a tile to stay in the L2 cache. Each tile is copied together with a halo of the cells around it,
+ * advanced by up to depth generations with BitKernel while it is cache-resident, and its interior written to the result.
+ * A halo as deep as the number of generations computed keeps the unknown cells beyond it from reaching the interior,
+ * so the result is exactly that of computing the generations one by one. At each generation only the rows the interior
+ * still depends on are computed, one fewer at each end than the generation before. A full sweep over the board instead
+ * streams the whole grid through memory once per generation.
+ *
+ * The gain is bounded by how much of a full sweep is spent waiting on memory. BitKernel does enough work per word that
+ * little is: on a 2 MB L2 cache, tiles of 256 rows by 64 words advance 16384 * 16384 and 32768 * 32768 boards only
+ * about 1.15 to 1.2 times as fast as full sweeps. So the class, and tiled stepping in GameOfLife, are kept out of the
+ * public interface.
+ */
+class TiledStepper {
+	
+	/**
+	 * Tile dimensions and depth whose two working buffers, about 300 KB, fit in an L2 cache of 1 MB or more, and whose
+	 * halo of one word on each side adds only 3% to the width computed
+	 */
+	public static final int TILE_ROWS_DEFAULT = 256, TILE_WORDS_DEFAULT = 64, DEPTH_DEFAULT = 16;
+	
+	private static final StatisticsCollector[] NO_COLLECTORS = new StatisticsCollector[0];
+	
+	private final int tileRows, tileWords, depth;
+	
+	/**
+	 * Constructs a TiledStepper with the default tile dimensions and depth.
+	 */
+	public TiledStepper() {
+		this(TILE_ROWS_DEFAULT, TILE_WORDS_DEFAULT, DEPTH_DEFAULT);
+	}
+	
+	/**
+	 * Constructs a TiledStepper given the dimension of its tiles and the number of generations computed per tile visit.
+	 * Values that are not positive are replaced by the defaults, and the depth is at most 64.
+	 *
+	 * @param tileRows the number of rows in a tile
+	 * @param tileWords the number of 64-cell words across a tile
+	 * @param depth the number of generations to advance each tile by while it is in cache
+	 */
+	public TiledStepper(int tileRows, int tileWords, int depth) {
+		this.tileRows = tileRows > 0 ? tileRows : TILE_ROWS_DEFAULT;
+		this.tileWords = tileWords > 0 ? tileWords : TILE_WORDS_DEFAULT;
+		this.depth = depth > 0 ? Math.min(depth, 64) : DEPTH_DEFAULT;  // one halo word on each side covers 64 generations
+	}
+	
+	/**
+	 * @return the number of generations each tile is advanced by per visit
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	
+	/**
+	 * Computes the generation a number of generations after the one given, without changing the grid given.
+	 *
+	 * @param grid the current generation
+	 * @param generations the number of generations to advance by; at most the depth of this stepper
+	 * @return a new BitGrid holding the generation reached
+	 */
+	public BitGrid advance(BitGrid grid, int generations) {
+		return advance(grid, generations, Collections.emptyList());
+	}
+	
+	/**
+	 * Computes the generation a number of generations after the one given, without changing the grid given, and feeds the 
+	 * generation reached to statistics collectors as the interior of each tile is copied out. The births and deaths seen 
+	 * by the collectors are those of the last generation computed. The collectors must already have been told that the 
+	 * generation has begun.
+	 *
+	 * @param grid the current generation
+	 * @param generations the number of generations to advance by; at most the depth of this stepper
+	 * @param collectors the collectors to feed
+	 * @return a new BitGrid holding the generation reached
+	 */
+	public BitGrid advance(BitGrid grid, int generations, List<StatisticsCollector> collectors) {
+		int height = grid.getHeight(), wordsPerRow = grid.wordsPerRow();
+		int k = Math.min(generations, depth);
+		BitGrid next = new BitGrid(grid.getWidth(), height);
+		if (k <= 0) {
+			next.paste(grid, 0, 0, PasteMode.REPLACE);
+			return next;
+		}
+		
+		long[] src = grid.words(), dst = next.words();
+		int haloWords = 1;
+		long[] a = new long[(tileRows + 2 * k) * (tileWords + 2 * haloWords)];
+		long[] b = new long[a.length];
+		
+		for (int tileRow = 0; tileRow < height; tileRow += tileRows) {
+			int tileRowEnd = Math.min(tileRow + tileRows, height);
+			int rowStart = Math.max(tileRow - k, 0), rowEnd = Math.min(tileRowEnd + k, height);
+			for (int tileWord = 0; tileWord < wordsPerRow; tileWord += tileWords) {
+				int tileWordEnd = Math.min(tileWord + tileWords, wordsPerRow);
+				int wordStart = Math.max(tileWord - haloWords, 0), wordEnd = Math.min(tileWordEnd + haloWords, wordsPerRow);
+				int rows = rowEnd - rowStart, words = wordEnd - wordStart;
+				
+				// Copy the tile and its halo in
+				for (int r = 0; r < rows; r++) {
+					System.arraycopy(src, (rowStart + r) * wordsPerRow + wordStart, a, r * words, words);
+				}
+				
+				// Cells past the right edge of the board must stay dead; inside the board every bit is a cell
+				long lastWordMask = wordEnd == wordsPerRow ? BitKernel.lastWordMask(grid.getWidth()) : -1L;
+				int top = tileRow - rowStart, bottom = rowEnd - tileRowEnd;
+				for (int gen = 1; gen <= k; gen++) {
+					// Only the rows that the interior still depends on are computed, which narrow by one at each end
+					int fromRow = Math.max(top - (k - gen), 0), toRow = Math.min(rows - bottom + (k - gen), rows);
+					BitKernel.stepRows(a, b, rows, words, lastWordMask, fromRow, toRow, NO_COLLECTORS);
+					long[] swap = a;
+					a = b;
+					b = swap;
+				}
+				
+				// Copy the interior, which the halo has kept exact, out; b still holds the generation before it
+				for (int row = tileRow; row < tileRowEnd; row++) {
+					int offset = (row - rowStart) * words + (tileWord - wordStart);
+					System.arraycopy(a, offset, dst, row * wordsPerRow + tileWord, tileWordEnd - tileWord);
+					for (StatisticsCollector collector : collectors) {
+						collector.acceptWords(row, tileWord, b, a, offset, tileWordEnd - tileWord);
+					}
+				}
+			}
+		}
+		return next;
+	}
+	
+	/*
+	 * Checks that tiled stepping matches GameOfLife.nextGen(), and measures it against a full sweep per generation
+	 */
+	public static void main(String[] args) {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 20; trial++) {
+			GameOfLife game = new GameOfLife(1 + random.nextInt(200), 1 + random.nextInt(200));
+			game.randomSetup();
+			TiledStepper stepper = new TiledStepper(1 + random.nextInt(40), 1 + random.nextInt(3), 1 + random.nextInt(20));
+			BitGrid tiled = game.snapshot();
+			int generations = 1 + random.nextInt(40);
+			for (int done = 0; done < generations; done += stepper.getDepth()) {
+				tiled = stepper.advance(tiled, generations - done);
+			}
+			game.advance(generations);
+			if (!tiled.equals(game.snapshot())) {
+				System.out.println("Tiled stepping differs from nextGen() on a " + game.getWidth() + " * " +
+						game.getHeight() + " board after " + generations + " generations");
+				return;
+			}
+		}
+		System.out.println("Tiled stepping matches nextGen() on 20 random boards");
+		
+		GameOfLife game = new GameOfLife(300, 200);
+		game.randomSetup();
+		BitGrid initial = game.snapshot();
+		PopulationStatistics sweptPopulation = new PopulationStatistics(), tiledPopulation = new PopulationStatistics();
+		DensityHistogram sweptDensity = new DensityHistogram(), tiledDensity = new DensityHistogram();
+		game.advance(7);
+		game.addStatistics(sweptPopulation);
+		game.addStatistics(sweptDensity);
+		game.advance(1);
+		for (StatisticsCollector collector : List.of(tiledPopulation, tiledDensity)) {
+			collector.begin(8, 300, 200);
+		}
+		new TiledStepper(50, 2, 8).advance(initial, 8, List.of(tiledPopulation, tiledDensity));
+		System.out.println("Statistics gathered while tiling match those of a full sweep: " + 
+				(sweptPopulation.toString().equals(tiledPopulation.toString()) && sweptDensity.toString().equals(tiledDensity.toString())));
+		
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 16384;
+		int generations = 32;
+		BitGrid grid = new BitGrid(side, side);
+		long[] words = grid.words();
+		for (int i = 0; i < words.length; i++) {
+			words[i] = random.nextLong();
+			if (i % grid.wordsPerRow() == grid.wordsPerRow() - 1) {
+				words[i] &= BitKernel.lastWordMask(side);
+			}
+		}
+		System.out.println("Advancing a " + side + " * " + side + " board (" + (long) side * side / 8 / 1024 / 1024 +
+				" MB) by " + generations + " generations:");
+		
+		long start = System.nanoTime();
+		BitGrid swept = grid;
+		for (int gen = 0; gen < generations; gen++) {
+			swept = BitKernel.step(swept);
+		}
+		long sweepNanos = System.nanoTime() - start;
+		System.out.println("  a full sweep per generation takes " + sweepNanos / 1000000 + " ms");
+		
+		start = System.nanoTime();
+		TiledStepper stepper = new TiledStepper();
+		BitGrid tiled = grid;
+		for (int done = 0; done < generations; done += stepper.getDepth()) {
+			tiled = stepper.advance(tiled, generations - done);
+		}
+		long tiledNanos = System.nanoTime() - start;
+		System.out.println("  tiled stepping takes " + tiledNanos / 1000000 + " ms, " +
+				String.format("%.2f", (double) sweepNanos / tiledNanos) + " times as fast; results equal: " +
+				tiled.equals(swept));
+	}
+
+}